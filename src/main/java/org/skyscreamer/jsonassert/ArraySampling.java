@@ -0,0 +1,139 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import java.util.Random;
+
+/**
+ * <p>Compares only a sample of the elements of large arrays, for load tests where statistical confidence is enough.
+ * The lengths of sampled arrays are always compared; then only the elements at the sampled positions are.  With
+ * {@link #stride(double)} the positions are evenly spaced; with {@link #random(double, long)} they are drawn at random
+ * from a seed, so a failure can be reproduced.  Arrays shorter than the {@linkplain #withMinLength(int) minimum
+ * length} are compared in full.</p>
+ *
+ * <p>How much was compared is reported by {@link JSONCompareResult#getVerifiedFraction()}.  Samplings are immutable
+ * and may be shared by any number of comparisons.</p>
+ */
+public final class ArraySampling {
+    /**
+     * Length from which arrays are sampled unless {@linkplain #withMinLength(int) set otherwise}.
+     */
+    public static final int DEFAULT_MIN_LENGTH = 1000;
+
+    private final double _rate;
+    private final boolean _random;
+    private final long _seed;
+    private final int _minLength;
+
+    private ArraySampling(double rate, boolean random, long seed, int minLength) {
+        if (!(rate > 0 && rate <= 1)) {
+            throw new IllegalArgumentException("rate must be in (0, 1]: " + rate);
+        }
+        if (minLength < 0) {
+            throw new IllegalArgumentException("minLength must not be negative: " + minLength);
+        }
+        _rate = rate;
+        _random = random;
+        _seed = seed;
+        _minLength = minLength;
+    }
+
+    /**
+     * Creates a sampling comparing evenly spaced elements, the first always among them.
+     *
+     * @param rate fraction of the elements compared, in (0, 1]
+     * @return a new sampling
+     */
+    public static ArraySampling stride(double rate) {
+        return new ArraySampling(rate, false, 0, DEFAULT_MIN_LENGTH);
+    }
+
+    /**
+     * Creates a sampling comparing elements drawn at random.  The same seed draws the same positions from arrays of
+     * the same length at the same path.
+     *
+     * @param rate fraction of the elements compared, in (0, 1]
+     * @param seed seed of the draws
+     * @return a new sampling
+     */
+    public static ArraySampling random(double rate, long seed) {
+        return new ArraySampling(rate, true, seed, DEFAULT_MIN_LENGTH);
+    }
+
+    /**
+     * Returns a copy of this sampling that compares arrays shorter than {@code minLength} in full.
+     *
+     * @param minLength length from which arrays are sampled, must not be negative
+     * @return a new sampling
+     */
+    public ArraySampling withMinLength(int minLength) {
+        return new ArraySampling(_rate, _random, _seed, minLength);
+    }
+
+    /**
+     * @return fraction of the elements of a sampled array that are compared
+     */
+    public double getRate() {
+        return _rate;
+    }
+
+    /**
+     * @return length from which arrays are sampled
+     */
+    public int getMinLength() {
+        return _minLength;
+    }
+
+    /**
+     * Does this sampling skip some elements of arrays of the given length?
+     *
+     * @param length length of the arrays
+     * @return true if only some of their elements are compared
+     */
+    public boolean appliesTo(int length) {
+        return length >= _minLength && sampleSize(length) < length;
+    }
+
+    /**
+     * Picks the positions to compare in an array this sampling {@linkplain #appliesTo(int) applies to}.
+     *
+     * @param path   path of the array, which random samplings mix into the seed
+     * @param length length of the array
+     * @return positions to compare, ascending
+     */
+    public int[] select(String path, int length) {
+        int size = sampleSize(length);
+        int[] positions = new int[size];
+        if (!_random) {
+            for (int i = 0; i < size; i++) {
+                positions[i] = (int) ((long) i * length / size);
+            }
+            return positions;
+        }
+        // Selection sampling: each position is taken with the probability of filling the remaining slots
+        Random random = new Random(_seed * 31 + path.hashCode());
+        int selected = 0;
+        for (int i = 0; i < length && selected < size; i++) {
+            if (random.nextInt(length - i) < size - selected) {
+                positions[selected++] = i;
+            }
+        }
+        return positions;
+    }
+
+    private int sampleSize(int length) {
+        return (int) Math.min(length, Math.max(1, (long) Math.ceil(_rate * length)));
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.skyscreamer.jsonassert.comparator.JSONComparator;
+
+/**
+ * <p>Verifies JSON documents off the calling thread, for load tests whose request threads must not block on
+ * verification.  Each comparison is run on an executor and its result delivered through a
+ * {@link CompletableFuture}.</p>
+ *
+ * <p>At most {@code maxPending} comparisons are queued or running at a time.  When that many are, a new one is handled
+ * by the {@link OverflowPolicy}.  The default executor uses virtual threads on Java 21 and later, and a pool of daemon
+ * threads, one per processor, before that.  An executor passed in is not shut down by {@link #close()}.</p>
+ */
+public class AsyncJSONCompare implements AutoCloseable {
+    /**
+     * What to do with a comparison submitted while {@code maxPending} comparisons are queued or running.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Complete the future exceptionally with a {@link RejectedExecutionException}.
+         */
+        REJECT,
+        /**
+         * Skip the comparison and cancel its future.
+         */
+        DROP,
+        /**
+         * Run the comparison on the calling thread before returning.
+         */
+        CALLER_RUNS
+    }
+
+    private final Executor _executor;
+    private final boolean _ownsExecutor;
+    private final OverflowPolicy _overflowPolicy;
+    private final Semaphore _permits;
+    private final int _maxPending;
+    private final AtomicLong _overflowCount = new AtomicLong();
+
+    /**
+     * Creates an instance on the default executor, which {@link #close()} shuts down.
+     *
+     * @param maxPending     maximum number of comparisons queued or running
+     * @param overflowPolicy what to do with comparisons beyond that
+     */
+    public AsyncJSONCompare(int maxPending, OverflowPolicy overflowPolicy) {
+        this(VerificationExecutors.newDefaultExecutor(), true, maxPending, overflowPolicy);
+    }
+
+    /**
+     * Creates an instance on the given executor.
+     *
+     * @param executor       executor comparisons run on
+     * @param maxPending     maximum number of comparisons queued or running
+     * @param overflowPolicy what to do with comparisons beyond that
+     */
+    public AsyncJSONCompare(Executor executor, int maxPending, OverflowPolicy overflowPolicy) {
+        this(executor, false, maxPending, overflowPolicy);
+    }
+
+    private AsyncJSONCompare(Executor executor, boolean ownsExecutor, int maxPending, OverflowPolicy overflowPolicy) {
+        if (executor == null || overflowPolicy == null) {
+            throw new IllegalArgumentException("executor and overflowPolicy must not be null");
+        }
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("maxPending must be positive: " + maxPending);
+        }
+        _executor = executor;
+        _ownsExecutor = ownsExecutor;
+        _maxPending = maxPending;
+        _overflowPolicy = overflowPolicy;
+        _permits = new Semaphore(maxPending);
+    }
+
+    /**
+     * Compares JSON string provided to the expected JSON string asynchronously.
+     *
+     * @param expectedStr Expected JSON string
+     * @param actualStr   JSON string to compare
+     * @param mode        Defines comparison behavior
+     * @return future result of the comparison
+     * @see JSONCompare#compareJSON(String, String, JSONCompareMode)
+     */
+    public CompletableFuture<JSONCompareResult> compareJSON(final String expectedStr, final String actualStr,
+                                                            final JSONCompareMode mode) {
+        return submit(new Comparison() {
+            @Override
+            JSONCompareResult run() {
+                return JSONCompare.compareJSON(expectedStr, actualStr, mode);
+            }
+        });
+    }
+
+    /**
+     * Compares JSON string provided to the expected JSON string using provided comparator asynchronously.
+     *
+     * @param expectedStr Expected JSON string
+     * @param actualStr   JSON string to compare
+     * @param comparator  Comparator to use
+     * @return future result of the comparison
+     * @see JSONCompare#compareJSON(String, String, JSONComparator)
+     */
+    public CompletableFuture<JSONCompareResult> compareJSON(final String expectedStr, final String actualStr,
+                                                            final JSONComparator comparator) {
+        return submit(new Comparison() {
+            @Override
+            JSONCompareResult run() {
+                return JSONCompare.compareJSON(expectedStr, actualStr, comparator);
+            }
+        });
+    }
+
+    /**
+     * Verifies a JSON string against a compiled expectation asynchronously.
+     *
+     * @param expectation expectation to verify against
+     * @param actualStr   JSON string to verify
+     * @return future result of the comparison
+     */
+    public CompletableFuture<JSONCompareResult> verify(final CompiledExpectation expectation, final String actualStr) {
+        return submit(new Comparison() {
+            @Override
+            JSONCompareResult run() {
+                return expectation.verify(actualStr);
+            }
+        });
+    }
+
+    /**
+     * @return number of comparisons queued or running
+     */
+    public int getPendingCount() {
+        return _maxPending - _permits.availablePermits();
+    }
+
+    /**
+     * @return number of comparisons handled by the overflow policy
+     */
+    public long getOverflowCount() {
+        return _overflowCount.get();
+    }
+
+    /**
+     * Shuts down the default executor, letting submitted comparisons finish.  Does nothing for an executor passed in.
+     */
+    @Override
+    public void close() {
+        if (_ownsExecutor) {
+            ((ExecutorService) _executor).shutdown();
+        }
+    }
+
+    private CompletableFuture<JSONCompareResult> submit(final Comparison comparison) {
+        final CompletableFuture<JSONCompareResult> future = new CompletableFuture<JSONCompareResult>();
+        if (!_permits.tryAcquire()) {
+            _overflowCount.incrementAndGet();
+            switch (_overflowPolicy) {
+                case REJECT:
+                    future.completeExceptionally(new RejectedExecutionException(
+                            "More than " + _maxPending + " comparisons pending"));
+                    break;
+                case DROP:
+                    future.cancel(false);
+                    break;
+                default:
+                    comparison.complete(future);
+            }
+            return future;
+        }
+        try {
+            _executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        comparison.complete(future);
+                    } finally {
+                        _permits.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            _permits.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private abstract static class Comparison {
+        abstract JSONCompareResult run();
+
+        void complete(CompletableFuture<JSONCompareResult> future) {
+            try {
+                future.complete(run());
+            } catch (RuntimeException | Error e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
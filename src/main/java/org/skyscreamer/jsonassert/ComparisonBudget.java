@@ -0,0 +1,112 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Limits the amount of work a single comparison may perform.  A budget may bound the number of nodes visited,
+ * the wall-clock time spent, or both.  Any comparison running under a budget also stops when its thread is
+ * interrupted.</p>
+ *
+ * <p>When the budget runs out the comparison stops where it is and the {@link JSONCompareResult} is marked
+ * {@linkplain JSONCompareResult#isInconclusive() inconclusive}.  Budgets are immutable; the counters are kept
+ * per comparison, so one budget may be shared by any number of comparisons.</p>
+ */
+public final class ComparisonBudget {
+    /**
+     * Budget that never runs out, but still stops the comparison if its thread is interrupted.
+     */
+    public static final ComparisonBudget INTERRUPTIBLE = new ComparisonBudget(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private final long _maxNodeVisits;
+    private final long _timeoutNanos;
+
+    private ComparisonBudget(long maxNodeVisits, long timeoutNanos) {
+        if (maxNodeVisits <= 0) {
+            throw new IllegalArgumentException("maxNodeVisits must be positive: " + maxNodeVisits);
+        }
+        if (timeoutNanos <= 0) {
+            throw new IllegalArgumentException("timeout must be positive: " + timeoutNanos + "ns");
+        }
+        _maxNodeVisits = maxNodeVisits;
+        _timeoutNanos = timeoutNanos;
+    }
+
+    /**
+     * Creates a budget allowing at most {@code maxNodeVisits} nodes to be visited.
+     *
+     * @param maxNodeVisits maximum number of nodes visited, must be positive
+     * @return a new budget
+     */
+    public static ComparisonBudget maxNodeVisits(long maxNodeVisits) {
+        return new ComparisonBudget(maxNodeVisits, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a budget allowing the comparison to run for at most {@code timeout}.
+     *
+     * @param timeout maximum duration, must be positive
+     * @param unit    unit of {@code timeout}
+     * @return a new budget
+     */
+    public static ComparisonBudget timeout(long timeout, TimeUnit unit) {
+        return new ComparisonBudget(Long.MAX_VALUE, unit.toNanos(timeout));
+    }
+
+    /**
+     * Returns a copy of this budget that also limits the number of node visits.
+     *
+     * @param maxNodeVisits maximum number of nodes visited, must be positive
+     * @return a new budget
+     */
+    public ComparisonBudget withMaxNodeVisits(long maxNodeVisits) {
+        return new ComparisonBudget(maxNodeVisits, _timeoutNanos);
+    }
+
+    /**
+     * Returns a copy of this budget that also limits the duration of the comparison.
+     *
+     * @param timeout maximum duration, must be positive
+     * @param unit    unit of {@code timeout}
+     * @return a new budget
+     */
+    public ComparisonBudget withTimeout(long timeout, TimeUnit unit) {
+        return new ComparisonBudget(_maxNodeVisits, unit.toNanos(timeout));
+    }
+
+    /**
+     * Maximum number of nodes visited
+     * @return node visit limit, {@code Long.MAX_VALUE} if unlimited
+     */
+    public long getMaxNodeVisits() {
+        return _maxNodeVisits;
+    }
+
+    /**
+     * Maximum duration of the comparison
+     * @return time limit in nanoseconds, {@code Long.MAX_VALUE} if unlimited
+     */
+    public long getTimeoutNanos() {
+        return _timeoutNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ComparisonBudget[maxNodeVisits=" + (_maxNodeVisits == Long.MAX_VALUE ? "unlimited" : _maxNodeVisits)
+                + ", timeout=" + (_timeoutNanos == Long.MAX_VALUE ? "unlimited"
+                                  : TimeUnit.NANOSECONDS.toMillis(_timeoutNanos) + "ms") + "]";
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.skyscreamer.jsonassert.comparator.ArrayComparisonStrategy;
+import org.skyscreamer.jsonassert.comparator.CustomComparator;
+import org.skyscreamer.jsonassert.comparator.JSONCompareUtil;
+
+/**
+ * <p>An expected JSON document, comparison mode and customizations, prepared once to verify many actual documents.
+ * Compiling parses the expected document and works out everything that only depends on it: the sorted keys of each
+ * object, how each array is compared when order does not matter, the unique key and the objects by id of arrays of
+ * objects, and the value counts of arrays of simple values.  Customizations are resolved once for each path of the
+ * expected document; paths found only in actual documents are resolved as they are met.  Verifying then only parses
+ * and walks the actual document.</p>
+ *
+ * <p>Results are the same as those of {@link JSONCompare#compareJSON(String, String, JSONComparator)} with a
+ * {@link CustomComparator} built from the same mode and customizations.  A compiled expectation is immutable and may
+ * be shared between threads, provided its value matchers may be.</p>
+ */
+public final class CompiledExpectation {
+    private final String _expectedStr;
+    private final Object _expected;
+    private final JSONCompareMode _mode;
+    private final boolean _customized;
+    private final CompiledComparator _comparator;
+
+    private CompiledExpectation(String expectedStr, Object expected, JSONCompareMode mode,
+                                Customization[] customizations) {
+        _expectedStr = expectedStr;
+        _mode = mode;
+        _customized = customizations.length > 0;
+        _comparator = new CompiledComparator(mode, customizations);
+        _expected = expected != null ? expected : PrunedJSONParser.parseJSON(expectedStr, _comparator);
+        _comparator.compile("", _expected);
+    }
+
+    /**
+     * Compiles an expectation.
+     *
+     * @param expectedStr    Expected JSON string
+     * @param mode           Defines comparison behavior
+     * @param customizations customizations to apply, in order of precedence
+     * @return the compiled expectation
+     */
+    public static CompiledExpectation compile(String expectedStr, JSONCompareMode mode,
+                                              Customization... customizations) {
+        return new CompiledExpectation(expectedStr, null, mode, customizations.clone());
+    }
+
+    /**
+     * Compiles an expectation from an expected object that is already built, such as one built by a class generated
+     * from {@link org.skyscreamer.jsonassert.processor.ExpectedJSON}.  The object must not be modified afterwards.
+     *
+     * @param expected       Expected JSONObject
+     * @param mode           Defines comparison behavior
+     * @param customizations customizations to apply, in order of precedence
+     * @return the compiled expectation
+     */
+    public static CompiledExpectation compile(JSONObject expected, JSONCompareMode mode,
+                                              Customization... customizations) {
+        return new CompiledExpectation(null, expected, mode, customizations.clone());
+    }
+
+    /**
+     * Compiles an expectation from an expected array that is already built.  The array must not be modified
+     * afterwards.
+     *
+     * @param expected       Expected JSONArray
+     * @param mode           Defines comparison behavior
+     * @param customizations customizations to apply, in order of precedence
+     * @return the compiled expectation
+     */
+    public static CompiledExpectation compile(JSONArray expected, JSONCompareMode mode,
+                                              Customization... customizations) {
+        return new CompiledExpectation(null, expected, mode, customizations.clone());
+    }
+
+    /**
+     * @return the mode documents are compared in
+     */
+    public JSONCompareMode getMode() {
+        return _mode;
+    }
+
+    /**
+     * Verifies a JSON string against the expectation.
+     *
+     * @param actualStr JSON string to verify
+     * @return result of the comparison
+     */
+    public JSONCompareResult verify(String actualStr) {
+        if (!_customized && _expectedStr != null && JSONTextEquivalence.equivalent(_expectedStr, actualStr)) {
+            return new JSONCompareResult();
+        }
+        return JSONCompare.compareParsed(_expected, PrunedJSONParser.parseJSON(actualStr, _comparator), _comparator);
+    }
+
+    /**
+     * Verifies a JSONObject against the expectation.
+     *
+     * @param actual JSONObject to verify
+     * @return result of the comparison
+     */
+    public JSONCompareResult verify(JSONObject actual) {
+        return JSONCompare.compareParsed(_expected, actual, _comparator);
+    }
+
+    /**
+     * Verifies a JSONArray against the expectation.
+     *
+     * @param actual JSONArray to verify
+     * @return result of the comparison
+     */
+    public JSONCompareResult verify(JSONArray actual) {
+        return JSONCompare.compareParsed(_expected, actual, _comparator);
+    }
+
+    /**
+     * Comparator answering the questions about the expected document from tables filled by
+     * {@link #compile(String, Object)}.
+     * Nodes it has no entry for, such as those a value matcher builds, are handled as usual.  The tables are not
+     * modified after compilation.
+     */
+    private static final class CompiledComparator extends CustomComparator {
+        private static final Object NO_CUSTOMIZATION = new Object();
+
+        private final boolean _strictOrder;
+        private final boolean _customized;
+        private final Map<JSONObject, Set<String>> _keys = new IdentityHashMap<JSONObject, Set<String>>();
+        private final Map<JSONArray, ArrayComparisonStrategy> _strategies =
+                new IdentityHashMap<JSONArray, ArrayComparisonStrategy>();
+        private final Map<JSONArray, String> _uniqueKeys = new IdentityHashMap<JSONArray, String>();
+        private final Map<JSONArray, Map<Object, JSONObject>> _byId =
+                new IdentityHashMap<JSONArray, Map<Object, JSONObject>>();
+        private final Map<JSONArray, Map<Object, Integer>> _cardinalities =
+                new IdentityHashMap<JSONArray, Map<Object, Integer>>();
+        private final Map<String, Object> _customizations = new HashMap<String, Object>();
+
+        CompiledComparator(JSONCompareMode mode, Customization[] customizations) {
+            super(mode, customizations);
+            _strictOrder = mode.hasStrictOrder();
+            _customized = customizations.length > 0;
+        }
+
+        void compile(String path, Object node) {
+            if (_customized && !_customizations.containsKey(path)) {
+                Customization customization = super.getCustomization(path);
+                _customizations.put(path, customization != null ? customization : NO_CUSTOMIZATION);
+            }
+            if (node instanceof JSONObject) {
+                JSONObject object = (JSONObject) node;
+                Set<String> keys = Collections.unmodifiableSet(super.getExpectedKeys(object));
+                _keys.put(object, keys);
+                for (String key : keys) {
+                    compile(JSONCompareUtil.qualify(path, key), object.opt(key));
+                }
+            } else if (node instanceof JSONArray) {
+                JSONArray array = (JSONArray) node;
+                if (!_strictOrder && array.length() > 0) {
+                    compileUnordered(path, array);
+                }
+                for (int i = 0; i < array.length(); i++) {
+                    compile(path + "[" + i + "]", array.opt(i));
+                }
+            }
+        }
+
+        private void compileUnordered(String path, JSONArray array) {
+            ArrayComparisonStrategy strategy = super.getUnorderedStrategy(array);
+            _strategies.put(array, strategy);
+            if (strategy == ArrayComparisonStrategy.SIMPLE_VALUES) {
+                _cardinalities.put(array, Collections.unmodifiableMap(super.getExpectedCardinalities(array)));
+            } else if (strategy == ArrayComparisonStrategy.UNIQUE_KEY) {
+                String uniqueKey = super.getUniqueKey(array);
+                _uniqueKeys.put(array, uniqueKey);
+                if (uniqueKey != null) {
+                    Map<Object, JSONObject> byId = Collections.unmodifiableMap(super.getExpectedById(array, uniqueKey));
+                    _byId.put(array, byId);
+                    if (_customized) {
+                        // Elements matched by unique key are compared under paths naming their id
+                        for (Map.Entry<Object, JSONObject> entry : byId.entrySet()) {
+                            compile(JSONCompareUtil.formatUniqueKey(path, uniqueKey, entry.getKey()),
+                                    entry.getValue());
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        protected Set<String> getExpectedKeys(JSONObject expected) {
+            Set<String> keys = _keys.get(expected);
+            return keys != null ? keys : super.getExpectedKeys(expected);
+        }
+
+        @Override
+        protected ArrayComparisonStrategy getUnorderedStrategy(JSONArray expected) {
+            ArrayComparisonStrategy strategy = _strategies.get(expected);
+            return strategy != null ? strategy : super.getUnorderedStrategy(expected);
+        }
+
+        @Override
+        protected String getUniqueKey(JSONArray expected) {
+            return _uniqueKeys.containsKey(expected) ? _uniqueKeys.get(expected) : super.getUniqueKey(expected);
+        }
+
+        @Override
+        protected Map<Object, JSONObject> getExpectedById(JSONArray expected, String uniqueKey) {
+            Map<Object, JSONObject> byId = _byId.get(expected);
+            return byId != null ? byId : super.getExpectedById(expected, uniqueKey);
+        }
+
+        @Override
+        protected Map<Object, Integer> getExpectedCardinalities(JSONArray expected) {
+            Map<Object, Integer> cardinalities = _cardinalities.get(expected);
+            return cardinalities != null ? cardinalities : super.getExpectedCardinalities(expected);
+        }
+
+        @Override
+        protected Customization getCustomization(String path) {
+            if (!_customized) {
+                return null;
+            }
+            Object customization = _customizations.get(path);
+            if (customization == null) {
+                return super.getCustomization(path);
+            }
+            return customization == NO_CUSTOMIZATION ? null : (Customization) customization;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link FailureSink} that only counts failures, by kind.  Safe to share between comparisons on several threads.
+ */
+public class CountingFailureSink implements FailureSink {
+    private final AtomicLong _fieldFailures = new AtomicLong();
+    private final AtomicLong _fieldMissing = new AtomicLong();
+    private final AtomicLong _fieldUnexpected = new AtomicLong();
+    private final AtomicLong _otherFailures = new AtomicLong();
+
+    @Override
+    public void fieldFailure(String field, Object expected, Object actual) {
+        _fieldFailures.incrementAndGet();
+    }
+
+    @Override
+    public void fieldMissing(String field, Object expected) {
+        _fieldMissing.incrementAndGet();
+    }
+
+    @Override
+    public void fieldUnexpected(String field, Object actual) {
+        _fieldUnexpected.incrementAndGet();
+    }
+
+    @Override
+    public void failure(String message) {
+        _otherFailures.incrementAndGet();
+    }
+
+    /**
+     * @return number of fields with a different value than expected
+     */
+    public long getFieldFailureCount() {
+        return _fieldFailures.get();
+    }
+
+    /**
+     * @return number of expected fields missing
+     */
+    public long getFieldMissingCount() {
+        return _fieldMissing.get();
+    }
+
+    /**
+     * @return number of unexpected fields present
+     */
+    public long getFieldUnexpectedCount() {
+        return _fieldUnexpected.get();
+    }
+
+    /**
+     * @return number of failures that only have a message
+     */
+    public long getOtherFailureCount() {
+        return _otherFailures.get();
+    }
+
+    /**
+     * @return number of failures of every kind
+     */
+    public long getTotalCount() {
+        return getFieldFailureCount() + getFieldMissingCount() + getFieldUnexpectedCount() + getOtherFailureCount();
+    }
+
+    @Override
+    public String toString() {
+        return "CountingFailureSink[fieldFailures=" + getFieldFailureCount() + ", fieldMissing=" + getFieldMissingCount()
+                + ", fieldUnexpected=" + getFieldUnexpectedCount() + ", otherFailures=" + getOtherFailureCount() + "]";
+    }
+}
@@ -20,28 +20,47 @@ import java.util.regex.Pattern;
  * Associates a custom matcher to a specific jsonpath.
  */
 public final class Customization {
+	private static final ValueMatcher<Object> ANY_VALUE = new ValueMatcher<Object>() {
+		@Override
+		public boolean equal(Object o1, Object o2) {
+			return true;
+		}
+	};
+
 	private final Pattern path;
 	private final ValueMatcher<Object> comparator;
+	private final boolean ignore;
 
 	public Customization(String path, ValueMatcher<Object> comparator) {
+		this(path, comparator, false);
+	}
+
+	private Customization(String path, ValueMatcher<Object> comparator, boolean ignore) {
         assert path != null;
         assert comparator != null;
-		this.path = Pattern.compile(buildPattern(path));
+		this.path = compilePath(path);
 		this.comparator = comparator;
+		this.ignore = ignore;
 	}
 
-	private String buildPattern(String path) {
-		return buildPatternLevel1(path);
+	/**
+	 * Compiles a path with the {@code *} and {@code **} wildcards of customizations into a pattern.
+	 *
+	 * @param path the json path
+	 * @return a pattern matching the paths it stands for
+	 */
+	static Pattern compilePath(String path) {
+		return Pattern.compile(buildPatternLevel1(path));
 	}
 
-	private String buildPatternLevel1(String path) {
+	private static String buildPatternLevel1(String path) {
 		String regex = "\\*\\*\\.";
 		String replacement = "(?:.+\\.)?";
 
 		return buildPattern(path, regex, replacement, 1);
 	}
 
-	private String buildPatternLevel2(String s) {
+	private static String buildPatternLevel2(String s) {
 		if (s.isEmpty()) {
 			return "";
 		}
@@ -51,7 +70,7 @@ public final class Customization {
 		return buildPattern(s, regex, replacement, 2);
 	}
 
-	private String buildPatternLevel3(String s) {
+	private static String buildPatternLevel3(String s) {
 		if (s.isEmpty()) {
 			return "";
 		}
@@ -62,7 +81,7 @@ public final class Customization {
 		return buildPattern(s, regex, replacement, 3);
 	}
 
-	private String buildPattern(String path, String regex, String replacement, int level) {
+	private static String buildPattern(String path, String regex, String replacement, int level) {
 		StringBuilder sb = new StringBuilder();
 		String[] parts = path.split(regex);
 		for (int i = 0; i < parts.length; i++) {
@@ -74,7 +93,7 @@ public final class Customization {
 		return sb.toString();
 	}
 
-	private String buildPatternForLevel(int level, String part) {
+	private static String buildPatternForLevel(int level, String part) {
 		switch (level) {
 			case 1:
 				return buildPatternLevel2(part);
@@ -98,6 +117,28 @@ public final class Customization {
 		return new Customization(path, comparator);
 	}
 
+	/**
+	 * Creates a {@link Customization} ignoring the values at {@code path}.  A
+	 * {@link org.skyscreamer.jsonassert.comparator.CustomComparator} skips
+	 * them without descending into them, does not report them as missing or
+	 * unexpected, and documents compared by it are parsed without building
+	 * them.
+	 *
+	 * @param path the json path
+	 * @return a new Customization
+	 */
+	public static Customization ignore(String path) {
+		return new Customization(path, ANY_VALUE, true);
+	}
+
+	/**
+	 * @return true if this customization {@linkplain #ignore(String) ignores}
+	 *         the values it applies to
+	 */
+	public boolean isIgnore() {
+		return ignore;
+	}
+
     public boolean appliesToPath(String path) {
         return this.path.matcher(path).matches();
     }
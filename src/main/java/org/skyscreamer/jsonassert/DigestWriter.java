@@ -0,0 +1,150 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Writer that computes the SHA-256 digest and length of the UTF-8 encoding of what is written to it, without
+ * keeping the text.  An unpaired surrogate, which UTF-8 cannot encode, is written as the three bytes UTF-8 would use
+ * for a character of that value, rather than as the {@code '?'} {@link String#getBytes} substitutes, so that texts
+ * that differ only there still have different digests.
+ */
+class DigestWriter extends Writer {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest _digest;
+    private final byte[] _buffer = new byte[4096];
+    private int _buffered;
+    private long _byteCount;
+    private char _highSurrogate;
+
+    DigestWriter() {
+        try {
+            _digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void write(int c) {
+        char ch = (char) c;
+        if (_highSurrogate != 0) {
+            char high = _highSurrogate;
+            _highSurrogate = 0;
+            if (Character.isLowSurrogate(ch)) {
+                int codePoint = Character.toCodePoint(high, ch);
+                put(0xf0 | (codePoint >> 18));
+                put(0x80 | ((codePoint >> 12) & 0x3f));
+                put(0x80 | ((codePoint >> 6) & 0x3f));
+                put(0x80 | (codePoint & 0x3f));
+                return;
+            }
+            putThreeBytes(high);
+        }
+        if (ch < 0x80) {
+            put(ch);
+        } else if (ch < 0x800) {
+            put(0xc0 | (ch >> 6));
+            put(0x80 | (ch & 0x3f));
+        } else if (Character.isHighSurrogate(ch)) {
+            _highSurrogate = ch;
+        } else {
+            // Also writes an unpaired low surrogate, as UTF-8 would a character of that value
+            putThreeBytes(ch);
+        }
+    }
+
+    private void putThreeBytes(char ch) {
+        put(0xe0 | (ch >> 12));
+        put(0x80 | ((ch >> 6) & 0x3f));
+        put(0x80 | (ch & 0x3f));
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            write(cbuf[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            write(str.charAt(i));
+        }
+    }
+
+    private void put(int b) {
+        if (_buffered == _buffer.length) {
+            _digest.update(_buffer, 0, _buffered);
+            _buffered = 0;
+        }
+        _buffer[_buffered++] = (byte) b;
+        _byteCount++;
+    }
+
+    /**
+     * @return number of UTF-8 bytes written so far
+     */
+    long getByteCount() {
+        return _byteCount + (_highSurrogate != 0 ? 3 : 0);
+    }
+
+    /**
+     * Completes the digest.  The writer must not be used afterwards.
+     *
+     * @return the SHA-256 digest of everything written
+     */
+    byte[] digest() {
+        if (_highSurrogate != 0) {
+            putThreeBytes(_highSurrogate);
+            _highSurrogate = 0;
+        }
+        _digest.update(_buffer, 0, _buffered);
+        _buffered = 0;
+        return _digest.digest();
+    }
+
+    /**
+     * Completes the digest.  The writer must not be used afterwards.
+     *
+     * @return the SHA-256 digest of everything written, as lower-case hexadecimal
+     */
+    String hexDigest() {
+        return toHex(digest());
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[2 * i] = HEX[(bytes[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+/**
+ * <p>Receives the failures of a comparison as they are found.  A {@link JSONCompareResult} created with a sink
+ * forwards every failure to it; combined with limits of zero the result itself keeps nothing, so memory stays flat
+ * however many differences there are.</p>
+ *
+ * <pre>
+ * try (NdjsonFailureSink sink = new NdjsonFailureSink(new File("differences.ndjson"))) {
+ *     DefaultComparator comparator = new DefaultComparator(JSONCompareMode.STRICT);
+ *     comparator.setFailureSink(sink);
+ *     comparator.setFailureLimits(0, 0);
+ *     JSONCompare.compareJSON(expected, actual, comparator);
+ * }
+ * </pre>
+ *
+ * <p>Values are passed as found in the documents and may be large subtrees; a sink should render or summarise
+ * them immediately rather than hold on to them.</p>
+ *
+ * @see NdjsonFailureSink
+ * @see CountingFailureSink
+ */
+public interface FailureSink {
+
+    /**
+     * A field has a different value than expected.
+     *
+     * @param field    path of the field
+     * @param expected expected value
+     * @param actual   actual value
+     */
+    void fieldFailure(String field, Object expected, Object actual);
+
+    /**
+     * An expected field is missing.
+     *
+     * @param field    path of the object, or of the array element, the field is missing from
+     * @param expected the missing key or value
+     */
+    void fieldMissing(String field, Object expected);
+
+    /**
+     * An unexpected field is present.
+     *
+     * @param field  path of the object, or of the array element, the field was found in
+     * @param actual the unexpected key or value
+     */
+    void fieldUnexpected(String field, Object actual);
+
+    /**
+     * A failure that only has a message, such as arrays of different lengths.
+     *
+     * @param message description of the failure
+     */
+    void failure(String message);
+}
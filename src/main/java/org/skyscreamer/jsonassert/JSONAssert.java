@@ -14,6 +14,8 @@
 
 package org.skyscreamer.jsonassert;
 
+import java.nio.ByteBuffer;
+
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.skyscreamer.jsonassert.comparator.JSONComparator;
@@ -735,6 +737,199 @@ public class JSONAssert {
         }
     }
     
+    /**
+     * Asserts that the UTF-8 encoded JSON document provided matches the expected string.  If it isn't it throws an
+     * {@link AssertionError}.  The document is compared without decoding it to a string first.
+     * Both documents are parsed with the grammar of {@link org.skyscreamer.jsonassert.tree.JSONTape}, which is
+     * stricter than org.json's.
+     *
+     * @param expectedStr Expected JSON string
+     * @param actualUtf8 JSON document to compare, in UTF-8
+     * @param compareMode Specifies which comparison mode to use
+     */
+    public static void assertEquals(String expectedStr, byte[] actualUtf8, JSONCompareMode compareMode) {
+        assertEquals("", expectedStr, actualUtf8, compareMode);
+    }
+
+    /**
+     * Asserts that the UTF-8 encoded JSON document provided matches the expected string.  If it isn't it throws an
+     * {@link AssertionError}.  The document is compared without decoding it to a string first.
+     * Both documents are parsed with the grammar of {@link org.skyscreamer.jsonassert.tree.JSONTape}, which is
+     * stricter than org.json's.
+     *
+     * @param message Error message to be displayed in case of assertion failure
+     * @param expectedStr Expected JSON string
+     * @param actualUtf8 JSON document to compare, in UTF-8
+     * @param compareMode Specifies which comparison mode to use
+     */
+    public static void assertEquals(String message, String expectedStr, byte[] actualUtf8,
+                                    JSONCompareMode compareMode) {
+        JSONCompareResult result = JSONCompare.compareJSON(expectedStr, actualUtf8, compareMode);
+        if (result.failed()) {
+            throw new AssertionError(getCombinedMessage(message, result.getMessage()));
+        }
+    }
+
+    /**
+     * Asserts that the UTF-8 encoded JSON document provided matches the expected string.  If it isn't it throws an
+     * {@link AssertionError}.  The document is compared without decoding it to a string first.
+     * Both documents are parsed with the grammar of {@link org.skyscreamer.jsonassert.tree.JSONTape}, which is
+     * stricter than org.json's.
+     *
+     * @param expectedStr Expected JSON string
+     * @param actualUtf8 JSON document to compare, in UTF-8
+     * @param comparator Comparator
+     */
+    public static void assertEquals(String expectedStr, byte[] actualUtf8, JSONComparator comparator) {
+        assertEquals("", expectedStr, actualUtf8, comparator);
+    }
+
+    /**
+     * Asserts that the UTF-8 encoded JSON document provided matches the expected string.  If it isn't it throws an
+     * {@link AssertionError}.  The document is compared without decoding it to a string first.
+     * Both documents are parsed with the grammar of {@link org.skyscreamer.jsonassert.tree.JSONTape}, which is
+     * stricter than org.json's.
+     *
+     * @param message Error message to be displayed in case of assertion failure
+     * @param expectedStr Expected JSON string
+     * @param actualUtf8 JSON document to compare, in UTF-8
+     * @param comparator Comparator
+     */
+    public static void assertEquals(String message, String expectedStr, byte[] actualUtf8, JSONComparator comparator) {
+        JSONCompareResult result = JSONCompare.compareJSON(expectedStr, actualUtf8, comparator);
+        if (result.failed()) {
+            throw new AssertionError(getCombinedMessage(message, result.getMessage()));
+        }
+    }
+
+    /**
+     * Asserts that the UTF-8 encoded JSON document provided does not match the expected string.  If it is it throws
+     * an {@link AssertionError}.  Both documents are parsed with the grammar of
+     * {@link org.skyscreamer.jsonassert.tree.JSONTape}, which is stricter than org.json's.
+     *
+     * @param expectedStr Expected JSON string
+     * @param actualUtf8 JSON document to compare, in UTF-8
+     * @param compareMode Specifies which comparison mode to use
+     */
+    public static void assertNotEquals(String expectedStr, byte[] actualUtf8, JSONCompareMode compareMode) {
+        assertNotEquals("", expectedStr, actualUtf8, compareMode);
+    }
+
+    /**
+     * Asserts that the UTF-8 encoded JSON document provided does not match the expected string.  If it is it throws
+     * an {@link AssertionError}.  Both documents are parsed with the grammar of
+     * {@link org.skyscreamer.jsonassert.tree.JSONTape}, which is stricter than org.json's.
+     *
+     * @param message Error message to be displayed in case of assertion failure
+     * @param expectedStr Expected JSON string
+     * @param actualUtf8 JSON document to compare, in UTF-8
+     * @param compareMode Specifies which comparison mode to use
+     */
+    public static void assertNotEquals(String message, String expectedStr, byte[] actualUtf8,
+                                       JSONCompareMode compareMode) {
+        JSONCompareResult result = JSONCompare.compareJSON(expectedStr, actualUtf8, compareMode);
+        if (result.passed()) {
+            throw new AssertionError(getCombinedMessage(message, result.getMessage()));
+        }
+    }
+
+    /**
+     * Asserts that the UTF-8 encoded JSON document provided matches the expected string.  If it isn't it throws an
+     * {@link AssertionError}.  The document is compared without decoding it to a string first.
+     * Both documents are parsed with the grammar of {@link org.skyscreamer.jsonassert.tree.JSONTape}, which is
+     * stricter than org.json's.
+     *
+     * @param expectedStr Expected JSON string
+     * @param actualUtf8 JSON document to compare, in UTF-8, from the position of the buffer to its limit
+     * @param compareMode Specifies which comparison mode to use
+     */
+    public static void assertEquals(String expectedStr, ByteBuffer actualUtf8, JSONCompareMode compareMode) {
+        assertEquals("", expectedStr, actualUtf8, compareMode);
+    }
+
+    /**
+     * Asserts that the UTF-8 encoded JSON document provided matches the expected string.  If it isn't it throws an
+     * {@link AssertionError}.  The document is compared without decoding it to a string first.
+     * Both documents are parsed with the grammar of {@link org.skyscreamer.jsonassert.tree.JSONTape}, which is
+     * stricter than org.json's.
+     *
+     * @param message Error message to be displayed in case of assertion failure
+     * @param expectedStr Expected JSON string
+     * @param actualUtf8 JSON document to compare, in UTF-8, from the position of the buffer to its limit
+     * @param compareMode Specifies which comparison mode to use
+     */
+    public static void assertEquals(String message, String expectedStr, ByteBuffer actualUtf8,
+                                    JSONCompareMode compareMode) {
+        JSONCompareResult result = JSONCompare.compareJSON(expectedStr, actualUtf8, compareMode);
+        if (result.failed()) {
+            throw new AssertionError(getCombinedMessage(message, result.getMessage()));
+        }
+    }
+
+    /**
+     * Asserts that the UTF-8 encoded JSON document provided matches the expected string.  If it isn't it throws an
+     * {@link AssertionError}.  The document is compared without decoding it to a string first.
+     * Both documents are parsed with the grammar of {@link org.skyscreamer.jsonassert.tree.JSONTape}, which is
+     * stricter than org.json's.
+     *
+     * @param expectedStr Expected JSON string
+     * @param actualUtf8 JSON document to compare, in UTF-8, from the position of the buffer to its limit
+     * @param comparator Comparator
+     */
+    public static void assertEquals(String expectedStr, ByteBuffer actualUtf8, JSONComparator comparator) {
+        assertEquals("", expectedStr, actualUtf8, comparator);
+    }
+
+    /**
+     * Asserts that the UTF-8 encoded JSON document provided matches the expected string.  If it isn't it throws an
+     * {@link AssertionError}.  The document is compared without decoding it to a string first.
+     * Both documents are parsed with the grammar of {@link org.skyscreamer.jsonassert.tree.JSONTape}, which is
+     * stricter than org.json's.
+     *
+     * @param message Error message to be displayed in case of assertion failure
+     * @param expectedStr Expected JSON string
+     * @param actualUtf8 JSON document to compare, in UTF-8, from the position of the buffer to its limit
+     * @param comparator Comparator
+     */
+    public static void assertEquals(String message, String expectedStr, ByteBuffer actualUtf8,
+                                    JSONComparator comparator) {
+        JSONCompareResult result = JSONCompare.compareJSON(expectedStr, actualUtf8, comparator);
+        if (result.failed()) {
+            throw new AssertionError(getCombinedMessage(message, result.getMessage()));
+        }
+    }
+
+    /**
+     * Asserts that the UTF-8 encoded JSON document provided does not match the expected string.  If it is it throws
+     * an {@link AssertionError}.  Both documents are parsed with the grammar of
+     * {@link org.skyscreamer.jsonassert.tree.JSONTape}, which is stricter than org.json's.
+     *
+     * @param expectedStr Expected JSON string
+     * @param actualUtf8 JSON document to compare, in UTF-8, from the position of the buffer to its limit
+     * @param compareMode Specifies which comparison mode to use
+     */
+    public static void assertNotEquals(String expectedStr, ByteBuffer actualUtf8, JSONCompareMode compareMode) {
+        assertNotEquals("", expectedStr, actualUtf8, compareMode);
+    }
+
+    /**
+     * Asserts that the UTF-8 encoded JSON document provided does not match the expected string.  If it is it throws
+     * an {@link AssertionError}.  Both documents are parsed with the grammar of
+     * {@link org.skyscreamer.jsonassert.tree.JSONTape}, which is stricter than org.json's.
+     *
+     * @param message Error message to be displayed in case of assertion failure
+     * @param expectedStr Expected JSON string
+     * @param actualUtf8 JSON document to compare, in UTF-8, from the position of the buffer to its limit
+     * @param compareMode Specifies which comparison mode to use
+     */
+    public static void assertNotEquals(String message, String expectedStr, ByteBuffer actualUtf8,
+                                       JSONCompareMode compareMode) {
+        JSONCompareResult result = JSONCompare.compareJSON(expectedStr, actualUtf8, compareMode);
+        if (result.passed()) {
+            throw new AssertionError(getCombinedMessage(message, result.getMessage()));
+        }
+    }
+
     private static String getCombinedMessage(String message1, String message2) {
         String combinedMessage = "";
         
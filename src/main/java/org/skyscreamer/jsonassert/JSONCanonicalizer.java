@@ -0,0 +1,195 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONString;
+
+/**
+ * <p>Writes JSON values in a canonical form, so that two values have the same canonical text exactly when they are
+ * equal under {@link JSONCompareMode#STRICT}.  The form is:</p>
+ * <ul>
+ *     <li>no whitespace;</li>
+ *     <li>object keys sorted by {@link String#compareTo(String)};</li>
+ *     <li>numbers written from their {@code double} value, as {@link org.skyscreamer.jsonassert.comparator.DefaultComparator}
+ *     compares them: integral values without fraction or exponent ({@code 1.0} and {@code 1e0} become {@code 1},
+ *     {@code -0.0} becomes {@code 0}), others as {@link Double#toString(double)} with a lower-case {@code e};</li>
+ *     <li>strings escaping only {@code "}, {@code \}, control characters and unpaired surrogates, using the short
+ *     escapes where JSON has them and lower-case {@code &#92;uXXXX} otherwise, so that the canonical text is always
+ *     well-formed UTF-16 and its UTF-8 encoding loses nothing.</li>
+ * </ul>
+ *
+ * <p>Output is streamed; only the keys of the object being written are held to sort them.  The SHA-256 digest of
+ * the canonical text identifies a document, so digests can be stored and compared instead of documents.</p>
+ */
+public final class JSONCanonicalizer {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final double PLAIN_INTEGER_LIMIT = 1e21;
+
+    private JSONCanonicalizer() {
+    }
+
+    /**
+     * Writes the canonical form of {@code value}.
+     *
+     * @param value  a value from a JSON document, may be null
+     * @param writer where to write it
+     * @throws IOException if the writer fails
+     */
+    public static void write(Object value, Writer writer) throws IOException {
+        if (value == null || JSONObject.NULL.equals(value)) {
+            writer.write("null");
+        } else if (value instanceof JSONObject) {
+            writeObject((JSONObject) value, writer);
+        } else if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            writer.write('[');
+            for (int i = 0; i < array.length(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                write(array.opt(i), writer);
+            }
+            writer.write(']');
+        } else if (value instanceof Number) {
+            writer.write(canonicalNumber(((Number) value).doubleValue()));
+        } else if (value instanceof Boolean) {
+            writer.write(value.toString());
+        } else if (value instanceof JSONString) {
+            // Compared as raw text by JSONCompare
+            writer.write(((JSONString) value).toJSONString());
+        } else {
+            writeString(value.toString(), writer);
+        }
+    }
+
+    /**
+     * @param value a value from a JSON document, may be null
+     * @return the canonical form of {@code value}
+     */
+    public static String canonicalize(Object value) {
+        StringWriter writer = new StringWriter();
+        try {
+            write(value, writer);
+        } catch (IOException e) {
+            // StringWriter does not throw
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Computes the SHA-256 digest of the UTF-8 encoding of the canonical form of {@code value}, streaming, without
+     * holding the canonical text.
+     *
+     * @param value a value from a JSON document, may be null
+     * @return the digest, as lower-case hexadecimal
+     */
+    public static String sha256(Object value) {
+        DigestWriter digest = new DigestWriter();
+        try {
+            write(value, digest);
+        } catch (IOException e) {
+            // DigestWriter does not throw
+            throw new UncheckedIOException(e);
+        }
+        return digest.hexDigest();
+    }
+
+    private static void writeObject(JSONObject object, Writer writer) throws IOException {
+        List<String> keys = new ArrayList<String>(object.keySet());
+        Collections.sort(keys);
+        writer.write('{');
+        boolean first = true;
+        for (String key : keys) {
+            if (!first) {
+                writer.write(',');
+            }
+            writeString(key, writer);
+            writer.write(':');
+            write(object.opt(key), writer);
+            first = false;
+        }
+        writer.write('}');
+    }
+
+    static String canonicalNumber(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < PLAIN_INTEGER_LIMIT) {
+            // Also turns -0.0 into 0, which DefaultComparator considers equal
+            return value == (long) value ? Long.toString((long) value) : new BigDecimal(value).toPlainString();
+        }
+        return Double.toString(value).replace('E', 'e');
+    }
+
+    private static void writeString(String string, Writer writer) throws IOException {
+        writer.write('"');
+        int start = 0;
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < string.length()
+                    && Character.isLowSurrogate(string.charAt(i + 1))) {
+                i++;
+                continue;
+            }
+            if (c >= ' ' && c != '"' && c != '\\' && !Character.isSurrogate(c)) {
+                continue;
+            }
+            writer.write(string, start, i - start);
+            start = i + 1;
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\b':
+                    writer.write("\\b");
+                    break;
+                case '\f':
+                    writer.write("\\f");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    writer.write("\\u");
+                    writer.write(HEX[c >> 12]);
+                    writer.write(HEX[(c >> 8) & 0xf]);
+                    writer.write(HEX[(c >> 4) & 0xf]);
+                    writer.write(HEX[c & 0xf]);
+                    break;
+            }
+        }
+        writer.write(string, start, string.length() - start);
+        writer.write('"');
+    }
+}
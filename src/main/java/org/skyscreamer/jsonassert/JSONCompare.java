@@ -14,11 +14,18 @@
 
 package org.skyscreamer.jsonassert;
 
+import java.nio.ByteBuffer;
+
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.json.JSONString;
+import org.skyscreamer.jsonassert.comparator.CustomComparator;
 import org.skyscreamer.jsonassert.comparator.DefaultComparator;
 import org.skyscreamer.jsonassert.comparator.JSONComparator;
+import org.skyscreamer.jsonassert.tree.JSONTape;
+import org.skyscreamer.jsonassert.tree.JSONTreeAdapter;
+import org.skyscreamer.jsonassert.tree.JSONTreeView;
+import org.skyscreamer.jsonassert.tree.TapeTreeAdapter;
 
 /**
  * Provides API to compare two JSON entities.  This is the backend to {@link JSONAssert}, but it can
@@ -33,6 +40,12 @@ public final class JSONCompare {
         return new DefaultComparator(mode);
     }
 
+    private static JSONComparator getComparatorForMode(JSONCompareMode mode, ComparisonBudget budget) {
+        DefaultComparator comparator = new DefaultComparator(mode);
+        comparator.setBudget(budget);
+        return comparator;
+    }
+
     /**
      * Compares JSON string provided to the expected JSON string using provided comparator, and returns the results of
      * the comparison.
@@ -43,8 +56,55 @@ public final class JSONCompare {
      * @throws IllegalArgumentException when type of expectedStr doesn't match the type of actualStr
      */
     public static JSONCompareResult compareJSON(String expectedStr, String actualStr, JSONComparator comparator) {
-        Object expected = JSONParser.parseJSON(expectedStr);
-        Object actual = JSONParser.parseJSON(actualStr);
+        Object expected = parseFor(expectedStr, comparator);
+        Object actual = parseFor(actualStr, comparator);
+        return compareParsed(expected, actual, comparator);
+    }
+
+    /**
+     * Compares JSON string provided to the expected JSON string using provided comparator, parsing the actual string
+     * lazily.  Objects and arrays of the actual document are indexed when the comparison first reads them, and values
+     * are only decoded when compared, so the parts of a large document the expected document does not reach cost
+     * little time and memory.  This pays off in extensible modes, where fields that are not expected are never
+     * read.  Parts of the actual string that are never read are not checked to be valid JSON.  The parts that are read
+     * must follow the grammar of {@link JSONTape}, which is stricter than org.json's: a trailing comma such as
+     * {@code [1,]}, for one, is rejected, and error messages differ from org.json's.
+     *
+     * @param expectedStr Expected JSON string
+     * @param actualStr   JSON string to compare
+     * @param comparator  Comparator to use
+     * @return result of the comparison
+     */
+    public static JSONCompareResult compareJSONLazily(String expectedStr, String actualStr,
+                                                      JSONComparator comparator) {
+        return compareParsed(parseFor(expectedStr, comparator), LazyJSONParser.parseJSON(actualStr), comparator);
+    }
+
+    /**
+     * Compares JSON string provided to the expected JSON string, parsing the actual string lazily.
+     *
+     * @param expectedStr Expected JSON string
+     * @param actualStr   JSON string to compare
+     * @param mode        Defines comparison behavior
+     * @return result of the comparison
+     * @see #compareJSONLazily(String, String, JSONComparator)
+     */
+    public static JSONCompareResult compareJSONLazily(String expectedStr, String actualStr, JSONCompareMode mode) {
+        return compareJSONLazily(expectedStr, actualStr, getComparatorForMode(mode));
+    }
+
+    /**
+     * Parses a JSON string for a comparator, without building the values it {@linkplain Customization#ignore(String)
+     * ignores}.
+     */
+    static Object parseFor(String s, JSONComparator comparator) {
+        if (comparator instanceof CustomComparator) {
+            return PrunedJSONParser.parseJSON(s, (CustomComparator) comparator);
+        }
+        return JSONParser.parseJSON(s);
+    }
+
+    static JSONCompareResult compareParsed(Object expected, Object actual, JSONComparator comparator) {
         if ((expected instanceof JSONObject) && (actual instanceof JSONObject)) {
             return compareJSON((JSONObject) expected, (JSONObject) actual, comparator);
         }
@@ -106,6 +166,8 @@ public final class JSONCompare {
 
     /**
      * Compares JSON string provided to the expected JSON string, and returns the results of the comparison.
+     * Texts that are the same JSON object or array, differing at most in whitespace between tokens, pass without
+     * being parsed.
      *
      * @param expectedStr Expected JSON string
      * @param actualStr   JSON string to compare
@@ -113,6 +175,10 @@ public final class JSONCompare {
      * @return result of the comparison
      */
     public static JSONCompareResult compareJSON(String expectedStr, String actualStr, JSONCompareMode mode) {
+        if (JSONTextEquivalence.equivalent(expectedStr, actualStr)) {
+            // Same document; it is equal to itself in every mode
+            return new JSONCompareResult();
+        }
         return compareJSON(expectedStr, actualStr, getComparatorForMode(mode));
     }
 
@@ -141,4 +207,276 @@ public final class JSONCompare {
         return compareJSON(expected, actual, getComparatorForMode(mode));
     }
 
+    /**
+     * Compares JSON string provided to the expected JSON string within a budget, and returns the results of the
+     * comparison.  If the budget runs out the result is {@linkplain JSONCompareResult#isInconclusive() inconclusive}.
+     *
+     * @param expectedStr Expected JSON string
+     * @param actualStr   JSON string to compare
+     * @param mode        Defines comparison behavior
+     * @param budget      Limits the work done by the comparison
+     * @return result of the comparison
+     */
+    public static JSONCompareResult compareJSON(String expectedStr, String actualStr, JSONCompareMode mode,
+                                                ComparisonBudget budget) {
+        if (JSONTextEquivalence.equivalent(expectedStr, actualStr)) {
+            return new JSONCompareResult();
+        }
+        return compareJSON(expectedStr, actualStr, getComparatorForMode(mode, budget));
+    }
+
+    /**
+     * Compares only the subtrees of two JSON strings selected by {@code scope}, using provided comparator.  The rest
+     * of each document is skipped without being built.  Each selected subtree is compared as the value of a field
+     * named after its path, so failures are reported at the paths of the documents and customizations of those paths
+     * apply.  A selected subtree present in only one document is reported as missing or, unless the comparator
+     * tolerates extra fields, unexpected.
+     *
+     * @param expectedStr Expected JSON string
+     * @param actualStr   JSON string to compare
+     * @param scope       Selects the subtrees to compare
+     * @param comparator  Comparator to use
+     * @return result of the comparison
+     */
+    public static JSONCompareResult compareJSON(String expectedStr, String actualStr, JSONScope scope,
+                                                JSONComparator comparator) {
+        return comparator.compareJSON(scope.select(expectedStr), scope.select(actualStr));
+    }
+
+    /**
+     * Compares only the subtrees of two JSON strings selected by {@code scope}.
+     *
+     * @param expectedStr Expected JSON string
+     * @param actualStr   JSON string to compare
+     * @param scope       Selects the subtrees to compare
+     * @param mode        Defines comparison behavior
+     * @return result of the comparison
+     * @see #compareJSON(String, String, JSONScope, JSONComparator)
+     */
+    public static JSONCompareResult compareJSON(String expectedStr, String actualStr, JSONScope scope,
+                                                JSONCompareMode mode) {
+        return compareJSON(expectedStr, actualStr, scope, getComparatorForMode(mode));
+    }
+
+    /**
+     * Compares JSONObject provided to the expected JSONObject within a budget, and returns the results of the
+     * comparison.  If the budget runs out the result is {@linkplain JSONCompareResult#isInconclusive() inconclusive}.
+     *
+     * @param expected Expected JSONObject
+     * @param actual   JSONObject to compare
+     * @param mode     Defines comparison behavior
+     * @param budget   Limits the work done by the comparison
+     * @return result of the comparison
+     */
+    public static JSONCompareResult compareJSON(JSONObject expected, JSONObject actual, JSONCompareMode mode,
+                                                ComparisonBudget budget) {
+        return compareJSON(expected, actual, getComparatorForMode(mode, budget));
+    }
+
+    /**
+     * Compares JSONArray provided to the expected JSONArray within a budget, and returns the results of the
+     * comparison.  If the budget runs out the result is {@linkplain JSONCompareResult#isInconclusive() inconclusive}.
+     *
+     * @param expected Expected JSONArray
+     * @param actual   JSONArray to compare
+     * @param mode     Defines comparison behavior
+     * @param budget   Limits the work done by the comparison
+     * @return result of the comparison
+     */
+    public static JSONCompareResult compareJSON(JSONArray expected, JSONArray actual, JSONCompareMode mode,
+                                                ComparisonBudget budget) {
+        return compareJSON(expected, actual, getComparatorForMode(mode, budget));
+    }
+
+    /**
+     * Compares trees of another JSON model in place, using provided comparator, and returns the results of the
+     * comparison.  The trees are read through {@code adapter} as the comparison visits them; they are neither
+     * serialised nor copied.  To compare trees of two different models, view each with {@link JSONTreeView} and
+     * compare the views.
+     *
+     * @param expected   expected tree
+     * @param actual     tree to compare
+     * @param adapter    reads the trees
+     * @param comparator comparator to use
+     * @param <N>        type of the nodes of the tree model
+     * @return result of the comparison
+     */
+    public static <N> JSONCompareResult compareJSON(N expected, N actual, JSONTreeAdapter<N> adapter,
+                                                    JSONComparator comparator) {
+        Object expectedView = JSONTreeView.of(expected, adapter);
+        Object actualView = JSONTreeView.of(actual, adapter);
+        if (expectedView instanceof JSONObject && actualView instanceof JSONObject) {
+            return comparator.compareJSON((JSONObject) expectedView, (JSONObject) actualView);
+        } else if (expectedView instanceof JSONArray && actualView instanceof JSONArray) {
+            return comparator.compareJSON((JSONArray) expectedView, (JSONArray) actualView);
+        }
+        JSONCompareResult result = new JSONCompareResult();
+        if (expectedView instanceof JSONObject || expectedView instanceof JSONArray
+                || actualView instanceof JSONObject || actualView instanceof JSONArray) {
+            return result.fail("", expectedView, actualView);
+        }
+        comparator.compareValues("", expectedView, actualView, result);
+        return result;
+    }
+
+    /**
+     * Compares trees of another JSON model in place, and returns the results of the comparison.
+     *
+     * @param expected expected tree
+     * @param actual   tree to compare
+     * @param adapter  reads the trees
+     * @param mode     Defines comparison behavior
+     * @param <N>      type of the nodes of the tree model
+     * @return result of the comparison
+     * @see #compareJSON(Object, Object, JSONTreeAdapter, JSONComparator)
+     */
+    public static <N> JSONCompareResult compareJSON(N expected, N actual, JSONTreeAdapter<N> adapter,
+                                                    JSONCompareMode mode) {
+        return compareJSON(expected, actual, adapter, getComparatorForMode(mode));
+    }
+
+    /**
+     * Compares a UTF-8 encoded JSON document to the expected JSON string using provided comparator, and returns the
+     * results of the comparison.  The bytes are parsed in place onto a {@link JSONTape}, without decoding the
+     * document to a string; only the strings and numbers the comparison reads are decoded.  Both documents are parsed
+     * with the grammar of {@link JSONTape}, which is stricter than org.json's: a trailing comma such as {@code [1,]},
+     * for one, is rejected, and error messages differ from org.json's.
+     *
+     * @param expectedStr Expected JSON string
+     * @param actualUtf8  JSON document to compare, in UTF-8
+     * @param comparator  Comparator to use
+     * @return result of the comparison
+     */
+    public static JSONCompareResult compareJSON(String expectedStr, byte[] actualUtf8, JSONComparator comparator) {
+        return compareJSON(JSONTape.parse(expectedStr), JSONTape.parse(actualUtf8), comparator);
+    }
+
+    /**
+     * Compares a UTF-8 encoded JSON document to the expected JSON string, and returns the results of the comparison.
+     *
+     * @param expectedStr Expected JSON string
+     * @param actualUtf8  JSON document to compare, in UTF-8
+     * @param mode        Defines comparison behavior
+     * @return result of the comparison
+     * @see #compareJSON(String, byte[], JSONComparator)
+     */
+    public static JSONCompareResult compareJSON(String expectedStr, byte[] actualUtf8, JSONCompareMode mode) {
+        return compareJSON(expectedStr, actualUtf8, getComparatorForMode(mode));
+    }
+
+    /**
+     * Compares a UTF-8 encoded JSON document to the expected JSON string using provided comparator, and returns the
+     * results of the comparison.  The document is read from the position of the buffer to its limit, in place, as
+     * for {@link #compareJSON(String, byte[], JSONComparator)}, and with the same grammar; the position of the buffer
+     * is not changed.
+     *
+     * @param expectedStr Expected JSON string
+     * @param actualUtf8  JSON document to compare, in UTF-8
+     * @param comparator  Comparator to use
+     * @return result of the comparison
+     */
+    public static JSONCompareResult compareJSON(String expectedStr, ByteBuffer actualUtf8, JSONComparator comparator) {
+        return compareJSON(JSONTape.parse(expectedStr), JSONTape.parse(actualUtf8), comparator);
+    }
+
+    /**
+     * Compares a UTF-8 encoded JSON document to the expected JSON string, and returns the results of the comparison.
+     *
+     * @param expectedStr Expected JSON string
+     * @param actualUtf8  JSON document to compare, in UTF-8
+     * @param mode        Defines comparison behavior
+     * @return result of the comparison
+     * @see #compareJSON(String, ByteBuffer, JSONComparator)
+     */
+    public static JSONCompareResult compareJSON(String expectedStr, ByteBuffer actualUtf8, JSONCompareMode mode) {
+        return compareJSON(expectedStr, actualUtf8, getComparatorForMode(mode));
+    }
+
+    /**
+     * Compares documents parsed onto {@link JSONTape}s, using provided comparator, and returns the results of the
+     * comparison.  The tapes are read in place as the comparison visits them.
+     *
+     * @param expected   expected document
+     * @param actual     document to compare
+     * @param comparator comparator to use
+     * @return result of the comparison
+     */
+    public static JSONCompareResult compareJSON(JSONTape expected, JSONTape actual, JSONComparator comparator) {
+        return compareJSON(expected.root(), actual.root(), TapeTreeAdapter.INSTANCE, comparator);
+    }
+
+    /**
+     * Compares documents parsed onto {@link JSONTape}s, and returns the results of the comparison.
+     *
+     * @param expected expected document
+     * @param actual   document to compare
+     * @param mode     Defines comparison behavior
+     * @return result of the comparison
+     * @see #compareJSON(JSONTape, JSONTape, JSONComparator)
+     */
+    public static JSONCompareResult compareJSON(JSONTape expected, JSONTape actual, JSONCompareMode mode) {
+        return compareJSON(expected, actual, getComparatorForMode(mode));
+    }
+
+    /**
+     * Compares JSON string provided to the expected JSON string, skipping the comparison if a digest of the expected
+     * document shows they are equal.  If the {@linkplain JSONCanonicalizer#sha256(Object) digest} of the actual
+     * document is {@code expectedSha256}, the documents are equal under {@link JSONCompareMode#STRICT}, and so under
+     * every mode: the comparison passes without the expected string even being parsed.  Otherwise the documents are
+     * compared in detail.  The digest is trusted, not checked against {@code expectedStr}: a stale digest, one
+     * computed before the expected document changed, passes any actual document equal to the old expected one, so
+     * it must be recomputed whenever the expected document changes.
+     *
+     * @param expectedSha256 digest of the expected document, as returned by {@link JSONCanonicalizer#sha256(Object)}
+     * @param expectedStr    Expected JSON string
+     * @param actualStr      JSON string to compare
+     * @param mode           Defines comparison behavior
+     * @return result of the comparison
+     */
+    public static JSONCompareResult compareJSONWithDigest(String expectedSha256, String expectedStr, String actualStr,
+                                                          JSONCompareMode mode) {
+        Object actual = JSONParser.parseJSON(actualStr);
+        if (JSONCanonicalizer.sha256(actual).equals(expectedSha256)) {
+            return new JSONCompareResult();
+        }
+        return compareParsed(JSONParser.parseJSON(expectedStr), actual, getComparatorForMode(mode));
+    }
+
+    /**
+     * Compares JSONObject provided to the expected JSONObject, skipping the comparison if a digest of the expected
+     * object shows they are equal.
+     *
+     * @param expectedSha256 digest of the expected object, as returned by {@link JSONCanonicalizer#sha256(Object)}
+     * @param expected       Expected JSONObject
+     * @param actual         JSONObject to compare
+     * @param mode           Defines comparison behavior
+     * @return result of the comparison
+     * @see #compareJSONWithDigest(String, String, String, JSONCompareMode)
+     */
+    public static JSONCompareResult compareJSONWithDigest(String expectedSha256, JSONObject expected,
+                                                          JSONObject actual, JSONCompareMode mode) {
+        if (JSONCanonicalizer.sha256(actual).equals(expectedSha256)) {
+            return new JSONCompareResult();
+        }
+        return compareJSON(expected, actual, getComparatorForMode(mode));
+    }
+
+    /**
+     * Compares JSONArray provided to the expected JSONArray, skipping the comparison if a digest of the expected
+     * array shows they are equal.
+     *
+     * @param expectedSha256 digest of the expected array, as returned by {@link JSONCanonicalizer#sha256(Object)}
+     * @param expected       Expected JSONArray
+     * @param actual         JSONArray to compare
+     * @param mode           Defines comparison behavior
+     * @return result of the comparison
+     * @see #compareJSONWithDigest(String, String, String, JSONCompareMode)
+     */
+    public static JSONCompareResult compareJSONWithDigest(String expectedSha256, JSONArray expected,
+                                                          JSONArray actual, JSONCompareMode mode) {
+        if (JSONCanonicalizer.sha256(actual).equals(expectedSha256)) {
+            return new JSONCompareResult();
+        }
+        return compareJSON(expected, actual, getComparatorForMode(mode));
+    }
 }
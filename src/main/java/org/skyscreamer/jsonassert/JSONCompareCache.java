@@ -0,0 +1,190 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.skyscreamer.jsonassert.comparator.JSONComparator;
+
+/**
+ * <p>Bounded cache of comparison results, for tests that compare the same documents again and again, such as
+ * polling until an endpoint converges.  Results are keyed by the SHA-256 digests of the expected and actual text and
+ * by the comparator: the comparator instance and its
+ * {@linkplain JSONComparator#getConfigurationVersion() configuration version}, or the mode for comparisons by
+ * {@link JSONCompareMode}.  A repeated comparison returns a copy of the earlier result without parsing or
+ * traversing either document, and reconfiguring a comparator keeps its earlier results from being reused.</p>
+ *
+ * <p>The cache keeps digests rather than documents.  Cached results hold {@link ValueSnapshot}s in place of the
+ * values they recorded, so results answered from the cache report failures with snapshots, and neither document
+ * stays reachable through the cache.  Comparators are referenced weakly: a cached result does not keep its
+ * comparator reachable, and results of a comparator that has been collected are never answered again and are
+ * eventually evicted.</p>
+ *
+ * <p>Each call returns a result of its own, which the caller may modify.  Results of comparators that are not
+ * {@linkplain JSONComparator#isCacheable() cacheable}, and inconclusive results, are never cached.  The least
+ * recently used result is evicted when the cache is full.  A cache may be shared between threads.</p>
+ */
+public class JSONCompareCache {
+    private final int _maxEntries;
+    private final Map<Key, JSONCompareResult> _results;
+    private long _hits;
+    private long _misses;
+
+    /**
+     * @param maxEntries maximum number of results kept
+     */
+    public JSONCompareCache(final int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        _maxEntries = maxEntries;
+        _results = new LinkedHashMap<Key, JSONCompareResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, JSONCompareResult> eldest) {
+                return size() > _maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Compares JSON string provided to the expected JSON string, reusing the result of an earlier comparison of the
+     * same strings in the same mode.
+     *
+     * @param expectedStr Expected JSON string
+     * @param actualStr   JSON string to compare
+     * @param mode        Defines comparison behavior
+     * @return result of the comparison
+     * @see JSONCompare#compareJSON(String, String, JSONCompareMode)
+     */
+    public JSONCompareResult compareJSON(String expectedStr, String actualStr, JSONCompareMode mode) {
+        Key key = new Key(digest(expectedStr), digest(actualStr), mode, 0L);
+        JSONCompareResult result = get(key);
+        if (result == null) {
+            result = JSONCompare.compareJSON(expectedStr, actualStr, mode);
+            put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Compares JSON string provided to the expected JSON string using provided comparator, reusing the result of an
+     * earlier comparison of the same strings by the same comparator instance, configured the same way.
+     *
+     * @param expectedStr Expected JSON string
+     * @param actualStr   JSON string to compare
+     * @param comparator  Comparator to use
+     * @return result of the comparison
+     * @see JSONCompare#compareJSON(String, String, JSONComparator)
+     */
+    public JSONCompareResult compareJSON(String expectedStr, String actualStr, JSONComparator comparator) {
+        if (!comparator.isCacheable()) {
+            return JSONCompare.compareJSON(expectedStr, actualStr, comparator);
+        }
+        Key key = new Key(digest(expectedStr), digest(actualStr), comparator,
+                comparator.getConfigurationVersion());
+        JSONCompareResult result = get(key);
+        if (result == null) {
+            result = JSONCompare.compareJSON(expectedStr, actualStr, comparator);
+            put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return number of comparisons answered from the cache
+     */
+    public synchronized long getHitCount() {
+        return _hits;
+    }
+
+    /**
+     * @return number of cacheable comparisons that had to be made
+     */
+    public synchronized long getMissCount() {
+        return _misses;
+    }
+
+    /**
+     * @return number of results kept
+     */
+    public synchronized int size() {
+        return _results.size();
+    }
+
+    /**
+     * Forgets every result.
+     */
+    public synchronized void clear() {
+        _results.clear();
+    }
+
+    private synchronized JSONCompareResult get(Key key) {
+        JSONCompareResult result = _results.get(key);
+        if (result != null) {
+            _hits++;
+            return result.copy();
+        }
+        _misses++;
+        return null;
+    }
+
+    private synchronized void put(Key key, JSONCompareResult result) {
+        if (!result.isInconclusive()) {
+            _results.put(key, result.detachedCopy());
+        }
+    }
+
+    private static byte[] digest(String text) {
+        DigestWriter digest = new DigestWriter();
+        digest.write(text, 0, text.length());
+        return digest.digest();
+    }
+
+    private static final class Key {
+        private final byte[] _expected;
+        private final byte[] _actual;
+        private final WeakReference<Object> _comparator;
+        private final long _version;
+        private final int _hash;
+
+        Key(byte[] expected, byte[] actual, Object comparator, long version) {
+            _expected = expected;
+            _actual = actual;
+            _comparator = new WeakReference<Object>(comparator);
+            _version = version;
+            _hash = 31 * (31 * (31 * Arrays.hashCode(expected) + Arrays.hashCode(actual))
+                    + System.identityHashCode(comparator)) + Long.hashCode(version);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            Object comparator = _comparator.get();
+            return comparator != null && comparator == other._comparator.get() && _version == other._version
+                    && Arrays.equals(_expected, other._expected) && Arrays.equals(_actual, other._actual);
+        }
+
+        @Override
+        public int hashCode() {
+            return _hash;
+        }
+    }
+}
@@ -25,7 +25,28 @@ import org.json.JSONObject;
  * Bean for holding results from JSONCompare.
  */
 public class JSONCompareResult {
+    /**
+     * Strings longer than this many characters are not quoted in full in failure messages, but described by their
+     * size, digest and an excerpt.
+     */
+    public static final int LARGE_VALUE_LENGTH = 1024;
+    private static final int EXCERPT_RADIUS = 40;
+
+    private final FailureSink _sink;
+    private final int _maxRetainedFailures;
+    private final int _maxMessageLength;
+    private boolean _detachValues;
     private boolean _success;
+    private boolean _inconclusive;
+    private boolean _forwardingField;
+    private int _failureCount;
+    private int _fieldFailureCount;
+    private int _fieldMissingCount;
+    private int _fieldUnexpectedCount;
+    private int _droppedFailureCount;
+    private int _droppedMessageCount;
+    private long _sampledElementCount;
+    private long _verifiedElementCount;
     private StringBuilder _message;
     private String _field;
     private Object _expected;
@@ -38,12 +59,111 @@ public class JSONCompareResult {
      * Default constructor.
      */
     public JSONCompareResult() {
-        this(true, null);
+        this(Integer.MAX_VALUE, Integer.MAX_VALUE);
     }
 
-    private JSONCompareResult(boolean success, String message) {
-        _success = success;
-        _message = new StringBuilder(message == null ? "" : message);
+    /**
+     * Creates a result that retains a bounded amount of detail.  Once {@code maxRetainedFailures} field failures
+     * (missing, unexpected and mismatched fields together) have been kept, later ones are only counted; once the
+     * message reaches {@code maxMessageLength} characters, later messages are only counted too.  Whether the
+     * comparison passed, the counts reported by the {@code is...OnField()} methods and the first failures kept
+     * are exactly as they would be without limits.
+     *
+     * @param maxRetainedFailures maximum number of {@link FieldComparisonFailure}s kept
+     * @param maxMessageLength    maximum length of the message, not counting a trailing note of how many
+     *                            messages were dropped
+     */
+    public JSONCompareResult(int maxRetainedFailures, int maxMessageLength) {
+        this(null, maxRetainedFailures, maxMessageLength);
+    }
+
+    /**
+     * Creates a result that forwards every failure to {@code sink} as it is recorded, and keeps at most
+     * {@code maxRetainedFailures} failures and {@code maxMessageLength} characters of message itself.  With limits
+     * of zero the result only counts failures, so its size does not depend on how many there are.
+     *
+     * @param sink                where to send failures, or null to only keep them in this result
+     * @param maxRetainedFailures maximum number of {@link FieldComparisonFailure}s kept
+     * @param maxMessageLength    maximum length of the message
+     * @see #JSONCompareResult(int, int)
+     */
+    public JSONCompareResult(FailureSink sink, int maxRetainedFailures, int maxMessageLength) {
+        if (maxRetainedFailures < 0 || maxMessageLength < 0) {
+            throw new IllegalArgumentException("Limits must not be negative: maxRetainedFailures="
+                    + maxRetainedFailures + ", maxMessageLength=" + maxMessageLength);
+        }
+        _sink = sink;
+        _maxRetainedFailures = maxRetainedFailures;
+        _maxMessageLength = maxMessageLength;
+        _success = true;
+        _message = new StringBuilder();
+    }
+
+    // Copies the state of a finished comparison, so that a cached result can be handed out more than once
+    private JSONCompareResult(JSONCompareResult other) {
+        _sink = other._sink;
+        _maxRetainedFailures = other._maxRetainedFailures;
+        _maxMessageLength = other._maxMessageLength;
+        _detachValues = other._detachValues;
+        _success = other._success;
+        _inconclusive = other._inconclusive;
+        _failureCount = other._failureCount;
+        _fieldFailureCount = other._fieldFailureCount;
+        _fieldMissingCount = other._fieldMissingCount;
+        _fieldUnexpectedCount = other._fieldUnexpectedCount;
+        _droppedFailureCount = other._droppedFailureCount;
+        _droppedMessageCount = other._droppedMessageCount;
+        _sampledElementCount = other._sampledElementCount;
+        _verifiedElementCount = other._verifiedElementCount;
+        _message = new StringBuilder(other._message);
+        _field = other._field;
+        _expected = other._expected;
+        _actual = other._actual;
+        _fieldFailures.addAll(other._fieldFailures);
+        _fieldMissing.addAll(other._fieldMissing);
+        _fieldUnexpected.addAll(other._fieldUnexpected);
+    }
+
+    /**
+     * @return a result with the same state as this one, that can be modified without affecting this one
+     */
+    JSONCompareResult copy() {
+        return new JSONCompareResult(this);
+    }
+
+    /**
+     * @return a copy of this result whose recorded values are {@link ValueSnapshot}s, so that it keeps neither
+     * compared document reachable
+     */
+    JSONCompareResult detachedCopy() {
+        JSONCompareResult copy = new JSONCompareResult(this);
+        copy._expected = detach(_expected);
+        copy._actual = detach(_actual);
+        detachAll(copy._fieldFailures);
+        detachAll(copy._fieldMissing);
+        detachAll(copy._fieldUnexpected);
+        return copy;
+    }
+
+    private static void detachAll(List<FieldComparisonFailure> failures) {
+        for (int i = 0; i < failures.size(); i++) {
+            FieldComparisonFailure failure = failures.get(i);
+            failures.set(i, new FieldComparisonFailure(failure.getField(), detach(failure.getExpected()),
+                    detach(failure.getActual())));
+        }
+    }
+
+    /**
+     * Chooses whether values recorded in failures are kept as references into the compared documents (the
+     * default) or replaced by {@link ValueSnapshot}s when they are recorded.  Detached failures do not keep the
+     * documents reachable, so a result can be retained after the documents are discarded.  Messages and any
+     * {@link FailureSink} still see the original values.  While detaching, the deprecated {@link #getField()},
+     * {@link #getExpected()} and {@link #getActual()} describe the last field failure that was retained.
+     *
+     * @param detachValues true to record snapshots instead of values
+     */
+    public void setDetachValues(boolean detachValues) {
+        _detachValues = detachValues;
     }
 
     /**
@@ -62,12 +182,76 @@ public class JSONCompareResult {
         return !_success;
     }
 
+    /**
+     * Did the comparison stop before it could decide?  An inconclusive result always {@linkplain #failed() fails}.
+     * @return True if the comparison exhausted its {@link ComparisonBudget}
+     */
+    public boolean isInconclusive() {
+        return _inconclusive;
+    }
+
+    /**
+     * Were some array elements skipped by an {@link ArraySampling}?
+     * @return True if only a sample of some array was compared
+     */
+    public boolean isSampled() {
+        return _sampledElementCount != 0;
+    }
+
+    /**
+     * Fraction of the elements of sampled arrays that were compared.  Elements of arrays compared in full are not
+     * counted.
+     * @return the fraction verified, or 1 if no array was sampled
+     */
+    public double getVerifiedFraction() {
+        return _sampledElementCount == 0 ? 1 : (double) _verifiedElementCount / _sampledElementCount;
+    }
+
+    /**
+     * Number of failures recorded, whether or not they concern a particular field
+     * @return count of failures
+     */
+    public int getFailureCount() {
+        return _failureCount;
+    }
+
     /**
      * Result message
      * @return String explaining why if the comparison failed
      */
     public String getMessage() {
-        return _message.toString();
+        if (_droppedMessageCount == 0) {
+            return _message.toString();
+        }
+        if (_message.length() == 0) {
+            return _droppedMessageCount + " failure message(s) dropped";
+        }
+        return _message + " ; ... " + _droppedMessageCount + " more failure message(s) dropped";
+    }
+
+    /**
+     * Number of field failures that were counted but not kept because of the limit on retained failures
+     * @return count of dropped field failures
+     */
+    public int getDroppedFailureCount() {
+        return _droppedFailureCount;
+    }
+
+    /**
+     * Number of failure messages that were wholly or partly left out of {@link #getMessage()} because of the limit
+     * on message length
+     * @return count of dropped messages
+     */
+    public int getDroppedMessageCount() {
+        return _droppedMessageCount;
+    }
+
+    /**
+     * Would the next failure message be dropped?  Callers may check this to skip building an expensive message.
+     * @return true if the message has reached its maximum length
+     */
+    public boolean isMessageFull() {
+        return _message.length() >= _maxMessageLength;
     }
 
     /**
@@ -125,7 +309,7 @@ public class JSONCompareResult {
      * @return true if there are field failures
      */
     public boolean isFailureOnField() {
-        return !_fieldFailures.isEmpty();
+        return _fieldFailureCount > 0;
     }
     
     /**
@@ -133,7 +317,7 @@ public class JSONCompareResult {
      * @return true if an expected field is missing
      */
     public boolean isMissingOnField() {
-        return !_fieldMissing.isEmpty();
+        return _fieldMissingCount > 0;
     }
     
     /**
@@ -141,7 +325,7 @@ public class JSONCompareResult {
      * @return true if an unexpected field is in the result
      */
     public boolean isUnexpectedOnField() {
-        return !_fieldUnexpected.isEmpty();
+        return _fieldUnexpectedCount > 0;
     }
 
     /**
@@ -156,13 +340,102 @@ public class JSONCompareResult {
         return _field;
     }
     
+    /**
+     * Identify that the comparison failed.  Also called with the formatted message of every failure recorded by
+     * {@link #fail(String, Object, Object)}, {@link #missing(String, Object)} and
+     * {@link #unexpected(String, Object)}, so subclasses see all failures, except those counted without a message
+     * once the {@linkplain #isMessageFull() message is full}.
+     * @param message Description of failure
+     */
     public void fail(String message) {
+        if (_sink != null && !_forwardingField) {
+            _sink.failure(message);
+        }
         _success = false;
-        if (_message.length() == 0) {
+        _failureCount++;
+        appendMessage(message);
+    }
+
+    // Records the message of a failure the sink was already told about as a field failure
+    private void recordFailure(String message) {
+        _forwardingField = true;
+        try {
+            fail(message);
+        } finally {
+            _forwardingField = false;
+        }
+    }
+
+    private void appendMessage(String message) {
+        if (isMessageFull()) {
+            _droppedMessageCount++;
+            return;
+        }
+        if (_message.length() != 0) {
+            _message.append(" ; ");
+        }
+        int room = _maxMessageLength - _message.length();
+        if (message.length() <= room) {
             _message.append(message);
         } else {
-            _message.append(" ; ").append(message);
+            _message.append(message, 0, Math.max(room, 0));
+            _droppedMessageCount++;
+        }
+    }
+
+    private FieldComparisonFailure retain(List<FieldComparisonFailure> failures, String field, Object expected,
+                                          Object actual) {
+        if (_fieldFailures.size() + _fieldMissing.size() + _fieldUnexpected.size() >= _maxRetainedFailures) {
+            _droppedFailureCount++;
+            return null;
+        }
+        FieldComparisonFailure failure = _detachValues
+                ? new FieldComparisonFailure(field, detach(expected), detach(actual))
+                : new FieldComparisonFailure(field, expected, actual);
+        failures.add(failure);
+        return failure;
+    }
+
+    private static Object detach(Object value) {
+        if (value == null || value instanceof ValueSnapshot) {
+            return value;
+        }
+        return ValueSnapshot.of(value, ValueSnapshot.DEFAULT_RENDERING_LENGTH);
+    }
+
+    // Same as fail(String) for a message that would be dropped, without the cost of formatting it
+    private void failWithoutMessage() {
+        _success = false;
+        _failureCount++;
+        _droppedMessageCount++;
+    }
+
+    /**
+     * Identify that only a sample of the elements of an array is compared
+     * @param verified number of elements compared
+     * @param total length of the array
+     */
+    public void sampled(int verified, int total) {
+        _verifiedElementCount += verified;
+        _sampledElementCount += total;
+    }
+
+    /**
+     * Identify that the comparison was abandoned before it could decide.  Failures found up to that point are kept.
+     * @param message where and why the comparison stopped
+     */
+    public void inconclusive(String message) {
+        if (_sink != null) {
+            _sink.failure(message);
+        }
+        _inconclusive = true;
+        _success = false;
+        _failureCount++;
+        // Always reported, however full the message is, so the result cannot be mistaken for a complete one
+        if (_message.length() != 0) {
+            _message.append(" ; ");
         }
+        _message.append(message);
     }
 
     /**
@@ -173,11 +446,25 @@ public class JSONCompareResult {
      * @return result of comparision
      */
     public JSONCompareResult fail(String field, Object expected, Object actual) {
-        _fieldFailures.add(new FieldComparisonFailure(field, expected, actual));
-        this._field = field;
-        this._expected = expected;
-        this._actual = actual;
-        fail(formatFailureMessage(field, expected, actual));
+        _fieldFailureCount++;
+        if (_sink != null) {
+            _sink.fieldFailure(field, expected, actual);
+        }
+        FieldComparisonFailure failure = retain(_fieldFailures, field, expected, actual);
+        if (!_detachValues) {
+            this._field = field;
+            this._expected = expected;
+            this._actual = actual;
+        } else if (failure != null) {
+            this._field = field;
+            this._expected = failure.getExpected();
+            this._actual = failure.getActual();
+        }
+        if (isMessageFull()) {
+            failWithoutMessage();
+        } else {
+            recordFailure(formatFailureMessage(field, expected, actual));
+        }
         return this;
     }
 
@@ -193,11 +480,16 @@ public class JSONCompareResult {
     }
 
     private String formatFailureMessage(String field, Object expected, Object actual) {
+        int offset = -1;
+        if (expected instanceof String && actual instanceof String
+                && (isLargeString(expected) || isLargeString(actual))) {
+            offset = firstDifference((String) expected, (String) actual);
+        }
         return field
                 + "\nExpected: "
-                + describe(expected)
+                + describe(expected, offset)
                 + "\n     got: "
-                + describe(actual)
+                + describe(actual, offset)
                 + "\n";
     }
 
@@ -208,8 +500,16 @@ public class JSONCompareResult {
      * @return result of comparison
      */
     public JSONCompareResult missing(String field, Object expected) {
-    	_fieldMissing.add(new FieldComparisonFailure(field, expected, null));
-        fail(formatMissing(field, expected));
+        _fieldMissingCount++;
+        if (_sink != null) {
+            _sink.fieldMissing(field, expected);
+        }
+        retain(_fieldMissing, field, expected, null);
+        if (isMessageFull()) {
+            failWithoutMessage();
+        } else {
+            recordFailure(formatMissing(field, expected));
+        }
         return this;
     }
 
@@ -227,8 +527,16 @@ public class JSONCompareResult {
      * @return result of comparison
      */
     public JSONCompareResult unexpected(String field, Object actual) {
-    	_fieldUnexpected.add(new FieldComparisonFailure(field, null, actual));
-        fail(formatUnexpected(field, actual));
+        _fieldUnexpectedCount++;
+        if (_sink != null) {
+            _sink.fieldUnexpected(field, actual);
+        }
+        retain(_fieldUnexpected, field, null, actual);
+        if (isMessageFull()) {
+            failWithoutMessage();
+        } else {
+            recordFailure(formatUnexpected(field, actual));
+        }
         return this;
     }
 
@@ -240,7 +548,13 @@ public class JSONCompareResult {
     }
 
     private static String describe(Object value) {
-        if (value instanceof JSONArray) {
+        return describe(value, -1);
+    }
+
+    private static String describe(Object value, int differenceOffset) {
+        if (isLargeString(value)) {
+            return describeLargeString((String) value, differenceOffset);
+        } else if (value instanceof JSONArray) {
             return "a JSON array";
         } else if (value instanceof JSONObject) {
             return "a JSON object";
@@ -249,8 +563,42 @@ public class JSONCompareResult {
         }
     }
 
+    private static boolean isLargeString(Object value) {
+        return value instanceof String && ((String) value).length() > LARGE_VALUE_LENGTH;
+    }
+
+    private static int firstDifference(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    // Describes a string too long to quote in full by its size, its digest and an excerpt: the text around the
+    // first difference from the other value if there is one, otherwise its head and tail
+    private static String describeLargeString(String value, int differenceOffset) {
+        DigestWriter digest = new DigestWriter();
+        digest.write(value, 0, value.length());
+        StringBuilder sb = new StringBuilder("a string of ").append(value.length()).append(" characters (")
+                .append(digest.getByteCount()).append(" bytes UTF-8, sha256 ").append(digest.hexDigest())
+                .append(")");
+        if (differenceOffset >= 0) {
+            int start = Math.max(0, differenceOffset - EXCERPT_RADIUS);
+            int end = Math.min(value.length(), differenceOffset + EXCERPT_RADIUS);
+            sb.append(" differing at offset ").append(differenceOffset).append(": ");
+            sb.append(start > 0 ? "..." : "").append(value, start, end).append(end < value.length() ? "..." : "");
+        } else {
+            sb.append(": ").append(value, 0, EXCERPT_RADIUS).append("...")
+                    .append(value, value.length() - EXCERPT_RADIUS, value.length());
+        }
+        return sb.toString();
+    }
+
     @Override
     public String toString() {
-        return _message.toString();
+        return getMessage();
     }
 }
@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.json.JSONObject;
+
+/**
+ * <p>Streams a <a href="https://www.rfc-editor.org/rfc/rfc6902">JSON Patch</a> to a writer, one operation per line,
+ * for example:</p>
+ *
+ * <pre>
+ * [{"op":"replace","path":"/items/0/price","value":13},
+ * {"op":"remove","path":"/items/1"},
+ * {"op":"add","path":"/tags/-","value":"new"}]
+ * </pre>
+ *
+ * <p>Register one with
+ * {@link org.skyscreamer.jsonassert.comparator.AbstractComparator#setPatchWriter(JSONPatchWriter)} to have the
+ * comparator write the operations that turn the expected document into the actual one as it finds the
+ * differences.  Paths are JSON Pointers (RFC 6901) and values are streamed as JSON, subtrees included.  The patch is
+ * complete once the writer is closed.  Writes are synchronized, so operations are not interleaved.</p>
+ */
+public class JSONPatchWriter implements Flushable, Closeable {
+    private final Writer _writer;
+    private int _operationCount;
+    private boolean _closed;
+
+    /**
+     * Creates a patch writing to {@code writer}.  Closing the patch closes the writer.
+     *
+     * @param writer where to write the patch
+     */
+    public JSONPatchWriter(Writer writer) {
+        _writer = writer;
+    }
+
+    /**
+     * Creates a patch writing to {@code file} in UTF-8, replacing any existing content.
+     *
+     * @param file where to write the patch
+     * @throws IOException if the file cannot be opened
+     */
+    public JSONPatchWriter(File file) throws IOException {
+        this(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Writes an {@code add} operation.
+     *
+     * @param path  pointer to the member or array element to add, or to {@code -} past the end of an array
+     * @param value the value to add
+     */
+    public void add(String path, Object value) {
+        write("add", path, value, true);
+    }
+
+    /**
+     * Writes a {@code remove} operation.
+     *
+     * @param path pointer to the member or array element to remove
+     */
+    public void remove(String path) {
+        write("remove", path, null, false);
+    }
+
+    /**
+     * Writes a {@code replace} operation.
+     *
+     * @param path  pointer to the value to replace, or the empty string for the whole document
+     * @param value the new value
+     */
+    public void replace(String path, Object value) {
+        write("replace", path, value, true);
+    }
+
+    /**
+     * @return number of operations written so far
+     */
+    public synchronized int getOperationCount() {
+        return _operationCount;
+    }
+
+    private synchronized void write(String op, String path, Object value, boolean hasValue) {
+        if (_closed) {
+            throw new IllegalStateException("Patch is closed");
+        }
+        try {
+            _writer.write(_operationCount == 0 ? "[" : ",\n");
+            _writer.write("{\"op\":\"");
+            _writer.write(op);
+            _writer.write("\",\"path\":");
+            JSONObject.quote(path, _writer);
+            if (hasValue) {
+                _writer.write(",\"value\":");
+                JSONValueWriter.write(value, _writer);
+            }
+            _writer.write('}');
+            _operationCount++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write patch operation", e);
+        }
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        _writer.flush();
+    }
+
+    /**
+     * Ends the patch, which is an empty array if no operation was written, and closes the writer.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (_closed) {
+            return;
+        }
+        _closed = true;
+        try {
+            _writer.write(_operationCount == 0 ? "[]\n" : "]\n");
+        } finally {
+            _writer.close();
+        }
+    }
+}
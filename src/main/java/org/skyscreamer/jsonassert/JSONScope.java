@@ -0,0 +1,138 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * <p>Selects the subtrees of a document a comparison is limited to, by paths in the syntax of
+ * {@link Customization}: keys separated by dots, {@code *} for any one key and {@code **} for any number of levels.
+ * Array elements are addressed by position, as in {@code data.items[0].price} or {@code data.items[*].price}.</p>
+ *
+ * <p>{@link #select(String)} reads a JSON string and only builds the selected subtrees.  Everything else is skipped
+ * token by token, without building values or decoding strings, and objects and arrays that cannot contain a selected
+ * path are skipped whole.  Scopes are immutable and may be shared.</p>
+ *
+ * @see JSONCompare#compareJSON(String, String, JSONScope, JSONCompareMode)
+ */
+public final class JSONScope {
+    private final String[] _paths;
+    private final Pattern[] _patterns;
+
+    private JSONScope(String[] paths) {
+        if (paths.length == 0) {
+            throw new IllegalArgumentException("A scope needs at least one path");
+        }
+        _paths = paths.clone();
+        _patterns = new Pattern[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            _patterns[i] = Customization.compilePath(paths[i]);
+        }
+    }
+
+    /**
+     * Creates a scope selecting the subtrees at any of the given paths.
+     *
+     * @param paths paths of the selected subtrees
+     * @return a new scope
+     */
+    public static JSONScope of(String... paths) {
+        return new JSONScope(paths);
+    }
+
+    /**
+     * Is the node at {@code path} selected?
+     *
+     * @param path path of a node
+     * @return true if one of the paths of this scope matches it
+     */
+    public boolean selects(String path) {
+        for (Pattern pattern : _patterns) {
+            if (pattern.matcher(path).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Could a node below the node at {@code path} be selected?  This may answer true for a node that turns out to
+     * hold no selected node, but never false for one that does.
+     *
+     * @param path path of a node
+     * @return false if no node below it can be selected
+     */
+    public boolean mayContain(String path) {
+        for (Pattern pattern : _patterns) {
+            Matcher matcher = pattern.matcher(path);
+            // A failed match that ran out of input could succeed on a longer path
+            if (matcher.matches() || matcher.hitEnd()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the selected subtrees of a JSON document.  Subtrees within a selected subtree are not reported
+     * separately.
+     *
+     * @param json JSON document
+     * @return an object holding each selected subtree under its path
+     * @throws JSONException if the document is not valid JSON
+     */
+    public JSONObject select(String json) {
+        JSONTextCursor cursor = new JSONTextCursor(json);
+        JSONObject selected = new JSONObject();
+        select(cursor, "", selected);
+        cursor.end();
+        return selected;
+    }
+
+    @Override
+    public String toString() {
+        return "JSONScope" + Arrays.toString(_paths);
+    }
+
+    private void select(JSONTextCursor cursor, String path, JSONObject selected) {
+        if (selects(path)) {
+            selected.put(path, cursor.value());
+            return;
+        }
+        char c = cursor.peek();
+        if (c == '{' && mayContain(path)) {
+            if (cursor.enter('{', '}')) {
+                do {
+                    String key = cursor.key();
+                    select(cursor, path.isEmpty() ? key : path + "." + key, selected);
+                } while (cursor.nextEntry('}'));
+            }
+        } else if (c == '[' && mayContain(path)) {
+            if (cursor.enter('[', ']')) {
+                int i = 0;
+                do {
+                    select(cursor, path + "[" + i++ + "]", selected);
+                } while (cursor.nextEntry(']'));
+            }
+        } else {
+            cursor.skipValue();
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/**
+ * Position in the text of a JSON document, for readers that build only part of it.  Values can be skipped without
+ * being built: skipping only tracks brackets and string boundaries.  Keys may be unquoted and strings single-quoted,
+ * as org.json allows, and values that are built are the same as org.json builds.  The grammar is otherwise that of
+ * {@link org.skyscreamer.jsonassert.tree.JSONTape}, stricter than org.json's: no empty or trailing elements, no
+ * {@code ;} between fields, and unquoted text ends at whitespace.
+ */
+final class JSONTextCursor {
+    private final String _text;
+    private int _pos;
+
+    JSONTextCursor(String text) {
+        this(text, 0);
+    }
+
+    JSONTextCursor(String text, int pos) {
+        _text = text;
+        _pos = pos;
+    }
+
+    /**
+     * @return offset of the next character to read
+     */
+    int position() {
+        return _pos;
+    }
+
+    /**
+     * Opens an object or array.
+     *
+     * @param open  opening bracket
+     * @param close closing bracket
+     * @return false if the container is empty, in which case it is also closed
+     */
+    boolean enter(char open, char close) {
+        skipWhitespace();
+        if (next() != open) {
+            throw error("Expected a '" + open + "'");
+        }
+        skipWhitespace();
+        if (current() == close) {
+            _pos++;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Moves past the separator after an entry of an object or array.
+     *
+     * @param close closing bracket
+     * @return true if another entry follows, false if the container was closed
+     */
+    boolean nextEntry(char close) {
+        skipWhitespace();
+        char c = next();
+        if (c == close) {
+            return false;
+        } else if (c != ',') {
+            throw error("Expected a ',' or '" + close + "'");
+        }
+        return true;
+    }
+
+    /**
+     * Reads a key and the colon after it.
+     *
+     * @return the key
+     */
+    String key() {
+        skipWhitespace();
+        int start = _pos;
+        char c = current();
+        String key;
+        if (c == '"' || c == '\'') {
+            key = string();
+        } else {
+            while (_pos < _text.length() && !endsUnquotedText(_text.charAt(_pos))) {
+                _pos++;
+            }
+            if (_pos == start) {
+                throw error("Expected a key");
+            }
+            key = _text.substring(start, _pos);
+        }
+        skipWhitespace();
+        if (next() != ':') {
+            throw error("Expected a ':' after a key");
+        }
+        return key;
+    }
+
+    /**
+     * Reads a string or other scalar value.
+     *
+     * @return the value as org.json builds it
+     */
+    Object scalar() {
+        skipWhitespace();
+        char c = current();
+        if (c == '"' || c == '\'') {
+            return string();
+        }
+        int start = _pos;
+        skipValue();
+        return JSONObject.stringToValue(_text.substring(start, _pos));
+    }
+
+    private String string() {
+        int start = _pos;
+        skipString();
+        if (_text.lastIndexOf('\\', _pos - 1) < start) {
+            return _text.substring(start + 1, _pos - 1);
+        }
+        return (String) new JSONTokener(_text.substring(start, _pos)).nextValue();
+    }
+
+    /**
+     * Reads a value of any kind, objects and arrays included.
+     *
+     * @return the value as org.json builds it
+     */
+    Object value() {
+        skipWhitespace();
+        int start = _pos;
+        skipValue();
+        return new JSONTokener(_text.substring(start, _pos)).nextValue();
+    }
+
+    /**
+     * Moves past a value of any kind without building it.
+     */
+    void skipValue() {
+        skipWhitespace();
+        char c = current();
+        if (c == '"' || c == '\'') {
+            skipString();
+        } else if (c == '{' || c == '[') {
+            skipContainer();
+        } else {
+            int start = _pos;
+            while (_pos < _text.length() && !endsUnquotedText(_text.charAt(_pos))) {
+                _pos++;
+            }
+            if (_pos == start) {
+                throw error("Expected a value");
+            }
+        }
+    }
+
+    /**
+     * Unquoted text ends where org.json ends it, or at whitespace, which org.json would keep in the text.
+     */
+    private static boolean endsUnquotedText(char c) {
+        return c <= ' ' || Character.isWhitespace(c) || ",:]}/\\\"[{;=#".indexOf(c) >= 0;
+    }
+
+    private void skipContainer() {
+        int depth = 0;
+        do {
+            char c = current();
+            if (c == '"' || c == '\'') {
+                skipString();
+                continue;
+            }
+            if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            }
+            _pos++;
+        } while (depth > 0);
+    }
+
+    private void skipString() {
+        char quote = next();
+        while (true) {
+            char c = next();
+            if (c == '\\') {
+                next();
+            } else if (c == quote) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the next character that is not whitespace, without moving past it
+     */
+    char peek() {
+        skipWhitespace();
+        return current();
+    }
+
+    /**
+     * Checks that nothing but whitespace is left.
+     */
+    void end() {
+        skipWhitespace();
+        if (_pos < _text.length()) {
+            throw error("Unexpected content after the document");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (_pos < _text.length() && Character.isWhitespace(_text.charAt(_pos))) {
+            _pos++;
+        }
+    }
+
+    private char current() {
+        if (_pos >= _text.length()) {
+            throw error("Unexpected end of document");
+        }
+        return _text.charAt(_pos);
+    }
+
+    private char next() {
+        char c = current();
+        _pos++;
+        return c;
+    }
+
+    private JSONException error(String message) {
+        return new JSONException(message + " at character " + _pos);
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>Decides, without building any tree, whether two JSON texts are the same document written with different
+ * whitespace between tokens.  Whitespace inside string literals is significant.</p>
+ *
+ * <p>The check only ever proves equality.  It answers false whenever it is not sure: for scalar roots, for anything
+ * that is not strict JSON (org.json also accepts unquoted keys, single quotes and more), for keys with escapes, and
+ * for objects whose keys might repeat.  Text it accepts is text org.json parses without error, so skipping the parse
+ * never hides an exception the parse would have thrown.</p>
+ */
+final class JSONTextEquivalence {
+    private static final int EOF = -1;
+    private static final int STRING = -2;
+    private static final int LITERAL = -3;
+    private static final int INVALID = -4;
+
+    private static final int EXPECT_VALUE = 0;
+    private static final int EXPECT_FIRST_VALUE_OR_END = 1;
+    private static final int EXPECT_FIRST_KEY_OR_END = 2;
+    private static final int EXPECT_KEY = 3;
+    private static final int EXPECT_COLON = 4;
+    private static final int EXPECT_COMMA_OR_END = 5;
+    private static final int EXPECT_EOF = 6;
+
+    private JSONTextEquivalence() {
+    }
+
+    /**
+     * @param expected expected JSON text, may be null
+     * @param actual   actual JSON text, may be null
+     * @return true if both are the same strict JSON object or array, ignoring whitespace between tokens
+     */
+    static boolean equivalent(String expected, String actual) {
+        if (expected == null || actual == null) {
+            return false;
+        }
+        Cursor e = new Cursor(expected);
+        Cursor a = new Cursor(actual);
+        // Open containers: true for objects.  Key hashes of open objects, by depth and reused.
+        boolean[] objects = new boolean[16];
+        List<Set<Integer>> keys = new ArrayList<Set<Integer>>();
+        int depth = 0;
+        int state = EXPECT_VALUE;
+        while (true) {
+            int token = e.next();
+            if (token == INVALID || token != a.next() || !e.sameTokenAs(a)) {
+                return false;
+            }
+            switch (state) {
+                case EXPECT_EOF:
+                    return token == EOF;
+                case EXPECT_COLON:
+                    if (token != ':') {
+                        return false;
+                    }
+                    state = EXPECT_VALUE;
+                    continue;
+                case EXPECT_FIRST_KEY_OR_END:
+                case EXPECT_KEY:
+                    if (token == '}' && state == EXPECT_FIRST_KEY_OR_END) {
+                        depth--;
+                        break;
+                    }
+                    if (token != STRING) {
+                        return false;
+                    }
+                    Integer hash = e.keyHash();
+                    if (hash == null || !keys.get(depth - 1).add(hash)) {
+                        // Possibly a duplicate key, which org.json rejects
+                        return false;
+                    }
+                    state = EXPECT_COLON;
+                    continue;
+                case EXPECT_COMMA_OR_END:
+                    if (token == ',') {
+                        state = objects[depth - 1] ? EXPECT_KEY : EXPECT_VALUE;
+                        continue;
+                    }
+                    if (token != (objects[depth - 1] ? '}' : ']')) {
+                        return false;
+                    }
+                    depth--;
+                    break;
+                default:
+                    if (token == ']' && state == EXPECT_FIRST_VALUE_OR_END) {
+                        depth--;
+                        break;
+                    }
+                    if (token == '{' || token == '[') {
+                        if (depth == objects.length) {
+                            boolean[] grown = new boolean[depth * 2];
+                            System.arraycopy(objects, 0, grown, 0, depth);
+                            objects = grown;
+                        }
+                        objects[depth] = token == '{';
+                        if (keys.size() == depth) {
+                            keys.add(token == '{' ? new HashSet<Integer>() : null);
+                        } else if (token == '{' && keys.get(depth) == null) {
+                            keys.set(depth, new HashSet<Integer>());
+                        }
+                        if (token == '{') {
+                            keys.get(depth).clear();
+                        }
+                        depth++;
+                        state = token == '{' ? EXPECT_FIRST_KEY_OR_END : EXPECT_FIRST_VALUE_OR_END;
+                        continue;
+                    }
+                    // Scalar roots are compared as raw text by JSONCompare, so they are left to it
+                    if ((token != STRING && token != LITERAL) || depth == 0) {
+                        return false;
+                    }
+                    break;
+            }
+            // A value was completed
+            state = depth == 0 ? EXPECT_EOF : EXPECT_COMMA_OR_END;
+        }
+    }
+
+    private static final class Cursor {
+        private final String _text;
+        private int _pos;
+        private int _start;
+
+        Cursor(String text) {
+            _text = text;
+        }
+
+        /**
+         * Reads the next token.
+         *
+         * @return the character of a structural token, or one of the token constants
+         */
+        int next() {
+            int length = _text.length();
+            while (_pos < length && isWhitespace(_text.charAt(_pos))) {
+                _pos++;
+            }
+            _start = _pos;
+            if (_pos == length) {
+                return EOF;
+            }
+            char c = _text.charAt(_pos);
+            switch (c) {
+                case '{':
+                case '}':
+                case '[':
+                case ']':
+                case ':':
+                case ',':
+                    _pos++;
+                    return c;
+                case '"':
+                    return scanString();
+                case 't':
+                    return scanWord("true");
+                case 'f':
+                    return scanWord("false");
+                case 'n':
+                    return scanWord("null");
+                default:
+                    return scanNumber();
+            }
+        }
+
+        boolean sameTokenAs(Cursor other) {
+            int length = _pos - _start;
+            return length == other._pos - other._start
+                    && _text.regionMatches(_start, other._text, other._start, length);
+        }
+
+        /**
+         * @return hash of the key just read, or null if the key has escapes
+         */
+        Integer keyHash() {
+            int hash = 0;
+            for (int i = _start + 1; i < _pos - 1; i++) {
+                char c = _text.charAt(i);
+                if (c == '\\') {
+                    // Escaped keys may equal unescaped ones; give up rather than decode them
+                    return null;
+                }
+                hash = 31 * hash + c;
+            }
+            return hash;
+        }
+
+        private int scanString() {
+            int length = _text.length();
+            _pos++;
+            while (_pos < length) {
+                char c = _text.charAt(_pos++);
+                if (c == '"') {
+                    return STRING;
+                } else if (c < ' ') {
+                    return INVALID;
+                } else if (c == '\\') {
+                    if (_pos == length) {
+                        return INVALID;
+                    }
+                    char escaped = _text.charAt(_pos++);
+                    if (escaped == 'u') {
+                        for (int i = 0; i < 4; i++) {
+                            if (_pos == length || Character.digit(_text.charAt(_pos++), 16) < 0) {
+                                return INVALID;
+                            }
+                        }
+                    } else if ("\"\\/bfnrt".indexOf(escaped) < 0) {
+                        return INVALID;
+                    }
+                }
+            }
+            return INVALID;
+        }
+
+        private int scanWord(String word) {
+            if (!_text.startsWith(word, _pos)) {
+                return INVALID;
+            }
+            _pos += word.length();
+            return LITERAL;
+        }
+
+        private int scanNumber() {
+            if (peek() == '-') {
+                _pos++;
+            }
+            if (peek() == '0') {
+                _pos++;
+            } else if (!skipDigits()) {
+                return INVALID;
+            }
+            if (peek() == '.') {
+                _pos++;
+                if (!skipDigits()) {
+                    return INVALID;
+                }
+            }
+            if (peek() == 'e' || peek() == 'E') {
+                _pos++;
+                if (peek() == '+' || peek() == '-') {
+                    _pos++;
+                }
+                if (!skipDigits()) {
+                    return INVALID;
+                }
+            }
+            return LITERAL;
+        }
+
+        private boolean skipDigits() {
+            int start = _pos;
+            while (peek() >= '0' && peek() <= '9') {
+                _pos++;
+            }
+            return _pos > start;
+        }
+
+        private int peek() {
+            return _pos < _text.length() ? _text.charAt(_pos) : EOF;
+        }
+
+        private static boolean isWhitespace(char c) {
+            return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONString;
+
+/**
+ * Streams values found in JSON documents to a writer as JSON text.
+ */
+final class JSONValueWriter {
+    private JSONValueWriter() {
+    }
+
+    /**
+     * Writes {@code value} as JSON.  Subtrees are streamed rather than rendered to a string first, and values that
+     * are not JSON types are written as strings.
+     *
+     * @param value  the value, may be null
+     * @param writer where to write it
+     * @throws IOException if the writer fails
+     */
+    static void write(Object value, Writer writer) throws IOException {
+        if (value == null || JSONObject.NULL.equals(value)) {
+            writer.write("null");
+        } else if (value instanceof JSONObject) {
+            ((JSONObject) value).write(writer);
+        } else if (value instanceof JSONArray) {
+            ((JSONArray) value).write(writer);
+        } else if (value instanceof JSONString) {
+            writer.write(((JSONString) value).toJSONString());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            writer.write(JSONObject.valueToString(value));
+        } else {
+            JSONObject.quote(value.toString(), writer);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.skyscreamer.jsonassert.tree.JSONNodeType;
+import org.skyscreamer.jsonassert.tree.JSONTreeAdapter;
+import org.skyscreamer.jsonassert.tree.JSONTreeView;
+
+/**
+ * <p>Parses a JSON string on demand.  A node is an offset into the text.  The fields or elements of an object or
+ * array are indexed, by one pass over its own text that skips nested values, the first time the comparison reads
+ * it.  Scalars are only decoded when read.  Objects and arrays are presented to the comparators as
+ * {@link JSONTreeView}s.</p>
+ *
+ * <p>Parts of the text that are never read are only checked for balanced brackets and strings, so a document that is
+ * not valid JSON where the comparison does not look can still be compared.  The parts that are read follow the
+ * grammar of {@link org.skyscreamer.jsonassert.tree.JSONTape}, which is stricter than org.json's.</p>
+ */
+final class LazyJSONParser implements JSONTreeAdapter<LazyJSONParser.Node> {
+    private static final LazyJSONParser INSTANCE = new LazyJSONParser();
+
+    private LazyJSONParser() {
+    }
+
+    /**
+     * @param s Raw JSON string to be parsed
+     * @return a JSONObject or JSONArray view, or the JSONString {@link JSONParser#parseJSON(String)} returns for
+     *         other values
+     */
+    static Object parseJSON(String s) {
+        JSONTextCursor cursor = new JSONTextCursor(s);
+        char c = cursor.peek();
+        if (c != '{' && c != '[') {
+            return JSONParser.parseJSON(s);
+        }
+        Node root = new Node(s, cursor.position());
+        cursor.skipValue();
+        return JSONTreeView.of(root, INSTANCE);
+    }
+
+    @Override
+    public JSONNodeType typeOf(Node node) {
+        return node.type();
+    }
+
+    @Override
+    public Set<String> fieldNames(Node object) {
+        return Collections.unmodifiableSet(object.fields().keySet());
+    }
+
+    @Override
+    public boolean hasField(Node object, String name) {
+        return object.fields().containsKey(name);
+    }
+
+    @Override
+    public Node field(Node object, String name) {
+        return object.fields().get(name);
+    }
+
+    @Override
+    public int size(Node container) {
+        return container.type() == JSONNodeType.OBJECT ? container.fields().size() : container.elements().size();
+    }
+
+    @Override
+    public Node element(Node array, int index) {
+        return array.elements().get(index);
+    }
+
+    @Override
+    public String stringValue(Node node) {
+        return (String) node.scalar();
+    }
+
+    @Override
+    public Number numberValue(Node node) {
+        return (Number) node.scalar();
+    }
+
+    @Override
+    public boolean booleanValue(Node node) {
+        return (Boolean) node.scalar();
+    }
+
+    /**
+     * A value in the text, decoded or indexed when first needed.
+     */
+    static final class Node {
+        private final String _text;
+        private final int _start;
+        private JSONNodeType _type;
+        private Object _scalar;
+        private Map<String, Node> _fields;
+        private List<Node> _elements;
+
+        Node(String text, int start) {
+            _text = text;
+            _start = start;
+        }
+
+        JSONNodeType type() {
+            if (_type == null) {
+                char c = _text.charAt(_start);
+                if (c == '{') {
+                    _type = JSONNodeType.OBJECT;
+                } else if (c == '[') {
+                    _type = JSONNodeType.ARRAY;
+                } else {
+                    Object value = scalar();
+                    if (value instanceof String) {
+                        _type = JSONNodeType.STRING;
+                    } else if (value instanceof Number) {
+                        _type = JSONNodeType.NUMBER;
+                    } else if (value instanceof Boolean) {
+                        _type = JSONNodeType.BOOLEAN;
+                    } else {
+                        _type = JSONNodeType.NULL;
+                    }
+                }
+            }
+            return _type;
+        }
+
+        Object scalar() {
+            if (_scalar == null) {
+                _scalar = new JSONTextCursor(_text, _start).scalar();
+            }
+            return _scalar;
+        }
+
+        Map<String, Node> fields() {
+            if (_fields == null) {
+                Map<String, Node> fields = new LinkedHashMap<String, Node>();
+                JSONTextCursor cursor = new JSONTextCursor(_text, _start);
+                if (cursor.enter('{', '}')) {
+                    do {
+                        String key = cursor.key();
+                        cursor.peek();
+                        if (fields.put(key, new Node(_text, cursor.position())) != null) {
+                            throw new JSONException("Duplicate key " + JSONObject.quote(key));
+                        }
+                        cursor.skipValue();
+                    } while (cursor.nextEntry('}'));
+                }
+                _fields = fields;
+            }
+            return _fields;
+        }
+
+        List<Node> elements() {
+            if (_elements == null) {
+                List<Node> elements = new ArrayList<Node>();
+                JSONTextCursor cursor = new JSONTextCursor(_text, _start);
+                if (cursor.enter('[', ']')) {
+                    do {
+                        cursor.peek();
+                        elements.add(new Node(_text, cursor.position()));
+                        cursor.skipValue();
+                    } while (cursor.nextEntry(']'));
+                }
+                _elements = elements;
+            }
+            return _elements;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.json.JSONObject;
+
+/**
+ * <p>{@link FailureSink} that writes each failure as one line of newline-delimited JSON, for example:</p>
+ *
+ * <pre>
+ * {"kind":"fieldFailure","document":"orders/17.json","field":"items[0].price","expected":12.5,"actual":13}
+ * {"kind":"fieldMissing","document":"orders/17.json","field":"items[0]","expected":"sku"}
+ * {"kind":"failure","document":"orders/17.json","message":"tags[]: Expected 3 values but got 2"}
+ * </pre>
+ *
+ * <p>Values are streamed to the writer as JSON, subtrees included.  The {@code document} member is present while a
+ * {@linkplain #setDocument(String) document label} is set, which lets one file collect the failures of many
+ * comparisons.  Writes are synchronized, so the sink may be shared between threads; lines are not interleaved.</p>
+ */
+public class NdjsonFailureSink implements FailureSink, Flushable, Closeable {
+    private final Writer _writer;
+    private volatile String _document;
+
+    /**
+     * Creates a sink writing to {@code writer}.  Closing the sink closes the writer.
+     *
+     * @param writer where to write the failures
+     */
+    public NdjsonFailureSink(Writer writer) {
+        _writer = writer;
+    }
+
+    /**
+     * Creates a sink writing to {@code file} in UTF-8, replacing any existing content.
+     *
+     * @param file where to write the failures
+     * @throws IOException if the file cannot be opened
+     */
+    public NdjsonFailureSink(File file) throws IOException {
+        this(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Labels the failures written from now on, typically with the name of the document being compared.
+     *
+     * @param document the label, or null for none
+     */
+    public void setDocument(String document) {
+        _document = document;
+    }
+
+    @Override
+    public void fieldFailure(String field, Object expected, Object actual) {
+        write("fieldFailure", field, "expected", expected, "actual", actual);
+    }
+
+    @Override
+    public void fieldMissing(String field, Object expected) {
+        write("fieldMissing", field, "expected", expected, null, null);
+    }
+
+    @Override
+    public void fieldUnexpected(String field, Object actual) {
+        write("fieldUnexpected", field, "actual", actual, null, null);
+    }
+
+    @Override
+    public void failure(String message) {
+        write("failure", null, "message", message, null, null);
+    }
+
+    private synchronized void write(String kind, String field, String name1, Object value1, String name2,
+                                    Object value2) {
+        try {
+            _writer.write("{\"kind\":\"");
+            _writer.write(kind);
+            _writer.write('"');
+            String document = _document;
+            if (document != null) {
+                _writer.write(",\"document\":");
+                JSONObject.quote(document, _writer);
+            }
+            if (field != null) {
+                _writer.write(",\"field\":");
+                JSONObject.quote(field, _writer);
+            }
+            writeMember(name1, value1);
+            if (name2 != null) {
+                writeMember(name2, value2);
+            }
+            _writer.write("}\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write failure", e);
+        }
+    }
+
+    private void writeMember(String name, Object value) throws IOException {
+        _writer.write(",\"");
+        _writer.write(name);
+        _writer.write("\":");
+        JSONValueWriter.write(value, _writer);
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        _writer.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        _writer.close();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.skyscreamer.jsonassert.comparator.CustomComparator;
+
+/**
+ * Parses a JSON document for a comparator that {@linkplain Customization#ignore(String) ignores} some paths.  Values at
+ * ignored paths are read without being built and replaced by {@link JSONObject#NULL}, which the comparator never
+ * looks at.  The document is read with org.json's {@link JSONTokener} following the same rules as
+ * {@link JSONObject} and {@link JSONArray}, so exactly the documents {@link JSONParser#parseJSON(String)} accepts are
+ * accepted, duplicate keys included.  Array elements are addressed by position, as in {@code items[3].debug}; since
+ * that only names the same element in both documents when arrays are compared by position, nothing below an array
+ * is pruned otherwise.
+ */
+final class PrunedJSONParser {
+    private PrunedJSONParser() {
+    }
+
+    /**
+     * @param s          Raw JSON string to be parsed
+     * @param comparator comparator the document is parsed for
+     * @return JSONObject, JSONArray, or the JSONString {@link JSONParser#parseJSON(String)} returns for other values
+     */
+    static Object parseJSON(String s, CustomComparator comparator) {
+        if (!comparator.hasIgnores()) {
+            return JSONParser.parseJSON(s);
+        }
+        String trimmed = s.trim();
+        if (!trimmed.startsWith("{") && !trimmed.startsWith("[")) {
+            return JSONParser.parseJSON(s);
+        }
+        return value(new JSONTokener(s), "", comparator, true);
+    }
+
+    /**
+     * Reads a value, building it unless {@code build} is false or its path is ignored.
+     *
+     * @param path path of the value, or null if nothing at or below it may be pruned
+     */
+    private static Object value(JSONTokener x, String path, CustomComparator comparator, boolean build) {
+        if (build && path != null && !path.isEmpty() && comparator.isIgnored(path)) {
+            build = false;
+        }
+        char c = x.nextClean();
+        x.back();
+        if (c == '{') {
+            return object(x, path, comparator, build);
+        } else if (c == '[') {
+            return array(x, path, comparator, build);
+        }
+        Object value = x.nextValue();
+        return build ? value : JSONObject.NULL;
+    }
+
+    // Follows JSONObject(JSONTokener)
+    private static Object object(JSONTokener x, String path, CustomComparator comparator, boolean build) {
+        x.nextClean();
+        JSONObject object = build ? new JSONObject() : null;
+        Set<String> keys = build ? null : new HashSet<String>();
+        while (true) {
+            char c = x.nextClean();
+            if (c == 0) {
+                throw x.syntaxError("A JSONObject text must end with '}'");
+            } else if (c == '}') {
+                return build ? object : JSONObject.NULL;
+            }
+            x.back();
+            String key = x.nextValue().toString();
+            if (x.nextClean() != ':') {
+                throw x.syntaxError("Expected a ':' after a key");
+            }
+            if (build ? object.opt(key) != null : !keys.add(key)) {
+                throw x.syntaxError("Duplicate key \"" + key + "\"");
+            }
+            Object value = value(x, path == null ? null : path.isEmpty() ? key : path + "." + key, comparator, build);
+            if (build) {
+                object.put(key, value);
+            }
+            switch (x.nextClean()) {
+                case ';':
+                case ',':
+                    if (x.nextClean() == '}') {
+                        return build ? object : JSONObject.NULL;
+                    }
+                    if (x.end()) {
+                        throw x.syntaxError("A JSONObject text must end with '}'");
+                    }
+                    x.back();
+                    break;
+                case '}':
+                    return build ? object : JSONObject.NULL;
+                default:
+                    throw x.syntaxError("Expected a ',' or '}'");
+            }
+        }
+    }
+
+    // Follows JSONArray(JSONTokener)
+    private static Object array(JSONTokener x, String path, CustomComparator comparator, boolean build) {
+        x.nextClean();
+        JSONArray array = build ? new JSONArray() : null;
+        boolean positional = path != null && comparator.comparesElementsByPosition();
+        char c = x.nextClean();
+        if (c == 0) {
+            throw x.syntaxError("Expected a ',' or ']'");
+        } else if (c == ']') {
+            return build ? array : JSONObject.NULL;
+        }
+        x.back();
+        for (int i = 0; ; i++) {
+            Object element;
+            if (x.nextClean() == ',') {
+                x.back();
+                element = JSONObject.NULL;
+            } else {
+                x.back();
+                element = value(x, positional ? path + "[" + i + "]" : null, comparator, build);
+            }
+            if (build) {
+                array.put(element);
+            }
+            switch (x.nextClean()) {
+                case 0:
+                    throw x.syntaxError("Expected a ',' or ']'");
+                case ',':
+                    c = x.nextClean();
+                    if (c == 0) {
+                        throw x.syntaxError("Expected a ',' or ']'");
+                    } else if (c == ']') {
+                        return build ? array : JSONObject.NULL;
+                    }
+                    x.back();
+                    break;
+                case ']':
+                    return build ? array : JSONObject.NULL;
+                default:
+                    throw x.syntaxError("Expected a ',' or ']'");
+            }
+        }
+    }
+}
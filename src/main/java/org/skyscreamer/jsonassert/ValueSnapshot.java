@@ -0,0 +1,180 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * <p>Compact, self-contained record of a value from a JSON document: its type, the start of its JSON rendering,
+ * the length of the full rendering and a digest of it.  A snapshot holds no reference to the document, so failures
+ * recorded with snapshots do not keep the compared documents reachable.</p>
+ *
+ * @see JSONCompareResult#setDetachValues(boolean)
+ */
+public final class ValueSnapshot {
+    /**
+     * Number of characters of rendering kept by snapshots made by {@link JSONCompareResult}.
+     */
+    public static final int DEFAULT_RENDERING_LENGTH = 256;
+
+    /**
+     * Kinds of JSON value.
+     */
+    public enum Type {
+        OBJECT, ARRAY, STRING, NUMBER, BOOLEAN, NULL
+    }
+
+    private final Type _type;
+    private final String _rendering;
+    private final boolean _truncated;
+    private final long _length;
+    private final String _sha256;
+
+    private ValueSnapshot(Type type, String rendering, boolean truncated, long length, String sha256) {
+        _type = type;
+        _rendering = rendering;
+        _truncated = truncated;
+        _length = length;
+        _sha256 = sha256;
+    }
+
+    /**
+     * Takes a snapshot of {@code value}.  The value is rendered once, streaming, so only the kept rendering is ever
+     * held in memory.
+     *
+     * @param value              value from a JSON document, may be null
+     * @param maxRenderingLength number of characters of rendering to keep
+     * @return a new snapshot
+     */
+    public static ValueSnapshot of(Object value, int maxRenderingLength) {
+        RenderingWriter writer = new RenderingWriter(maxRenderingLength);
+        try {
+            JSONValueWriter.write(value, writer);
+        } catch (IOException e) {
+            // RenderingWriter does not throw
+            throw new UncheckedIOException(e);
+        }
+        return new ValueSnapshot(typeOf(value), writer.rendering.toString(), writer.truncated,
+                writer.digest.getByteCount(), writer.digest.hexDigest());
+    }
+
+    private static Type typeOf(Object value) {
+        if (value == null || JSONObject.NULL.equals(value)) {
+            return Type.NULL;
+        } else if (value instanceof JSONObject) {
+            return Type.OBJECT;
+        } else if (value instanceof JSONArray) {
+            return Type.ARRAY;
+        } else if (value instanceof Number) {
+            return Type.NUMBER;
+        } else if (value instanceof Boolean) {
+            return Type.BOOLEAN;
+        }
+        return Type.STRING;
+    }
+
+    /**
+     * @return the kind of value
+     */
+    public Type getType() {
+        return _type;
+    }
+
+    /**
+     * @return the start of the JSON rendering of the value
+     */
+    public String getRendering() {
+        return _rendering;
+    }
+
+    /**
+     * @return true if {@link #getRendering()} is only the start of the rendering
+     */
+    public boolean isTruncated() {
+        return _truncated;
+    }
+
+    /**
+     * @return length in UTF-8 bytes of the full JSON rendering of the value
+     */
+    public long getLength() {
+        return _length;
+    }
+
+    /**
+     * @return SHA-256 digest of the UTF-8 encoding of the full JSON rendering, as lower-case hexadecimal
+     */
+    public String getSha256() {
+        return _sha256;
+    }
+
+    @Override
+    public String toString() {
+        return _truncated ? _rendering + "... (" + _length + " bytes, sha256 " + _sha256 + ")" : _rendering;
+    }
+
+    private static final class RenderingWriter extends Writer {
+        private final DigestWriter digest = new DigestWriter();
+        private final StringBuilder rendering = new StringBuilder();
+        private final int maxLength;
+        private boolean truncated;
+
+        RenderingWriter(int maxLength) {
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            digest.write(cbuf, off, len);
+            int room = maxLength - rendering.length();
+            if (len > room) {
+                truncated = true;
+            }
+            if (room > 0) {
+                rendering.append(cbuf, off, Math.min(len, room));
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            digest.write(str, off, len);
+            int room = maxLength - rendering.length();
+            if (len > room) {
+                truncated = true;
+            }
+            if (room > 0) {
+                rendering.append(str, off, off + Math.min(len, room));
+            }
+        }
+
+        @Override
+        public void write(int c) {
+            write(new char[] {(char) c}, 0, 1);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
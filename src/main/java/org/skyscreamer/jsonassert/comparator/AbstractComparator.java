@@ -16,7 +16,11 @@ package org.skyscreamer.jsonassert.comparator;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.skyscreamer.jsonassert.ArraySampling;
+import org.skyscreamer.jsonassert.ComparisonBudget;
+import org.skyscreamer.jsonassert.FailureSink;
 import org.skyscreamer.jsonassert.JSONCompareResult;
+import org.skyscreamer.jsonassert.JSONPatchWriter;
 
 import java.util.*;
 
@@ -30,12 +34,273 @@ import static org.skyscreamer.jsonassert.comparator.JSONCompareUtil.*;
  */
 public abstract class AbstractComparator implements JSONComparator {
 
+    static final int OBJECT_COMPARISON = 1;
+    static final int KEY_CHECKS = 2;
+    static final int ARRAY_COMPARISON = 4;
+    // The overloads taking the positions of a sample, and those comparing whole arrays
+    static final int STRICT_ORDER_COMPARISON = 8;
+    static final int UNIQUE_KEY_COMPARISON = 16;
+    static final int RECURSIVE_COMPARISON = 32;
+    static final int WHOLE_STRICT_ORDER_COMPARISON = 64;
+    static final int WHOLE_UNIQUE_KEY_COMPARISON = 128;
+    static final int WHOLE_RECURSIVE_COMPARISON = 256;
+    static final int VALUE_COMPARISON = 512;
+
+    /**
+     * Which of the methods that compare objects and arrays each comparator class overrides.  Comparisons the class
+     * does not customise are run on the {@link ComparisonStack}; the others call the overriding method, recursively.
+     */
+    private static final ClassValue<Integer> OVERRIDES = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            int overrides = 0;
+            if (overrides(type, "compareJSON", String.class, JSONObject.class, JSONObject.class,
+                    JSONCompareResult.class)) {
+                overrides |= OBJECT_COMPARISON;
+            }
+            if (overrides(type, "checkJsonObjectKeysExpectedInActual", String.class, JSONObject.class,
+                    JSONObject.class, JSONCompareResult.class)
+                    || overrides(type, "checkJsonObjectKeysActualInExpected", String.class, JSONObject.class,
+                    JSONObject.class, JSONCompareResult.class)) {
+                overrides |= KEY_CHECKS;
+            }
+            if (overrides(type, "compareValues", String.class, Object.class, Object.class,
+                    JSONCompareResult.class)) {
+                overrides |= VALUE_COMPARISON;
+            }
+            if (overrides(type, "compareJSONArray", String.class, JSONArray.class, JSONArray.class,
+                    JSONCompareResult.class)) {
+                overrides |= ARRAY_COMPARISON;
+            }
+            if (overrides(type, "compareJSONArrayWithStrictOrder", String.class, JSONArray.class, JSONArray.class,
+                    int[].class, JSONCompareResult.class)) {
+                overrides |= STRICT_ORDER_COMPARISON;
+            }
+            if (overrides(type, "compareJSONArrayOfJsonObjects", String.class, JSONArray.class, JSONArray.class,
+                    int[].class, JSONCompareResult.class)) {
+                overrides |= UNIQUE_KEY_COMPARISON;
+            }
+            if (overrides(type, "recursivelyCompareJSONArray", String.class, JSONArray.class, JSONArray.class,
+                    int[].class, JSONCompareResult.class)) {
+                overrides |= RECURSIVE_COMPARISON;
+            }
+            if (overrides(type, "compareJSONArrayWithStrictOrder", String.class, JSONArray.class, JSONArray.class,
+                    JSONCompareResult.class)) {
+                overrides |= WHOLE_STRICT_ORDER_COMPARISON;
+            }
+            if (overrides(type, "compareJSONArrayOfJsonObjects", String.class, JSONArray.class, JSONArray.class,
+                    JSONCompareResult.class)) {
+                overrides |= WHOLE_UNIQUE_KEY_COMPARISON;
+            }
+            if (overrides(type, "recursivelyCompareJSONArray", String.class, JSONArray.class, JSONArray.class,
+                    JSONCompareResult.class)) {
+                overrides |= WHOLE_RECURSIVE_COMPARISON;
+            }
+            return overrides;
+        }
+    };
+
+    private final ThreadLocal<ComparisonContext> context = new ThreadLocal<ComparisonContext>();
+    private ComparisonBudget budget;
+    private ComparisonListener listener;
+    private FailureSink failureSink;
+    private int maxRetainedFailures = Integer.MAX_VALUE;
+    private int maxMessageLength = Integer.MAX_VALUE;
+    private boolean detachFailureValues;
+    private boolean cacheable = true;
+    private ArraySampling arraySampling;
+    private int strictOrderDiff;
+    private JSONPatchWriter patchWriter;
+    private long configurationVersion;
+
     /**
      * Default constructor
      */
     public AbstractComparator() {
     }
 
+    /**
+     * Limits the work done by each top-level comparison made by this comparator.  A comparison that exhausts the
+     * budget stops early and returns a result that is {@linkplain JSONCompareResult#isInconclusive() inconclusive}.
+     *
+     * @param budget the budget, or null (the default) to always run comparisons to completion
+     */
+    public void setBudget(ComparisonBudget budget) {
+        this.budget = budget;
+        configurationVersion++;
+    }
+
+    /**
+     * @return the budget applied to each top-level comparison, or null if there is none
+     */
+    public ComparisonBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Bounds the detail kept by the results of top-level comparisons, for comparisons of documents that may differ
+     * in a great many places.
+     *
+     * @param maxRetainedFailures maximum number of field failures kept in each result
+     * @param maxMessageLength    maximum length of the message of each result
+     * @see JSONCompareResult#JSONCompareResult(int, int)
+     */
+    public void setFailureLimits(int maxRetainedFailures, int maxMessageLength) {
+        if (maxRetainedFailures < 0 || maxMessageLength < 0) {
+            throw new IllegalArgumentException("Limits must not be negative: maxRetainedFailures="
+                    + maxRetainedFailures + ", maxMessageLength=" + maxMessageLength);
+        }
+        this.maxRetainedFailures = maxRetainedFailures;
+        this.maxMessageLength = maxMessageLength;
+        configurationVersion++;
+    }
+
+    /**
+     * Sends the failures found by top-level comparisons to {@code sink} as they are found, in addition to keeping
+     * them in the result within the {@linkplain #setFailureLimits(int, int) failure limits}.
+     *
+     * @param sink where to send failures, or null (the default) to only keep them in the result
+     */
+    public void setFailureSink(FailureSink sink) {
+        this.failureSink = sink;
+        configurationVersion++;
+    }
+
+    /**
+     * Chooses whether the results of top-level comparisons record failing values as compact snapshots, so that
+     * retaining a result does not keep the compared documents reachable.
+     *
+     * @param detach true to record snapshots instead of values
+     * @see JSONCompareResult#setDetachValues(boolean)
+     */
+    public void setDetachFailureValues(boolean detach) {
+        this.detachFailureValues = detach;
+        configurationVersion++;
+    }
+
+    /**
+     * Registers a listener to be told about the work done by this comparator.
+     *
+     * @param listener the listener, or null (the default) to stop observing
+     */
+    public void setComparisonListener(ComparisonListener listener) {
+        this.listener = listener;
+        configurationVersion++;
+    }
+
+    /**
+     * @return the registered listener, or null if there is none
+     */
+    public ComparisonListener getComparisonListener() {
+        return listener;
+    }
+
+    /**
+     * Marks this comparator as giving, or not, the same result whenever it compares the same documents.  Comparators
+     * with value matchers that depend on anything but the compared values should be marked non-cacheable.
+     *
+     * @param cacheable false to keep results of this comparator out of caches
+     * @see #isCacheable()
+     */
+    public void setCacheable(boolean cacheable) {
+        this.cacheable = cacheable;
+        configurationVersion++;
+    }
+
+    /**
+     * Compares only a sample of the elements of large arrays.  Arrays of simple values that are not compared in
+     * strict order are always compared in full, since counting their values costs about as much as sampling them.
+     *
+     * @param sampling the sampling, or null (the default) to compare every element
+     */
+    public void setArraySampling(ArraySampling sampling) {
+        this.arraySampling = sampling;
+        configurationVersion++;
+    }
+
+    /**
+     * @return the array sampling, or null if every element is compared
+     */
+    public ArraySampling getArraySampling() {
+        return arraySampling;
+    }
+
+    /**
+     * Aligns arrays compared in strict order before comparing their elements, so that an element inserted into or
+     * removed from a long array is reported once, rather than as a difference at every position after it.  The
+     * elements are aligned with the fewest insertions and deletions, by the O(ND) algorithm of Myers, looking for at
+     * most {@code maxEdits} of them; both the time taken and the failures reported grow with the number of edits
+     * rather than with the length of the arrays.  Where an expected element was replaced, the two elements are
+     * compared in detail; other expected elements are reported missing, at their expected index, and other actual
+     * elements unexpected, at their actual index.  Arrays that differ by more than {@code maxEdits} insertions and
+     * deletions are compared position by position, as they are without alignment.
+     *
+     * @param maxEdits most insertions and deletions to look for, or 0 (the default) to compare position by position
+     */
+    public void setStrictOrderDiff(int maxEdits) {
+        if (maxEdits < 0) {
+            throw new IllegalArgumentException("maxEdits must not be negative: " + maxEdits);
+        }
+        this.strictOrderDiff = maxEdits;
+        configurationVersion++;
+    }
+
+    /**
+     * @return the most insertions and deletions looked for when aligning arrays compared in strict order, or 0 if
+     *         they are compared position by position
+     */
+    public int getStrictOrderDiff() {
+        return strictOrderDiff;
+    }
+
+    /**
+     * Writes, as top-level comparisons find differences, the operations of a JSON Patch that turns each expected
+     * document into the actual one: a value that differs is replaced, a missing member or element is removed and an
+     * unexpected one added.  Only the differences the comparison reports are patched, so with an extensible mode
+     * members found only in the actual document are not added.  Elements of arrays compared in strict order are
+     * patched one by one when the lengths are equal or the arrays are
+     * {@linkplain #setStrictOrderDiff(int) aligned}, and objects matched by unique key are patched at the index of
+     * the expected object; any other array that differs, and any node where a subclass or customization reports a
+     * difference at a path the comparator did not reach itself, is replaced as a whole.  A comparison that is
+     * {@linkplain JSONCompareResult#isInconclusive() inconclusive} leaves the patch incomplete.
+     *
+     * <p>The operations of successive comparisons go to the same patch, so a writer should only be used for
+     * one comparison at a time.</p>
+     *
+     * @param writer where to write the patch, or null (the default) to write none
+     */
+    public void setPatchWriter(JSONPatchWriter writer) {
+        this.patchWriter = writer;
+        configurationVersion++;
+    }
+
+    /**
+     * @return where top-level comparisons write their patch, or null if they write none
+     */
+    public JSONPatchWriter getPatchWriter() {
+        return patchWriter;
+    }
+
+    /**
+     * Results are not cacheable while a {@linkplain #setComparisonListener(ComparisonListener) listener},
+     * {@linkplain #setFailureSink(FailureSink) failure sink} or {@linkplain #setPatchWriter(JSONPatchWriter) patch
+     * writer} is registered, since a cached result would not reach them.
+     *
+     * @return true unless {@linkplain #setCacheable(boolean) marked otherwise} or observed
+     */
+    @Override
+    public boolean isCacheable() {
+        return cacheable && listener == null && failureSink == null && patchWriter == null;
+    }
+
+    /**
+     * @return a count of the calls to this comparator's setters, which a cache includes in its keys
+     */
+    @Override
+    public long getConfigurationVersion() {
+        return configurationVersion;
+    }
+
     /**
      * Compares JSONObject provided to the expected JSONObject, and returns the results of the comparison.
      *
@@ -44,8 +309,23 @@ public abstract class AbstractComparator implements JSONComparator {
      */
     @Override
     public final JSONCompareResult compareJSON(JSONObject expected, JSONObject actual) {
-        JSONCompareResult result = new JSONCompareResult();
-        compareJSON("", expected, actual, result);
+        JSONCompareResult result = newResult();
+        boolean topLevel = enterComparison(budget);
+        Object event = topLevel ? FlightRecorderEvents.beginComparison() : null;
+        try {
+            startPatch(topLevel, result, actual);
+            compareJSON("", expected, actual, result);
+            finishPatch(topLevel);
+        } catch (BudgetExhaustedException e) {
+            if (!topLevel) {
+                throw e;
+            }
+            result.inconclusive(e.getMessage());
+        } finally {
+            exitComparison(topLevel);
+        }
+        FlightRecorderEvents.endComparison(event, getClass().getName(), "", "object", expected.length(), actual.length(),
+                result);
         return result;
     }
 
@@ -57,11 +337,250 @@ public abstract class AbstractComparator implements JSONComparator {
      */
     @Override
     public final JSONCompareResult compareJSON(JSONArray expected, JSONArray actual) {
-        JSONCompareResult result = new JSONCompareResult();
-        compareJSONArray("", expected, actual, result);
+        JSONCompareResult result = newResult();
+        boolean topLevel = enterComparison(budget);
+        Object event = topLevel ? FlightRecorderEvents.beginComparison() : null;
+        try {
+            startPatch(topLevel, result, actual);
+            compareJSONArray("", expected, actual, result);
+            finishPatch(topLevel);
+        } catch (BudgetExhaustedException e) {
+            if (!topLevel) {
+                throw e;
+            }
+            result.inconclusive(e.getMessage());
+        } finally {
+            exitComparison(topLevel);
+        }
+        FlightRecorderEvents.endComparison(event, getClass().getName(), "", "array", expected.length(), actual.length(),
+                result);
+        return result;
+    }
+
+    private JSONCompareResult newResult() {
+        JSONCompareResult result = new JSONCompareResult(failureSink, maxRetainedFailures, maxMessageLength);
+        result.setDetachValues(detachFailureValues);
         return result;
     }
 
+    /**
+     * Opens a comparison context for the current thread unless one is already open, which is the case when a
+     * customization calls back into this comparator in the middle of a comparison.
+     *
+     * @param budget budget for the comparison if this call opens the context, or null
+     * @return true if this call opened the context and must close it
+     */
+    private boolean enterComparison(ComparisonBudget budget) {
+        if (context.get() != null) {
+            return false;
+        }
+        context.set(new ComparisonContext(budget));
+        return true;
+    }
+
+    private void startPatch(boolean topLevel, JSONCompareResult result, Object actual) {
+        if (topLevel && patchWriter != null) {
+            context.get().stack().startPatch(patchWriter, result, actual);
+        }
+    }
+
+    private void finishPatch(boolean topLevel) {
+        if (topLevel && patchWriter != null) {
+            context.get().stack().finishPatch();
+        }
+    }
+
+    /**
+     * Replaces the value at {@code path} in the patch being written for {@code result}, if any.
+     *
+     * @param path   path of the value, as reported in the failure
+     * @param actual the actual value
+     * @param result the result the failure was recorded in
+     */
+    final void patchReplaced(String path, Object actual, JSONCompareResult result) {
+        ComparisonContext ctx = context.get();
+        if (patchWriter != null && ctx != null) {
+            ctx.stack().replaced(path, actual, result);
+        }
+    }
+
+    private void patchMember(String prefix, String key, boolean added, Object value, JSONCompareResult result) {
+        ComparisonContext ctx = context.get();
+        if (patchWriter != null && ctx != null) {
+            ctx.stack().member(prefix, key, added, value, result);
+        }
+    }
+
+    private void exitComparison(boolean topLevel) {
+        if (topLevel) {
+            context.remove();
+        }
+    }
+
+    /**
+     * @return true if a class below the comparators of this package declares the method; CustomComparator only
+     *         overrides {@code compareValues()} in ways that do not depend on nested comparisons being over
+     */
+    private static boolean overrides(Class<?> type, String name, Class<?>... parameterTypes) {
+        for (Class<?> c = type; c != null && c != CustomComparator.class && c != DefaultComparator.class
+                && c != AbstractComparator.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod(name, parameterTypes);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // Not declared here, look further up
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param methods some of the {@code ..._COMPARISON} and {@link #KEY_CHECKS} flags
+     * @return true if the class of this comparator overrides any of the methods
+     */
+    final boolean overrides(int methods) {
+        return (OVERRIDES.get(getClass()) & methods) != 0;
+    }
+
+    /**
+     * Samples the positions of an expected array, unless the class only overrides the overload of the comparison
+     * to run that compares whole arrays, which could not honour a sample.
+     *
+     * @param sampled the {@code ..._COMPARISON} flag of the overload taking positions
+     * @param whole   the {@code WHOLE_..._COMPARISON} flag of the overload comparing whole arrays
+     * @return the positions to compare, or null to compare them all
+     */
+    final int[] samplePositions(String key, JSONArray expected, int sampled, int whole, JSONCompareResult result) {
+        if (overrides(whole) && !overrides(sampled)) {
+            return null;
+        }
+        return samplePositions(key, expected, result);
+    }
+
+    /**
+     * Matches array elements as a last resort, through the overload a subclass may have overridden: the one
+     * comparing whole arrays unless there is a sample to honour.
+     */
+    final void compareRecursively(String key, JSONArray expected, JSONArray actual, int[] positions,
+                                  JSONCompareResult result) {
+        if (positions == null || (overrides(WHOLE_RECURSIVE_COMPARISON) && !overrides(RECURSIVE_COMPARISON))) {
+            recursivelyCompareJSONArray(key, expected, actual, result);
+        } else {
+            recursivelyCompareJSONArray(key, expected, actual, positions, result);
+        }
+    }
+
+    /**
+     * Runs a frame on the stack of the comparison in progress, opening a comparison if there is none.
+     */
+    final void runFrame(ComparisonStack.Frame frame) {
+        boolean topLevel = enterComparison(null);
+        try {
+            context.get().stack().run(frame);
+        } finally {
+            exitComparison(topLevel);
+        }
+    }
+
+    /**
+     * @return true if a frame of the comparison in progress offered this pair of values, in which case the caller
+     *         must {@linkplain #pushFrame(ComparisonStack.Frame) push} the frame that compares them
+     */
+    final boolean claim(Object expected, Object actual) {
+        ComparisonContext ctx = context.get();
+        return ctx != null && ctx.stack().claim(expected, actual);
+    }
+
+    final void pushFrame(ComparisonStack.Frame frame) {
+        context.get().stack().push(frame);
+    }
+
+    /**
+     * Accounts for a visit to the node at {@code path} against the budget of the comparison in progress.
+     *
+     * @param path path of the node being visited
+     */
+    void visit(String path) {
+        ComparisonContext ctx = context.get();
+        if (ctx != null) {
+            ctx.visit(path);
+        }
+    }
+
+    private ArrayComparisonStrategy enterStrategy(ArrayComparisonStrategy strategy, String key, JSONArray expected,
+                                                  JSONArray actual) {
+        if (listener != null) {
+            listener.arrayStrategyEntered(key, strategy, expected.length(), actual.length());
+        }
+        ComparisonContext ctx = context.get();
+        return ctx == null ? null : ctx.enterStrategy(strategy);
+    }
+
+    private void exitStrategy(ArrayComparisonStrategy previous, ArrayComparisonStrategy strategy, String key) {
+        ComparisonContext ctx = context.get();
+        if (ctx != null) {
+            ctx.exitStrategy(previous);
+        }
+        if (listener != null) {
+            listener.arrayStrategyExited(key, strategy);
+        }
+    }
+
+    /**
+     * Returns the keys of an expected object, in the order they are compared.  This and the other
+     * {@code getExpected...} methods only depend on the expected document, so subclasses that compare one expected
+     * document many times may answer them from values computed once.
+     *
+     * @param expected an object of the expected document
+     * @return its keys, sorted
+     */
+    protected Set<String> getExpectedKeys(JSONObject expected) {
+        return getKeys(expected);
+    }
+
+    /**
+     * Chooses how an expected array is compared when order does not matter: by cardinality of
+     * {@link ArrayComparisonStrategy#SIMPLE_VALUES}, by {@link ArrayComparisonStrategy#UNIQUE_KEY} if it holds only
+     * objects (falling back if no key is usable), or {@link ArrayComparisonStrategy#RECURSIVE}ly.
+     *
+     * @param expected a non-empty array of the expected document
+     * @return the strategy to use
+     */
+    protected ArrayComparisonStrategy getUnorderedStrategy(JSONArray expected) {
+        if (allSimpleValues(expected)) {
+            return ArrayComparisonStrategy.SIMPLE_VALUES;
+        } else if (allJSONObjects(expected)) {
+            return ArrayComparisonStrategy.UNIQUE_KEY;
+        }
+        return ArrayComparisonStrategy.RECURSIVE;
+    }
+
+    /**
+     * @param expected a non-empty array of objects of the expected document
+     * @return a key whose value identifies each object of the array, or null if there is none
+     * @see JSONCompareUtil#findUniqueKey(JSONArray)
+     */
+    protected String getUniqueKey(JSONArray expected) {
+        return findUniqueKey(expected);
+    }
+
+    /**
+     * @param expected  an array of objects of the expected document
+     * @param uniqueKey its {@linkplain #getUniqueKey(JSONArray) unique key}
+     * @return its objects by the value of their unique key; the map must not be modified
+     */
+    protected Map<Object, JSONObject> getExpectedById(JSONArray expected, String uniqueKey) {
+        return arrayOfJsonObjectToMap(expected, uniqueKey);
+    }
+
+    /**
+     * @param expected an array of simple values of the expected document
+     * @return the number of occurrences of each value; the map must not be modified
+     */
+    protected Map<Object, Integer> getExpectedCardinalities(JSONArray expected) {
+        return getCardinalityMap(jsonArrayToList(expected));
+    }
+
     /**
      * @param prefix
      * @param expected
@@ -71,8 +590,9 @@ public abstract class AbstractComparator implements JSONComparator {
     protected void checkJsonObjectKeysActualInExpected(String prefix, JSONObject expected, JSONObject actual, JSONCompareResult result) {
         Set<String> actualKeys = getKeys(actual);
         for (String key : actualKeys) {
-            if (!expected.has(key)) {
+            if (!expected.has(key) && !isIgnored(qualify(prefix, key))) {
                 result.unexpected(prefix, key);
+                patchMember(prefix, key, true, actual.get(key), result);
             }
         }
     }
@@ -85,45 +605,98 @@ public abstract class AbstractComparator implements JSONComparator {
      * @param result
      */
     protected void checkJsonObjectKeysExpectedInActual(String prefix, JSONObject expected, JSONObject actual, JSONCompareResult result) {
-        Set<String> expectedKeys = getKeys(expected);
+        Set<String> expectedKeys = getExpectedKeys(expected);
         for (String key : expectedKeys) {
             Object expectedValue = expected.get(key);
             if (actual.has(key)) {
                 Object actualValue = actual.get(key);
                 compareValues(qualify(prefix, key), expectedValue, actualValue, result);
-            } else {
+            } else if (!isIgnored(qualify(prefix, key))) {
                 result.missing(prefix, key);
+                patchMember(prefix, key, false, null, result);
             }
         }
     }
 
+    /**
+     * Are the values at {@code path} ignored?  Ignored fields are not reported as missing or unexpected.
+     *
+     * @param path path of a value
+     * @return false, unless a subclass ignores some paths
+     */
+    protected boolean isIgnored(String path) {
+        return false;
+    }
+
+    /**
+     * Picks the positions of two arrays of the same length to compare under the
+     * {@linkplain #setArraySampling(ArraySampling) array sampling}, and records the sampling in the result.
+     *
+     * @param key      path of the arrays
+     * @param expected expected array
+     * @param result   result of the comparison
+     * @return the positions, ascending, or null to compare every element
+     */
+    protected int[] samplePositions(String key, JSONArray expected, JSONCompareResult result) {
+        if (arraySampling == null || !arraySampling.appliesTo(expected.length())) {
+            return null;
+        }
+        int[] positions = arraySampling.select(key, expected.length());
+        result.sampled(positions.length, expected.length());
+        return positions;
+    }
+
     protected void compareJSONArrayOfJsonObjects(String key, JSONArray expected, JSONArray actual, JSONCompareResult result) {
-        String uniqueKey = findUniqueKey(expected);
+        compareJSONArrayOfJsonObjects(key, expected, actual, null, result);
+    }
+
+    /**
+     * Compares arrays of objects by unique key, only matching the expected objects at the given positions.
+     *
+     * @param key       path of the arrays
+     * @param expected  expected array
+     * @param actual    actual array
+     * @param positions positions of the expected objects to match, ascending, or null for all of them
+     * @param result    result of the comparison
+     */
+    protected void compareJSONArrayOfJsonObjects(String key, JSONArray expected, JSONArray actual, int[] positions,
+                                                 JSONCompareResult result) {
+        ComparisonStack.Frame frame = uniqueKeyFrame(key, expected, actual, positions, result);
+        if (frame != null) {
+            runFrame(frame);
+        }
+    }
+
+    /**
+     * Starts the comparison of arrays of objects by unique key, falling back at once to
+     * {@link #recursivelyCompareJSONArray(String, JSONArray, JSONArray, int[], JSONCompareResult)} if there is no
+     * usable key.
+     *
+     * @return the frame that compares the objects, or null if the comparison is already done
+     */
+    final ComparisonStack.Frame uniqueKeyFrame(String key, JSONArray expected, JSONArray actual, int[] positions,
+                                               JSONCompareResult result) {
+        String uniqueKey = getUniqueKey(expected);
         if (uniqueKey == null || !isUsableAsUniqueKey(uniqueKey, actual)) {
             // An expensive last resort
-            recursivelyCompareJSONArray(key, expected, actual, result);
-            return;
-        }
-        Map<Object, JSONObject> expectedValueMap = arrayOfJsonObjectToMap(expected, uniqueKey);
-        Map<Object, JSONObject> actualValueMap = arrayOfJsonObjectToMap(actual, uniqueKey);
-        for (Object id : expectedValueMap.keySet()) {
-            if (!actualValueMap.containsKey(id)) {
-                result.missing(formatUniqueKey(key, uniqueKey, id), expectedValueMap.get(id));
-                continue;
-            }
-            JSONObject expectedValue = expectedValueMap.get(id);
-            JSONObject actualValue = actualValueMap.get(id);
-            compareValues(formatUniqueKey(key, uniqueKey, id), expectedValue, actualValue, result);
-        }
-        for (Object id : actualValueMap.keySet()) {
-            if (!expectedValueMap.containsKey(id)) {
-                result.unexpected(formatUniqueKey(key, uniqueKey, id), actualValueMap.get(id));
-            }
+            compareRecursively(key, expected, actual, positions, result);
+            return null;
         }
+        return new UniqueKeyFrame(key, uniqueKey, expected, actual, positions, result);
     }
 
     protected void compareJSONArrayOfSimpleValues(String key, JSONArray expected, JSONArray actual, JSONCompareResult result) {
-        Map<Object, Integer> expectedCount = JSONCompareUtil.getCardinalityMap(jsonArrayToList(expected));
+        ArrayComparisonStrategy previous = enterStrategy(ArrayComparisonStrategy.SIMPLE_VALUES, key, expected, actual);
+        try {
+            compareSimpleValueCardinalities(key, expected, actual, result);
+        } finally {
+            exitStrategy(previous, ArrayComparisonStrategy.SIMPLE_VALUES, key);
+        }
+    }
+
+    private void compareSimpleValueCardinalities(String key, JSONArray expected, JSONArray actual, JSONCompareResult result) {
+        visit(key + "[]");
+        Map<Object, Integer> expectedCount = getExpectedCardinalities(expected);
         Map<Object, Integer> actualCount = JSONCompareUtil.getCardinalityMap(jsonArrayToList(actual));
         for (Object o : expectedCount.keySet()) {
             if (!actualCount.containsKey(o)) {
@@ -141,24 +714,116 @@ public abstract class AbstractComparator implements JSONComparator {
     }
 
     protected void compareJSONArrayWithStrictOrder(String key, JSONArray expected, JSONArray actual, JSONCompareResult result) {
-        for (int i = 0; i < expected.length(); ++i) {
-            Object expectedValue = JSONCompareUtil.getObjectOrNull(expected, i);
-            Object actualValue = JSONCompareUtil.getObjectOrNull(actual, i);
-            compareValues(key + "[" + i + "]", expectedValue, actualValue, result);
+        compareJSONArrayWithStrictOrder(key, expected, actual, null, result);
+    }
+
+    /**
+     * Compares arrays in strict order, only at the given positions.
+     *
+     * @param key       path of the arrays
+     * @param expected  expected array
+     * @param actual    actual array
+     * @param positions positions to compare, ascending, or null for all of them
+     * @param result    result of the comparison
+     */
+    protected void compareJSONArrayWithStrictOrder(String key, JSONArray expected, JSONArray actual, int[] positions,
+                                                   JSONCompareResult result) {
+        runFrame(strictOrderFrame(key, expected, actual, positions, result));
+    }
+
+    final ComparisonStack.Frame strictOrderFrame(String key, JSONArray expected, JSONArray actual, int[] positions,
+                                                 JSONCompareResult result) {
+        return new StrictOrderFrame(key, expected, actual, positions, result);
+    }
+
+    /**
+     * Aligns arrays compared in strict order, within the {@linkplain #setStrictOrderDiff(int) edit limit}.
+     *
+     * @return the frame that reports the differences, or null if the arrays differ by more than the limit
+     */
+    final ComparisonStack.Frame diffFrame(final String key, final JSONArray expected, final JSONArray actual,
+                                          JSONCompareResult result) {
+        boolean topLevel = enterComparison(null);
+        try {
+            List<ArrayDiff.Hunk> hunks = ArrayDiff.diff(expected.length(), actual.length(), new ArrayDiff.Equality() {
+                @Override
+                public boolean equal(int expectedIndex, int actualIndex) {
+                    return probeElements(key + "[" + expectedIndex + "]",
+                            JSONCompareUtil.getObjectOrNull(expected, expectedIndex),
+                            JSONCompareUtil.getObjectOrNull(actual, actualIndex));
+                }
+            }, strictOrderDiff);
+            return hunks == null ? null : new DiffFrame(key, expected, actual, hunks, result);
+        } finally {
+            exitComparison(topLevel);
         }
     }
 
-    // This is expensive (O(n^2) -- yuck), but may be the only resort for some cases with loose array ordering, and no
-    // easy way to uniquely identify each element.
+    /**
+     * @return true if the elements compare equal
+     */
+    private boolean probeElements(String path, Object expectedElement, Object actualElement) {
+        if (expectedElement == actualElement) {
+            return true;
+        } else if (expectedElement == null || actualElement == null) {
+            return false;
+        }
+        // Only the outcome of a probe is used, so it need not keep any failure or message
+        JSONCompareResult probe = new JSONCompareResult(0, 0);
+        compareValues(path, expectedElement, actualElement, probe);
+        return probe.passed();
+    }
+
+    /**
+     * @param checkUnexpected true to also report keys of the actual object that are not expected
+     */
+    final ComparisonStack.Frame objectFrame(String prefix, JSONObject expected, JSONObject actual,
+                                            boolean checkUnexpected, JSONCompareResult result) {
+        return new ObjectFrame(prefix, expected, actual, checkUnexpected, result);
+    }
+
     // This is expensive (O(n^2) -- yuck), but may be the only resort for some cases with loose array ordering, and no
     // easy way to uniquely identify each element.
     protected void recursivelyCompareJSONArray(String key, JSONArray expected, JSONArray actual,
                                                JSONCompareResult result) {
+        recursivelyCompareJSONArray(key, expected, actual, null, result);
+    }
+
+    /**
+     * Matches each expected element at the given positions with an actual element, the last resort for arrays that
+     * are not compared in strict order.
+     *
+     * @param key       path of the arrays
+     * @param expected  expected array
+     * @param actual    actual array
+     * @param positions positions of the expected elements to match, ascending, or null for all of them
+     * @param result    result of the comparison
+     */
+    protected void recursivelyCompareJSONArray(String key, JSONArray expected, JSONArray actual, int[] positions,
+                                               JSONCompareResult result) {
+        boolean topLevel = enterComparison(null);
+        ArrayComparisonStrategy previous = enterStrategy(ArrayComparisonStrategy.RECURSIVE, key, expected, actual);
+        Object event = FlightRecorderEvents.beginArrayFallback();
+        try {
+            compareJSONArrayElementwise(key, expected, actual, positions, result);
+        } finally {
+            FlightRecorderEvents.endArrayFallback(event, key, expected.length(), actual.length());
+            exitStrategy(previous, ArrayComparisonStrategy.RECURSIVE, key);
+            exitComparison(topLevel);
+        }
+    }
+
+    private void compareJSONArrayElementwise(String key, JSONArray expected, JSONArray actual, int[] positions,
+                                             JSONCompareResult result) {
+        ComparisonContext ctx = context.get();
         Set<Integer> matched = new HashSet<Integer>();
-        for (int i = 0; i < expected.length(); ++i) {
+        int count = positions == null ? expected.length() : positions.length;
+        for (int n = 0; n < count; ++n) {
+            int i = positions == null ? n : positions[n];
             Object expectedElement = JSONCompareUtil.getObjectOrNull(expected, i);
             boolean matchFound = false;
             for (int j = 0; j < actual.length(); ++j) {
+                ctx.visit(key, i);
                 Object actualElement = JSONCompareUtil.getObjectOrNull(actual, j);
                 if (expectedElement == actualElement) {
                     matchFound = true;
@@ -167,17 +832,11 @@ public abstract class AbstractComparator implements JSONComparator {
                 if ((expectedElement == null && actualElement != null) || (expectedElement != null && actualElement == null)) {
                     continue;
                 }
-                if (matched.contains(j) || !actualElement.getClass().equals(expectedElement.getClass())) {
+                if (matched.contains(j) || !sameKind(expectedElement, actualElement)) {
                     continue;
                 }
-                if (expectedElement instanceof JSONObject) {
-                    if (compareJSON((JSONObject) expectedElement, (JSONObject) actualElement).passed()) {
-                        matched.add(j);
-                        matchFound = true;
-                        break;
-                    }
-                } else if (expectedElement instanceof JSONArray) {
-                    if (compareJSON((JSONArray) expectedElement, (JSONArray) actualElement).passed()) {
+                if (expectedElement instanceof JSONObject || expectedElement instanceof JSONArray) {
+                    if (subComparisonPassed(expectedElement, actualElement)) {
                         matched.add(j);
                         matchFound = true;
                         break;
@@ -189,9 +848,299 @@ public abstract class AbstractComparator implements JSONComparator {
                 }
             }
             if (!matchFound) {
-                result.fail(key + "[" + i + "] Could not find match for element " + expectedElement);
+                // Rendering the element can be costly, so only do it if the message has room for it
+                result.fail(result.isMessageFull() ? key + "[" + i + "]"
+                            : key + "[" + i + "] Could not find match for element " + expectedElement);
                 return;
             }
         }
     }
+
+    /**
+     * Objects and arrays are matched by kind rather than class, so that views of other tree models match plain
+     * org.json nodes.
+     */
+    private static boolean sameKind(Object expectedElement, Object actualElement) {
+        if (expectedElement instanceof JSONObject) {
+            return actualElement instanceof JSONObject;
+        } else if (expectedElement instanceof JSONArray) {
+            return actualElement instanceof JSONArray;
+        }
+        return actualElement.getClass().equals(expectedElement.getClass());
+    }
+
+    private boolean subComparisonPassed(Object expectedElement, Object actualElement) {
+        // Only the outcome of a probe is used, so it need not keep any failure or message
+        JSONCompareResult probe = new JSONCompareResult(0, 0);
+        if (expectedElement instanceof JSONObject) {
+            compareJSON("", (JSONObject) expectedElement, (JSONObject) actualElement, probe);
+        } else {
+            compareJSONArray("", (JSONArray) expectedElement, (JSONArray) actualElement, probe);
+        }
+        return probe.passed();
+    }
+
+    /**
+     * Compares the values of the expected keys of an object, as
+     * {@link #checkJsonObjectKeysExpectedInActual(String, JSONObject, JSONObject, JSONCompareResult)} does, then
+     * optionally looks for unexpected keys, as
+     * {@link #checkJsonObjectKeysActualInExpected(String, JSONObject, JSONObject, JSONCompareResult)} does.
+     */
+    private final class ObjectFrame extends ComparisonStack.Frame {
+        private final String prefix;
+        private final JSONObject expected;
+        private final JSONObject actual;
+        private final boolean checkUnexpected;
+        private final Iterator<String> expectedKeys;
+
+        ObjectFrame(String prefix, JSONObject expected, JSONObject actual, boolean checkUnexpected,
+                    JSONCompareResult result) {
+            super(prefix, actual, result);
+            this.prefix = prefix;
+            this.expected = expected;
+            this.actual = actual;
+            this.checkUnexpected = checkUnexpected;
+            this.expectedKeys = getExpectedKeys(expected).iterator();
+        }
+
+        @Override
+        boolean step(ComparisonStack stack) {
+            while (expectedKeys.hasNext()) {
+                String key = expectedKeys.next();
+                Object expectedValue = expected.get(key);
+                if (actual.has(key)) {
+                    if (compareChild(stack, AbstractComparator.this, qualify(prefix, key), key, expectedValue,
+                            actual.get(key))) {
+                        return true;
+                    }
+                } else if (!isIgnored(qualify(prefix, key))) {
+                    result.missing(prefix, key);
+                    removed(stack, key);
+                }
+            }
+            if (checkUnexpected) {
+                for (String key : getKeys(actual)) {
+                    if (!expected.has(key) && !isIgnored(qualify(prefix, key))) {
+                        result.unexpected(prefix, key);
+                        added(stack, key, actual.get(key));
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Compares arrays element by element.
+     */
+    private final class StrictOrderFrame extends ComparisonStack.Frame {
+        private final String key;
+        private final JSONArray expected;
+        private final JSONArray actual;
+        private final int[] positions;
+        private final int count;
+        private int n;
+        private ArrayComparisonStrategy previous;
+
+        StrictOrderFrame(String key, JSONArray expected, JSONArray actual, int[] positions,
+                         JSONCompareResult result) {
+            super(key, actual, result);
+            this.key = key;
+            this.expected = expected;
+            this.actual = actual;
+            this.positions = positions;
+            this.count = positions == null ? expected.length() : positions.length;
+        }
+
+        @Override
+        void enter() {
+            previous = enterStrategy(ArrayComparisonStrategy.STRICT_ORDER, key, expected, actual);
+        }
+
+        @Override
+        boolean step(ComparisonStack stack) {
+            while (n < count) {
+                int i = positions == null ? n : positions[n];
+                n++;
+                Object expectedValue = JSONCompareUtil.getObjectOrNull(expected, i);
+                Object actualValue = JSONCompareUtil.getObjectOrNull(actual, i);
+                if (compareChild(stack, AbstractComparator.this, key + "[" + i + "]", i, expectedValue,
+                        actualValue)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        void exit() {
+            exitStrategy(previous, ArrayComparisonStrategy.STRICT_ORDER, key);
+        }
+    }
+
+    /**
+     * Compares arrays of objects by unique key, matching all the expected objects or only those at the given
+     * positions.  Looking ids up is cheap next to comparing the objects, so unexpected ids are always all reported.
+     */
+    private final class UniqueKeyFrame extends ComparisonStack.Frame {
+        private final String key;
+        private final String uniqueKey;
+        private final JSONArray expected;
+        private final JSONArray actual;
+        private final int[] positions;
+        private Map<Object, JSONObject> expectedValueMap;
+        private Map<Object, JSONObject> actualValueMap;
+        private Iterator<Object> ids;
+        private int n;
+        private ArrayComparisonStrategy previous;
+        // Expected indexes of the objects by id, and of the missing objects, while patching
+        private Map<Object, Integer> expectedIndexes;
+        private List<Integer> removedIndexes;
+
+        UniqueKeyFrame(String key, String uniqueKey, JSONArray expected, JSONArray actual, int[] positions,
+                       JSONCompareResult result) {
+            super(key, actual, result);
+            this.key = key;
+            this.uniqueKey = uniqueKey;
+            this.expected = expected;
+            this.actual = actual;
+            this.positions = positions;
+        }
+
+        @Override
+        void enter() {
+            previous = enterStrategy(ArrayComparisonStrategy.UNIQUE_KEY, key, expected, actual);
+            expectedValueMap = getExpectedById(expected, uniqueKey);
+            actualValueMap = arrayOfJsonObjectToMap(actual, uniqueKey);
+            ids = expectedValueMap.keySet().iterator();
+        }
+
+        private int expectedIndex(Object id) {
+            if (expectedIndexes == null) {
+                expectedIndexes = new HashMap<Object, Integer>();
+                for (int i = 0; i < expected.length(); i++) {
+                    expectedIndexes.put(expected.getJSONObject(i).get(uniqueKey), i);
+                }
+            }
+            return expectedIndexes.get(id);
+        }
+
+        @Override
+        boolean step(ComparisonStack stack) {
+            while (positions == null ? ids.hasNext() : n < positions.length) {
+                Object id;
+                JSONObject expectedValue;
+                int index = -1;
+                if (positions == null) {
+                    id = ids.next();
+                    expectedValue = expectedValueMap.get(id);
+                } else {
+                    index = positions[n++];
+                    expectedValue = (JSONObject) expected.get(index);
+                    id = expectedValue.get(uniqueKey);
+                }
+                if (index < 0 && isPatching(stack)) {
+                    index = expectedIndex(id);
+                }
+                JSONObject actualValue = actualValueMap.get(id);
+                if (actualValue == null) {
+                    result.missing(formatUniqueKey(key, uniqueKey, id), expectedValue);
+                    if (isPatching(stack)) {
+                        if (removedIndexes == null) {
+                            removedIndexes = new ArrayList<Integer>();
+                        }
+                        removedIndexes.add(index);
+                    }
+                } else if (compareChild(stack, AbstractComparator.this, formatUniqueKey(key, uniqueKey, id), index,
+                        expectedValue, actualValue)) {
+                    return true;
+                }
+            }
+            for (Object id : actualValueMap.keySet()) {
+                if (!expectedValueMap.containsKey(id)) {
+                    result.unexpected(formatUniqueKey(key, uniqueKey, id), actualValueMap.get(id));
+                    added(stack, "-", actualValueMap.get(id));
+                }
+            }
+            if (removedIndexes != null) {
+                // Removing from the end first leaves the indexes of the other objects as they were
+                Collections.sort(removedIndexes, Collections.<Integer>reverseOrder());
+                for (int index : removedIndexes) {
+                    removed(stack, index);
+                }
+            }
+            return false;
+        }
+
+        @Override
+        void exit() {
+            exitStrategy(previous, ArrayComparisonStrategy.UNIQUE_KEY, key);
+        }
+    }
+
+    /**
+     * Reports the differences between aligned arrays, hunk by hunk: replaced elements are compared in detail, then
+     * the remaining expected elements of the hunk reported missing and the remaining actual elements unexpected.
+     */
+    private final class DiffFrame extends ComparisonStack.Frame {
+        private final String key;
+        private final JSONArray expected;
+        private final JSONArray actual;
+        private final Iterator<ArrayDiff.Hunk> hunks;
+        private ArrayDiff.Hunk hunk;
+        private int replaced;
+        private ArrayComparisonStrategy previous;
+
+        DiffFrame(String key, JSONArray expected, JSONArray actual, List<ArrayDiff.Hunk> hunks,
+                  JSONCompareResult result) {
+            super(key, actual, result);
+            this.key = key;
+            this.expected = expected;
+            this.actual = actual;
+            this.hunks = hunks.iterator();
+        }
+
+        @Override
+        void enter() {
+            previous = enterStrategy(ArrayComparisonStrategy.STRICT_ORDER, key, expected, actual);
+        }
+
+        @Override
+        boolean step(ComparisonStack stack) {
+            while (hunk != null || hunks.hasNext()) {
+                if (hunk == null) {
+                    hunk = hunks.next();
+                    replaced = 0;
+                }
+                int replacements = Math.min(hunk.expectedEnd - hunk.expectedStart, hunk.actualEnd - hunk.actualStart);
+                if (replaced < replacements) {
+                    int i = hunk.expectedStart + replaced;
+                    int j = hunk.actualStart + replaced;
+                    replaced++;
+                    if (compareChild(stack, AbstractComparator.this, key + "[" + i + "]", j,
+                            JSONCompareUtil.getObjectOrNull(expected, i), JSONCompareUtil.getObjectOrNull(actual, j))) {
+                        return true;
+                    }
+                    continue;
+                }
+                // Patched hunk by hunk, the elements before the hunk already are the actual ones
+                int position = hunk.actualStart + replacements;
+                for (int i = hunk.expectedStart + replacements; i < hunk.expectedEnd; i++) {
+                    result.missing(key + "[" + i + "]", JSONCompareUtil.getObjectOrNull(expected, i));
+                    removed(stack, position);
+                }
+                for (int j = hunk.actualStart + replacements; j < hunk.actualEnd; j++) {
+                    result.unexpected(key + "[" + j + "]", JSONCompareUtil.getObjectOrNull(actual, j));
+                    added(stack, j, JSONCompareUtil.getObjectOrNull(actual, j));
+                }
+                hunk = null;
+            }
+            return false;
+        }
+
+        @Override
+        void exit() {
+            exitStrategy(previous, ArrayComparisonStrategy.STRICT_ORDER, key);
+        }
+    }
 }
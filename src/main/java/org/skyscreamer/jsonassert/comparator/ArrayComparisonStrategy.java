@@ -0,0 +1,37 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.comparator;
+
+/**
+ * The ways {@link AbstractComparator} can match the elements of two JSON arrays.
+ */
+public enum ArrayComparisonStrategy {
+    /**
+     * Elements compared position by position.
+     */
+    STRICT_ORDER,
+    /**
+     * Arrays of simple values compared as multisets.
+     */
+    SIMPLE_VALUES,
+    /**
+     * Arrays of objects matched up by a field that is unique in every element.
+     */
+    UNIQUE_KEY,
+    /**
+     * Every expected element tried against every actual element; the expensive last resort.
+     */
+    RECURSIVE
+}
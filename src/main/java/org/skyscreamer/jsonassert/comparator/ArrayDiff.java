@@ -0,0 +1,160 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.comparator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Aligns two sequences with the fewest insertions and deletions, by the O(ND) algorithm of Eugene W. Myers ("An
+ * O(ND) Difference Algorithm and Its Variations", Algorithmica 1, 1986).  The search is bounded by a number of edits
+ * D, so it costs O((N + M) D) comparisons of elements and O(D<sup>2</sup>) memory, and gives up on sequences that
+ * differ by more.  No pair of elements is compared twice.
+ */
+final class ArrayDiff {
+    private ArrayDiff() {
+    }
+
+    /**
+     * Tells whether an element of the expected sequence equals one of the actual sequence.
+     */
+    interface Equality {
+        boolean equal(int expectedIndex, int actualIndex);
+    }
+
+    /**
+     * A region where the sequences differ: expected elements {@code [expectedStart, expectedEnd)} are replaced by
+     * actual elements {@code [actualStart, actualEnd)}.  Either range may be empty.
+     */
+    static final class Hunk {
+        final int expectedStart;
+        final int actualStart;
+        int expectedEnd;
+        int actualEnd;
+
+        Hunk(int expectedIndex, int actualIndex) {
+            this.expectedStart = expectedIndex;
+            this.actualStart = actualIndex;
+            this.expectedEnd = expectedIndex;
+            this.actualEnd = actualIndex;
+        }
+    }
+
+    /**
+     * @param expectedLength length of the expected sequence
+     * @param actualLength   length of the actual sequence
+     * @param equality       compares elements
+     * @param maxEdits       most insertions and deletions to look for
+     * @return the regions where the sequences differ, in order, or null if they differ by more than
+     *         {@code maxEdits} insertions and deletions
+     */
+    static List<Hunk> diff(int expectedLength, int actualLength, Equality equality, int maxEdits) {
+        int start = 0;
+        while (start < expectedLength && start < actualLength && equality.equal(start, start)) {
+            start++;
+        }
+        int expectedEnd = expectedLength;
+        int actualEnd = actualLength;
+        while (expectedEnd > start && actualEnd > start && equality.equal(expectedEnd - 1, actualEnd - 1)) {
+            expectedEnd--;
+            actualEnd--;
+        }
+        int n = expectedEnd - start;
+        int m = actualEnd - start;
+        if (n + m == 0) {
+            return Collections.emptyList();
+        }
+        if (Math.abs(n - m) > maxEdits) {
+            return null;
+        }
+        int max = Math.min(n + m, maxEdits);
+        int offset = max + 1;
+        // v[offset + k] is the furthest x reached on diagonal k = x - y
+        int[] v = new int[2 * max + 3];
+        // Where the last snake along each diagonal stopped at unequal elements, or -1.  The furthest point reached on
+        // a diagonal never moves back, so later snakes along it can only compare that pair again.
+        int[] unequal = new int[v.length];
+        Arrays.fill(unequal, -1);
+        // Trimming stopped at unequal first and last elements
+        unequal[offset] = 0;
+        List<int[]> trace = new ArrayList<int[]>();
+        for (int d = 0; d <= max; d++) {
+            trace.add(v.clone());
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+                    x = v[offset + k + 1];
+                } else {
+                    x = v[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                while (x < n && y < m && x != unequal[offset + k] && (x != n - 1 || y != m - 1)) {
+                    if (!equality.equal(start + x, start + y)) {
+                        unequal[offset + k] = x;
+                        break;
+                    }
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    return hunks(trace, offset, d, n, m, start);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Walks back from the end through the furthest points of each step, collecting the edits into hunks.
+     */
+    private static List<Hunk> hunks(List<int[]> trace, int offset, int edits, int n, int m, int start) {
+        // Positions (x, y) before each edit, and whether it is a deletion, from the last edit to the first
+        int[] xs = new int[edits];
+        int[] ys = new int[edits];
+        boolean[] deletions = new boolean[edits];
+        int x = n;
+        int y = m;
+        for (int d = edits; d > 0; d--) {
+            int[] v = trace.get(d);
+            int k = x - y;
+            boolean insertion = k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1]);
+            int previousK = insertion ? k + 1 : k - 1;
+            int previousX = v[offset + previousK];
+            int previousY = previousX - previousK;
+            xs[d - 1] = previousX;
+            ys[d - 1] = previousY;
+            deletions[d - 1] = !insertion;
+            x = previousX;
+            y = previousY;
+        }
+        List<Hunk> hunks = new ArrayList<Hunk>();
+        Hunk hunk = null;
+        for (int i = 0; i < edits; i++) {
+            if (hunk == null || hunk.expectedEnd != start + xs[i] || hunk.actualEnd != start + ys[i]) {
+                hunk = new Hunk(start + xs[i], start + ys[i]);
+                hunks.add(hunk);
+            }
+            if (deletions[i]) {
+                hunk.expectedEnd++;
+            } else {
+                hunk.actualEnd++;
+            }
+        }
+        return hunks;
+    }
+}
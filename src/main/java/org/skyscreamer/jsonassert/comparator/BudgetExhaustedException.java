@@ -0,0 +1,28 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.comparator;
+
+/**
+ * Unwinds a comparison whose {@link org.skyscreamer.jsonassert.ComparisonBudget} has run out.  Never escapes
+ * {@link AbstractComparator}: the top-level call catches it and marks its result inconclusive.
+ */
+final class BudgetExhaustedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    BudgetExhaustedException(String message) {
+        // Thrown on a hot path to unwind a deep recursion; the stack trace would be both costly and useless
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.comparator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.skyscreamer.jsonassert.ComparisonBudget;
+
+/**
+ * State shared by all the nested comparisons performed on behalf of one top-level comparison.
+ * A context lives only as long as the top-level call that created it and is confined to one thread.
+ */
+final class ComparisonContext {
+    // Reading the clock and the interrupt flag on every visit would dominate cheap visits
+    private static final int CLOCK_CHECK_INTERVAL = 1024;
+
+    private final ComparisonBudget budget;
+    private final long deadline;
+    private long nodeVisits;
+    private ArrayComparisonStrategy strategy;
+    private ComparisonStack stack;
+
+    /**
+     * @param budget budget to enforce, or null to let the comparison run to completion
+     */
+    ComparisonContext(ComparisonBudget budget) {
+        this.budget = budget;
+        this.deadline = budget == null || budget.getTimeoutNanos() == Long.MAX_VALUE
+                ? Long.MAX_VALUE : System.nanoTime() + budget.getTimeoutNanos();
+    }
+
+    /**
+     * Accounts for a visit to the node at {@code path}.
+     *
+     * @param path path of the node being visited
+     * @throws BudgetExhaustedException if the budget does not allow the visit
+     */
+    void visit(String path) {
+        visit(path, -1);
+    }
+
+    /**
+     * Accounts for a visit to the array element at {@code key[index]}, building the path only if it is reported.
+     *
+     * @param key   path of the array
+     * @param index index of the element, or -1 if {@code key} is the path of the node itself
+     * @throws BudgetExhaustedException if the budget does not allow the visit
+     */
+    void visit(String key, int index) {
+        if (budget == null) {
+            return;
+        }
+        if (++nodeVisits > budget.getMaxNodeVisits()) {
+            throw exhausted("node visit budget of " + budget.getMaxNodeVisits() + " exhausted", key, index);
+        }
+        if (nodeVisits % CLOCK_CHECK_INTERVAL == 0) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw exhausted("thread interrupted", key, index);
+            }
+            if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0) {
+                throw exhausted("time budget of " + TimeUnit.NANOSECONDS.toMillis(budget.getTimeoutNanos())
+                        + "ms exhausted", key, index);
+            }
+        }
+    }
+
+    private BudgetExhaustedException exhausted(String reason, String key, int index) {
+        StringBuilder message = new StringBuilder("Comparison inconclusive: ").append(reason)
+                .append(" after ").append(nodeVisits).append(" node visits at '").append(key);
+        if (index >= 0) {
+            message.append('[').append(index).append(']');
+        }
+        message.append("'");
+        if (strategy != null) {
+            message.append(" while comparing arrays by ").append(strategy);
+        }
+        return new BudgetExhaustedException(message.toString());
+    }
+
+    /**
+     * Records that arrays are now being compared with {@code strategy}.
+     *
+     * @param strategy the strategy being entered
+     * @return the strategy that was in use before, to be passed to {@link #exitStrategy(ArrayComparisonStrategy)}
+     */
+    ArrayComparisonStrategy enterStrategy(ArrayComparisonStrategy strategy) {
+        ArrayComparisonStrategy previous = this.strategy;
+        this.strategy = strategy;
+        return previous;
+    }
+
+    void exitStrategy(ArrayComparisonStrategy previous) {
+        this.strategy = previous;
+    }
+
+    /**
+     * @return the stack of the objects and arrays being compared
+     */
+    ComparisonStack stack() {
+        if (stack == null) {
+            stack = new ComparisonStack();
+        }
+        return stack;
+    }
+}
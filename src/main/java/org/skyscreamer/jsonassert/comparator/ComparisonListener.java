@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.comparator;
+
+import org.skyscreamer.jsonassert.Customization;
+
+/**
+ * <p>Observes the work done by an {@link AbstractComparator}.  Register one with
+ * {@link AbstractComparator#setComparisonListener(ComparisonListener)}; every method has an empty default, so
+ * implementations only override the events they need.</p>
+ *
+ * <p>Listeners are called synchronously on the comparing thread, from inside the comparison, so they should be
+ * cheap.  A comparator shared between threads calls its listener concurrently.</p>
+ *
+ * <p>Paths passed to the listener are those used in failure messages.  Sub-comparisons made by the
+ * {@linkplain ArrayComparisonStrategy#RECURSIVE recursive} strategy to find a matching element restart at the
+ * empty path.</p>
+ *
+ * @see ComparisonStatistics
+ */
+public interface ComparisonListener {
+
+    /**
+     * Called before a pair of values is compared.
+     *
+     * @param path          path of the values
+     * @param expectedValue the expected value
+     * @param actualValue   the actual value
+     */
+    default void nodeEntered(String path, Object expectedValue, Object actualValue) {
+    }
+
+    /**
+     * Called once a pair of values, including everything beneath them, has been compared.
+     *
+     * @param path   path of the values
+     * @param passed false if the comparison of the values or of anything beneath them failed
+     */
+    default void nodeExited(String path, boolean passed) {
+    }
+
+    /**
+     * Called when two arrays of equal length start being compared.
+     *
+     * @param path           path of the arrays
+     * @param strategy       how the elements will be matched up
+     * @param expectedLength length of the expected array
+     * @param actualLength   length of the actual array
+     */
+    default void arrayStrategyEntered(String path, ArrayComparisonStrategy strategy, int expectedLength,
+                                      int actualLength) {
+    }
+
+    /**
+     * Called when the comparison of two arrays with {@code strategy} has finished.
+     *
+     * @param path     path of the arrays
+     * @param strategy the strategy that was used
+     */
+    default void arrayStrategyExited(String path, ArrayComparisonStrategy strategy) {
+    }
+
+    /**
+     * Called when a {@link Customization} has decided whether a pair of values match.
+     *
+     * @param path          path of the values
+     * @param customization the customization applying to {@code path}
+     * @param matched       whether the values matched
+     */
+    default void customizationApplied(String path, Customization customization, boolean matched) {
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.comparator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.skyscreamer.jsonassert.JSONCompareResult;
+import org.skyscreamer.jsonassert.JSONPatchWriter;
+
+/**
+ * <p>Explicit stack of the objects and arrays being compared, so that the depth of the compared documents does not
+ * bound the depth of the Java stack.  Each frame compares the children of one object or array, one child per step.
+ * A child that is itself an object or array is not compared by a nested call: its frame is pushed and runs to
+ * completion before the parent takes its next step, so failures are found in the same order as by recursion.</p>
+ *
+ * <p>A frame hands a child to {@code compareValues()} and it is up to the comparator to push a frame for it.  It may
+ * only do so for the very pair of values the frame {@linkplain #offer(Object, Object) offered}: a subclass or value
+ * matcher that compares other values inside {@code compareValues()} gets the result of that comparison before the
+ * call returns, as it would with recursion.</p>
+ *
+ * <p>While a {@linkplain #startPatch(JSONPatchWriter, JSONCompareResult, Object) patch} is written, the stack also
+ * tracks the JSON Pointer of the node being compared.  A difference that cannot be located, because it is reported at
+ * a path the stack did not reach itself, marks the innermost frame, which then replaces its whole node once done.</p>
+ */
+final class ComparisonStack {
+    private final List<Frame> frames = new ArrayList<Frame>();
+    private Object offeredExpected;
+    private Object offeredActual;
+    private JSONPatchWriter patchWriter;
+    private JSONCompareResult patchResult;
+    private Object patchActual;
+    private boolean replaceDocument;
+    private String nodePath;
+    private String nodePointer;
+
+    /**
+     * Runs a frame, and the frames it pushes, to completion.  Frames already on the stack are left alone, so runs
+     * may nest.
+     *
+     * @param frame the frame to run
+     */
+    void run(Frame frame) {
+        int base = frames.size();
+        Object savedExpected = offeredExpected;
+        Object savedActual = offeredActual;
+        String savedPath = nodePath;
+        String savedPointer = nodePointer;
+        offer(null, null);
+        try {
+            push(frame);
+            while (frames.size() > base) {
+                int top = frames.size() - 1;
+                Frame current = frames.get(top);
+                nodePath = current.path;
+                nodePointer = current.pointer;
+                if (!current.step(this)) {
+                    frames.remove(top);
+                    current.close();
+                    if (current.replace) {
+                        replaced(current.pointer, current.actual);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            unwind(base);
+            throw e;
+        } catch (Error e) {
+            unwind(base);
+            throw e;
+        } finally {
+            offer(savedExpected, savedActual);
+            nodePath = savedPath;
+            nodePointer = savedPointer;
+        }
+    }
+
+    private void unwind(int base) {
+        while (frames.size() > base) {
+            Frame frame = frames.remove(frames.size() - 1);
+            try {
+                frame.close();
+            } catch (RuntimeException suppressed) {
+                // The first failure is the one reported
+            }
+        }
+    }
+
+    /**
+     * @return number of frames on the stack
+     */
+    int size() {
+        return frames.size();
+    }
+
+    /**
+     * Pushes the frame of a child, to run before the frame that compares it takes its next step.
+     */
+    void push(Frame frame) {
+        if (patchWriter != null && frame.path.equals(nodePath)) {
+            frame.pointer = nodePointer;
+        }
+        frames.add(frame);
+        frame.enter();
+    }
+
+    /**
+     * Lets the comparator push a frame for the next pair of values it compares, if it is this pair.
+     */
+    void offer(Object expected, Object actual) {
+        offeredExpected = expected;
+        offeredActual = actual;
+    }
+
+    /**
+     * @return true if the pair was offered, in which case the caller must compare it by pushing a frame
+     */
+    boolean claim(Object expected, Object actual) {
+        if (expected == null || expected != offeredExpected || actual != offeredActual) {
+            return false;
+        }
+        offer(null, null);
+        return true;
+    }
+
+    /**
+     * Writes the differences found from now on for {@code result} as operations of a patch.
+     *
+     * @param writer where to write the operations
+     * @param result the result of the top-level comparison
+     * @param actual the actual document
+     */
+    void startPatch(JSONPatchWriter writer, JSONCompareResult result, Object actual) {
+        patchWriter = writer;
+        patchResult = result;
+        patchActual = actual;
+        replaceDocument = false;
+        nodePath = "";
+        nodePointer = "";
+    }
+
+    /**
+     * Writes the replacement of the whole document if a difference could not be located in it.
+     */
+    void finishPatch() {
+        if (replaceDocument) {
+            patchWriter.replace("", patchActual);
+        }
+        patchWriter = null;
+        patchResult = null;
+        patchActual = null;
+    }
+
+    private boolean isPatching(JSONCompareResult result) {
+        return patchWriter != null && result == patchResult;
+    }
+
+    /**
+     * The value at {@code path} was replaced by {@code actual}.
+     */
+    void replaced(String path, Object actual, JSONCompareResult result) {
+        if (isPatching(result)) {
+            replaced(path.equals(nodePath) ? nodePointer : null, actual);
+        }
+    }
+
+    private void replaced(String pointer, Object actual) {
+        if (pointer != null) {
+            patchWriter.replace(pointer, actual);
+        } else if (frames.isEmpty()) {
+            replaceDocument = true;
+        } else {
+            frames.get(frames.size() - 1).replace = true;
+        }
+    }
+
+    /**
+     * The member {@code key} of the object at {@code path} was removed, or added with {@code value} if
+     * {@code added}.
+     */
+    void member(String path, String key, boolean added, Object value, JSONCompareResult result) {
+        if (!isPatching(result)) {
+            return;
+        }
+        String pointer = path.equals(nodePath) ? nodePointer : null;
+        if (pointer == null) {
+            replaced(null, null);
+        } else if (added) {
+            patchWriter.add(child(pointer, key), value);
+        } else {
+            patchWriter.remove(child(pointer, key));
+        }
+    }
+
+    private static String child(String pointer, Object token) {
+        String s = token.toString();
+        if (s.indexOf('~') >= 0 || s.indexOf('/') >= 0) {
+            s = s.replace("~", "~0").replace("/", "~1");
+        }
+        return pointer + "/" + s;
+    }
+
+    /**
+     * The comparison of the children of one object or array.
+     */
+    abstract static class Frame {
+        final String path;
+        final Object actual;
+        final JSONCompareResult result;
+        private String pointer;
+        private boolean replace;
+        private ComparisonListener exitListener;
+        private String exitPath;
+        private int exitFailureCount;
+
+        /**
+         * @param path   path of the object or array compared
+         * @param actual the actual object or array, which replaces the expected one in a patch if a difference
+         *               beneath it cannot be located
+         * @param result where to record failures
+         */
+        Frame(String path, Object actual, JSONCompareResult result) {
+            this.path = path;
+            this.actual = actual;
+            this.result = result;
+        }
+
+        /**
+         * @return true if a patch is being written for the comparison of this frame
+         */
+        final boolean isPatching(ComparisonStack stack) {
+            return stack.isPatching(result);
+        }
+
+        /**
+         * Adds a child of the node of this frame to the patch being written, if any.
+         *
+         * @param token name or index of the child, or {@code -} to append to an array
+         */
+        final void added(ComparisonStack stack, Object token, Object value) {
+            if (!stack.isPatching(result)) {
+                return;
+            }
+            if (pointer == null) {
+                replace = true;
+            } else {
+                stack.patchWriter.add(child(pointer, token), value);
+            }
+        }
+
+        /**
+         * Removes a child of the node of this frame in the patch being written, if any.
+         *
+         * @param token name or index of the child
+         */
+        final void removed(ComparisonStack stack, Object token) {
+            if (!stack.isPatching(result)) {
+                return;
+            }
+            if (pointer == null) {
+                replace = true;
+            } else {
+                stack.patchWriter.remove(child(pointer, token));
+            }
+        }
+
+        /**
+         * Compares children until one of them pushes a frame, or all have been compared.
+         *
+         * @param stack the stack the frame is on
+         * @return false once the frame is done
+         */
+        abstract boolean step(ComparisonStack stack);
+
+        /**
+         * Called once when the frame is put on the stack.
+         */
+        void enter() {
+        }
+
+        /**
+         * Called once when the frame leaves the stack, whether done or not.
+         */
+        void exit() {
+        }
+
+        /**
+         * Tells a listener when the frame leaves the stack that the node it compares has been exited.
+         */
+        void exitNode(ComparisonListener listener, String path, int failureCount) {
+            exitListener = listener;
+            exitPath = path;
+            exitFailureCount = failureCount;
+        }
+
+        final void close() {
+            try {
+                exit();
+            } finally {
+                if (exitListener != null) {
+                    exitListener.nodeExited(exitPath, result.getFailureCount() == exitFailureCount);
+                }
+            }
+        }
+
+        /**
+         * Compares one child, offering it to be pushed.
+         *
+         * @param token name or index of the child in the node of this frame, as it appears in a patch
+         * @return true if the child pushed a frame, so the step must end
+         */
+        final boolean compareChild(ComparisonStack stack, AbstractComparator comparator, String path, Object token,
+                                   Object expected, Object actual) {
+            int size = stack.size();
+            stack.offer(expected, actual);
+            if (stack.patchWriter != null) {
+                stack.nodePath = path;
+                stack.nodePointer = pointer == null ? null : child(pointer, token);
+            }
+            try {
+                comparator.compareValues(path, expected, actual, result);
+            } finally {
+                stack.offer(null, null);
+                stack.nodePath = this.path;
+                stack.nodePointer = pointer;
+            }
+            return stack.size() > size;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.comparator;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.skyscreamer.jsonassert.Customization;
+
+/**
+ * <p>{@link ComparisonListener} that totals the work done by a comparator: nodes visited, nesting depth, how often
+ * and for how long each {@link ArrayComparisonStrategy} ran, and how customizations fared.</p>
+ *
+ * <pre>
+ * ComparisonStatistics statistics = new ComparisonStatistics();
+ * comparator.setComparisonListener(statistics);
+ * JSONCompare.compareJSON(expected, actual, comparator);
+ * System.out.println(statistics);
+ * </pre>
+ *
+ * <p>Statistics accumulate over every comparison until {@link #reset()}.  Instances are not thread-safe; give each
+ * thread its own comparator and collector.  Strategy times are inclusive, so the time of a strategy includes that
+ * of any strategy nested inside it.</p>
+ */
+public class ComparisonStatistics implements ComparisonListener {
+    private final Map<ArrayComparisonStrategy, long[]> strategyCounts =
+            new EnumMap<ArrayComparisonStrategy, long[]>(ArrayComparisonStrategy.class);
+    private final Map<ArrayComparisonStrategy, long[]> strategyNanos =
+            new EnumMap<ArrayComparisonStrategy, long[]>(ArrayComparisonStrategy.class);
+    private final Deque<Long> strategyStarts = new ArrayDeque<Long>();
+    private long nodesVisited;
+    private long nodesFailed;
+    private int depth;
+    private int maxDepth;
+    private long customizationHits;
+    private long customizationFailures;
+
+    public ComparisonStatistics() {
+        reset();
+    }
+
+    @Override
+    public void nodeEntered(String path, Object expectedValue, Object actualValue) {
+        nodesVisited++;
+        if (++depth > maxDepth) {
+            maxDepth = depth;
+        }
+    }
+
+    @Override
+    public void nodeExited(String path, boolean passed) {
+        depth--;
+        if (!passed) {
+            nodesFailed++;
+        }
+    }
+
+    @Override
+    public void arrayStrategyEntered(String path, ArrayComparisonStrategy strategy, int expectedLength,
+                                     int actualLength) {
+        strategyCounts.get(strategy)[0]++;
+        strategyStarts.push(System.nanoTime());
+    }
+
+    @Override
+    public void arrayStrategyExited(String path, ArrayComparisonStrategy strategy) {
+        strategyNanos.get(strategy)[0] += System.nanoTime() - strategyStarts.pop();
+    }
+
+    @Override
+    public void customizationApplied(String path, Customization customization, boolean matched) {
+        customizationHits++;
+        if (!matched) {
+            customizationFailures++;
+        }
+    }
+
+    /**
+     * Discards everything collected so far.
+     */
+    public void reset() {
+        for (ArrayComparisonStrategy strategy : ArrayComparisonStrategy.values()) {
+            strategyCounts.put(strategy, new long[1]);
+            strategyNanos.put(strategy, new long[1]);
+        }
+        strategyStarts.clear();
+        nodesVisited = 0;
+        nodesFailed = 0;
+        depth = 0;
+        maxDepth = 0;
+        customizationHits = 0;
+        customizationFailures = 0;
+    }
+
+    /**
+     * @return number of pairs of values compared
+     */
+    public long getNodesVisited() {
+        return nodesVisited;
+    }
+
+    /**
+     * @return number of pairs of values whose comparison failed, counting each failing ancestor too
+     */
+    public long getNodesFailed() {
+        return nodesFailed;
+    }
+
+    /**
+     * @return deepest nesting of values compared
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @param strategy an array comparison strategy
+     * @return number of times arrays were compared with {@code strategy}
+     */
+    public long getStrategyCount(ArrayComparisonStrategy strategy) {
+        return strategyCounts.get(strategy)[0];
+    }
+
+    /**
+     * @param strategy an array comparison strategy
+     * @return total nanoseconds spent comparing arrays with {@code strategy}
+     */
+    public long getStrategyNanos(ArrayComparisonStrategy strategy) {
+        return strategyNanos.get(strategy)[0];
+    }
+
+    /**
+     * @return number of times the expensive {@linkplain ArrayComparisonStrategy#RECURSIVE recursive} strategy
+     *         was used
+     */
+    public long getFallbackCount() {
+        return getStrategyCount(ArrayComparisonStrategy.RECURSIVE);
+    }
+
+    /**
+     * @return number of pairs of values decided by a customization
+     */
+    public long getCustomizationHits() {
+        return customizationHits;
+    }
+
+    /**
+     * @return number of pairs of values a customization decided did not match
+     */
+    public long getCustomizationFailures() {
+        return customizationFailures;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ComparisonStatistics[nodesVisited=").append(nodesVisited)
+                .append(", nodesFailed=").append(nodesFailed)
+                .append(", maxDepth=").append(maxDepth)
+                .append(", customizationHits=").append(customizationHits)
+                .append(", customizationFailures=").append(customizationFailures);
+        for (ArrayComparisonStrategy strategy : ArrayComparisonStrategy.values()) {
+            sb.append(", ").append(strategy).append('=').append(getStrategyCount(strategy))
+                    .append('/').append(getStrategyNanos(strategy) / 1000).append("us");
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -25,30 +25,83 @@ import java.util.Collection;
 public class CustomComparator extends DefaultComparator {
 
     private final Collection<Customization> customizations;
+    private final boolean hasIgnores;
 
     public CustomComparator(JSONCompareMode mode,  Customization... customizations) {
         super(mode);
         this.customizations = Arrays.asList(customizations);
+        boolean ignores = false;
+        for (Customization customization : customizations) {
+            ignores |= customization.isIgnore();
+        }
+        this.hasIgnores = ignores;
     }
 
     @Override
     public void compareValues(String prefix, Object expectedValue, Object actualValue, JSONCompareResult result) {
         Customization customization = getCustomization(prefix);
+        if (customization != null && customization.isIgnore()) {
+            return;
+        }
         if (customization != null) {
+            boolean matched = false;
+            Object event = FlightRecorderEvents.beginValueMatcher();
             try {
-    	        if (!customization.matches(prefix, actualValue, expectedValue, result)) {
+    	        matched = customization.matches(prefix, actualValue, expectedValue, result);
+                if (!matched) {
                     result.fail(prefix, expectedValue, actualValue);
+                    patchReplaced(prefix, actualValue, result);
                 }
             }
             catch (ValueMatcherException e) {
                 result.fail(prefix, e);
+                patchReplaced(prefix, actualValue, result);
+            }
+            finally {
+                FlightRecorderEvents.endValueMatcher(event, prefix, expectedValue, actualValue, matched);
+            }
+            ComparisonListener listener = getComparisonListener();
+            if (listener != null) {
+                listener.customizationApplied(prefix, customization, matched);
             }
         } else {
             super.compareValues(prefix, expectedValue, actualValue, result);
         }
     }
 
-    private Customization getCustomization(String path) {
+    /**
+     * @return true if some customization {@linkplain Customization#ignore(String) ignores} values
+     */
+    public boolean hasIgnores() {
+        return hasIgnores;
+    }
+
+    /**
+     * @return true if array elements are only compared with the element at the same index, so that a path naming an
+     *         index names the same element in both documents
+     */
+    public boolean comparesElementsByPosition() {
+        return mode.hasStrictOrder() && getStrictOrderDiff() == 0;
+    }
+
+    /**
+     * @param path path of a value
+     * @return true if the first customization that applies to the path ignores its values
+     */
+    @Override
+    public boolean isIgnored(String path) {
+        if (!hasIgnores) {
+            return false;
+        }
+        Customization customization = getCustomization(path);
+        return customization != null && customization.isIgnore();
+    }
+
+    /**
+     * @param path path of a value
+     * @return the first customization that applies to the path, or null if none does
+     */
+    protected Customization getCustomization(String path) {
         for (Customization c : customizations)
             if (c.appliesToPath(path))
                 return c;
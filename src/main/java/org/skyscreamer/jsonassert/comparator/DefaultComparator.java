@@ -19,12 +19,14 @@ import org.json.JSONObject;
 import org.skyscreamer.jsonassert.JSONCompareMode;
 import org.skyscreamer.jsonassert.JSONCompareResult;
 
-import static org.skyscreamer.jsonassert.comparator.JSONCompareUtil.allJSONObjects;
-import static org.skyscreamer.jsonassert.comparator.JSONCompareUtil.allSimpleValues;
-
 /**
  * This class is the default json comparator implementation.
  * Comparison is performed according to {@link JSONCompareMode} that is passed as constructor's argument.
+ *
+ * <p>Objects and arrays are compared on an explicit stack rather than by recursion, so documents of any depth can be
+ * compared.  Subclasses that override {@link #compareValues} or the methods comparing objects or arrays are called
+ * recursively, as before, so the comparison of nested objects and arrays is over when {@code compareValues}
+ * returns.</p>
  */
 public class DefaultComparator extends AbstractComparator {
 
@@ -36,6 +38,10 @@ public class DefaultComparator extends AbstractComparator {
 
     @Override
     public void compareJSON(String prefix, JSONObject expected, JSONObject actual, JSONCompareResult result) {
+        if (!overrides(KEY_CHECKS)) {
+            runFrame(objectFrame(prefix, expected, actual, !mode.isExtensible(), result));
+            return;
+        }
         // Check that actual contains all the expected values
         checkJsonObjectKeysExpectedInActual(prefix, expected, actual, result);
 
@@ -47,47 +53,147 @@ public class DefaultComparator extends AbstractComparator {
 
     @Override
     public void compareValues(String prefix, Object expectedValue, Object actualValue, JSONCompareResult result) {
-        if (expectedValue == actualValue) {
+        visit(prefix);
+        ComparisonListener listener = getComparisonListener();
+        if (listener == null) {
+            ComparisonStack.Frame frame = compareNode(prefix, expectedValue, actualValue, result);
+            if (frame != null) {
+                pushFrame(frame);
+            }
             return;
         }
+        listener.nodeEntered(prefix, expectedValue, actualValue);
+        int failureCount = result.getFailureCount();
+        ComparisonStack.Frame frame = null;
+        try {
+            frame = compareNode(prefix, expectedValue, actualValue, result);
+        } finally {
+            if (frame == null) {
+                listener.nodeExited(prefix, result.getFailureCount() == failureCount);
+            }
+        }
+        if (frame != null) {
+            frame.exitNode(listener, prefix, failureCount);
+            pushFrame(frame);
+        }
+    }
+
+    /**
+     * @return the frame that compares the children of a pair of objects or arrays offered by the frame comparing
+     *         their parents, or null if the values have been compared
+     */
+    private ComparisonStack.Frame compareNode(String prefix, Object expectedValue, Object actualValue,
+                                              JSONCompareResult result) {
+        if (expectedValue == actualValue) {
+            return null;
+        }
         if (expectedValue == null || actualValue == null) {
-            result.fail(prefix, expectedValue, actualValue);
+            fail(prefix, expectedValue, actualValue, result);
         } else if (areNumbers(expectedValue, actualValue)) {
             if (areNotSameDoubles(expectedValue, actualValue)) {
-                result.fail(prefix, expectedValue, actualValue);
+                fail(prefix, expectedValue, actualValue, result);
             }
+        } else if (expectedValue instanceof JSONArray && actualValue instanceof JSONArray) {
+            if (!overrides(ARRAY_COMPARISON | VALUE_COMPARISON) && claim(expectedValue, actualValue)) {
+                return arrayFrame(prefix, (JSONArray) expectedValue, (JSONArray) actualValue, result);
+            }
+            compareJSONArray(prefix, (JSONArray) expectedValue, (JSONArray) actualValue, result);
+        } else if (expectedValue instanceof JSONObject && actualValue instanceof JSONObject) {
+            if (!overrides(OBJECT_COMPARISON | KEY_CHECKS | VALUE_COMPARISON)
+                    && claim(expectedValue, actualValue)) {
+                return objectFrame(prefix, (JSONObject) expectedValue, (JSONObject) actualValue,
+                        !mode.isExtensible(), result);
+            }
+            compareJSON(prefix, (JSONObject) expectedValue, (JSONObject) actualValue, result);
         } else if (expectedValue.getClass().isAssignableFrom(actualValue.getClass())) {
-            if (expectedValue instanceof JSONArray) {
-                compareJSONArray(prefix, (JSONArray) expectedValue, (JSONArray) actualValue, result);
-            } else if (expectedValue instanceof JSONObject) {
-                compareJSON(prefix, (JSONObject) expectedValue, (JSONObject) actualValue, result);
-            } else if (!expectedValue.equals(actualValue)) {
-                result.fail(prefix, expectedValue, actualValue);
+            if (!expectedValue.equals(actualValue)) {
+                fail(prefix, expectedValue, actualValue, result);
             }
         } else {
-            result.fail(prefix, expectedValue, actualValue);
+            fail(prefix, expectedValue, actualValue, result);
         }
+        return null;
+    }
+
+    private void fail(String prefix, Object expectedValue, Object actualValue, JSONCompareResult result) {
+        result.fail(prefix, expectedValue, actualValue);
+        patchReplaced(prefix, actualValue, result);
     }
 
     @Override
     public void compareJSONArray(String prefix, JSONArray expected, JSONArray actual, JSONCompareResult result) {
+        ComparisonStack.Frame frame = arrayFrame(prefix, expected, actual, result);
+        if (frame != null) {
+            runFrame(frame);
+        }
+    }
+
+    /**
+     * Starts the comparison of arrays, doing at once whatever does not compare elements one by one.
+     *
+     * @return the frame that compares the elements, or null if the comparison is already done
+     */
+    private ComparisonStack.Frame arrayFrame(String prefix, JSONArray expected, JSONArray actual,
+                                             JSONCompareResult result) {
+        if (mode.hasStrictOrder() && getStrictOrderDiff() > 0
+                && !overrides(STRICT_ORDER_COMPARISON | WHOLE_STRICT_ORDER_COMPARISON)) {
+            ComparisonStack.Frame frame = diffFrame(prefix, expected, actual, result);
+            if (frame != null) {
+                return frame;
+            }
+        }
         if (expected.length() != actual.length()) {
             result.fail(prefix + "[]: Expected " + expected.length() + " values but got " + actual.length());
-            return;
+            patchReplaced(prefix, actual, result);
+            return null;
         } else if (expected.length() == 0) {
-            return; // Nothing to compare
+            return null; // Nothing to compare
         }
 
+        // Differences found without a frame are not located element by element, so they replace the whole array
+        int failureCount = result.getFailureCount();
         if (mode.hasStrictOrder()) {
-            compareJSONArrayWithStrictOrder(prefix, expected, actual, result);
-        } else if (allSimpleValues(expected)) {
-            compareJSONArrayOfSimpleValues(prefix, expected, actual, result);
-        } else if (allJSONObjects(expected)) {
-            compareJSONArrayOfJsonObjects(prefix, expected, actual, result);
+            int[] positions = samplePositions(prefix, expected, STRICT_ORDER_COMPARISON,
+                    WHOLE_STRICT_ORDER_COMPARISON, result);
+            if (!overrides(STRICT_ORDER_COMPARISON | WHOLE_STRICT_ORDER_COMPARISON)) {
+                return strictOrderFrame(prefix, expected, actual, positions, result);
+            } else if (positions == null) {
+                compareJSONArrayWithStrictOrder(prefix, expected, actual, result);
+            } else {
+                compareJSONArrayWithStrictOrder(prefix, expected, actual, positions, result);
+            }
         } else {
-            // An expensive last resort
-            recursivelyCompareJSONArray(prefix, expected, actual, result);
+            ArrayComparisonStrategy strategy = getUnorderedStrategy(expected);
+            if (strategy == ArrayComparisonStrategy.SIMPLE_VALUES) {
+                compareJSONArrayOfSimpleValues(prefix, expected, actual, result);
+            } else {
+                if (strategy == ArrayComparisonStrategy.UNIQUE_KEY) {
+                    int[] positions = samplePositions(prefix, expected, UNIQUE_KEY_COMPARISON,
+                            WHOLE_UNIQUE_KEY_COMPARISON, result);
+                    if (overrides(UNIQUE_KEY_COMPARISON | WHOLE_UNIQUE_KEY_COMPARISON)) {
+                        if (positions == null) {
+                            compareJSONArrayOfJsonObjects(prefix, expected, actual, result);
+                        } else {
+                            compareJSONArrayOfJsonObjects(prefix, expected, actual, positions, result);
+                        }
+                    } else {
+                        // Null when no key is usable and the elements have been compared recursively
+                        ComparisonStack.Frame frame = uniqueKeyFrame(prefix, expected, actual, positions, result);
+                        if (frame != null) {
+                            return frame;
+                        }
+                    }
+                } else {
+                    // An expensive last resort
+                    compareRecursively(prefix, expected, actual, samplePositions(prefix, expected,
+                            RECURSIVE_COMPARISON, WHOLE_RECURSIVE_COMPARISON, result), result);
+                }
+            }
+        }
+        if (result.getFailureCount() > failureCount) {
+            patchReplaced(prefix, actual, result);
         }
+        return null;
     }
 
     protected boolean areNumbers(Object expectedValue, Object actualValue) {
@@ -0,0 +1,51 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.comparator;
+
+import org.skyscreamer.jsonassert.JSONCompareResult;
+
+/**
+ * <p>Emits Java Flight Recorder events for comparisons.  This is the Java 8 version, which does nothing; the
+ * multi-release jar replaces it on Java 11 and later with one that emits the events (see {@code src/main/java11}).</p>
+ *
+ * <p>Each {@code begin} method returns an opaque token, null when the event is disabled, that must be passed to the
+ * matching {@code end} method.</p>
+ */
+final class FlightRecorderEvents {
+    private FlightRecorderEvents() {
+    }
+
+    static Object beginComparison() {
+        return null;
+    }
+
+    static void endComparison(Object token, String comparator, String path, String kind, int expectedSize,
+                              int actualSize, JSONCompareResult result) {
+    }
+
+    static Object beginArrayFallback() {
+        return null;
+    }
+
+    static void endArrayFallback(Object token, String path, int expectedLength, int actualLength) {
+    }
+
+    static Object beginValueMatcher() {
+        return null;
+    }
+
+    static void endValueMatcher(Object token, String path, Object expected, Object actual, boolean matched) {
+    }
+}
@@ -76,4 +76,28 @@ public interface JSONComparator {
      * @param result   stores the actual state of the comparison result
      */
     void compareJSONArray(String prefix, JSONArray expected, JSONArray actual, JSONCompareResult result);
+
+    /**
+     * Tells a {@link org.skyscreamer.jsonassert.JSONCompareCache} whether it may reuse the result of an earlier
+     * comparison of the same documents instead of comparing them again.  Comparators whose outcome depends on more
+     * than the two documents, such as ones with value matchers that look at the clock or at external state, should
+     * return false.
+     *
+     * @return true (the default) if comparing the same documents always gives the same result
+     */
+    default boolean isCacheable() {
+        return true;
+    }
+
+    /**
+     * Tells a {@link org.skyscreamer.jsonassert.JSONCompareCache} when this comparator's configuration changed, so
+     * that results of comparisons made before the change are not reused.  Comparators whose settings can change the
+     * result of a comparison should return a different value after each change.
+     *
+     * @return a value that changes whenever the configuration does; 0 (the default) for comparators that cannot be
+     *         reconfigured
+     */
+    default long getConfigurationVersion() {
+        return 0L;
+    }
 }
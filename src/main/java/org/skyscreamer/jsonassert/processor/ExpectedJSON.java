@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.processor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.skyscreamer.jsonassert.ValueMatcher;
+
+/**
+ * <p>Asks {@link ExpectedJSONProcessor} to compile an expected JSON resource into a class at build time.  The
+ * generated class, in the package of the annotated type, builds the expected document without parsing it and
+ * verifies actual documents through a {@link org.skyscreamer.jsonassert.CompiledExpectation}:</p>
+ *
+ * <pre>
+ * &#64;ExpectedJSON(value = "expected/order.json", name = "OrderExpectation", mode = JSONCompareMode.LENIENT)
+ * public class OrderTest {
+ *     &#64;Test
+ *     public void order() {
+ *         assertTrue(OrderExpectation.verify(service.getOrder()).passed());
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>The processor is not registered as a service, so that having JSONassert on the class path does not run it in
+ * every build.  Name it where the annotation is used, with {@code javac -processor
+ * org.skyscreamer.jsonassert.processor.ExpectedJSONProcessor}, or for the test sources of a Maven build:</p>
+ *
+ * <pre>
+ * &lt;execution&gt;
+ *     &lt;id&gt;default-testCompile&lt;/id&gt;
+ *     &lt;configuration&gt;
+ *         &lt;annotationProcessorPaths&gt;
+ *             &lt;path&gt;
+ *                 &lt;groupId&gt;org.skyscreamer&lt;/groupId&gt;
+ *                 &lt;artifactId&gt;jsonassert&lt;/artifactId&gt;
+ *                 &lt;version&gt;${jsonassert.version}&lt;/version&gt;
+ *             &lt;/path&gt;
+ *         &lt;/annotationProcessorPaths&gt;
+ *         &lt;annotationProcessors&gt;
+ *             &lt;annotationProcessor&gt;org.skyscreamer.jsonassert.processor.ExpectedJSONProcessor&lt;/annotationProcessor&gt;
+ *         &lt;/annotationProcessors&gt;
+ *     &lt;/configuration&gt;
+ * &lt;/execution&gt;
+ * </pre>
+ *
+ * <p>The resource is looked up relative to the root of the class output, the class path and the source path, in
+ * that order.</p>
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+@Repeatable(ExpectedJSON.List.class)
+public @interface ExpectedJSON {
+    /**
+     * @return path of the expected JSON resource, relative to the class path root
+     */
+    String value();
+
+    /**
+     * @return simple name of the generated class
+     */
+    String name();
+
+    /**
+     * @return mode actual documents are compared in
+     */
+    JSONCompareMode mode() default JSONCompareMode.STRICT;
+
+    /**
+     * @return customizations applied when comparing, in order of precedence
+     */
+    Customize[] customizations() default {};
+
+    /**
+     * A customization to compile in.  The matcher class needs a public no-argument constructor.
+     */
+    @Retention(RetentionPolicy.SOURCE)
+    @Target({})
+    @interface Customize {
+        /**
+         * @return path the customization applies to, as for {@link org.skyscreamer.jsonassert.Customization}
+         */
+        String path();
+
+        /**
+         * @return matcher used for values at the path
+         */
+        @SuppressWarnings("rawtypes")
+        Class<? extends ValueMatcher> matcher();
+    }
+
+    /**
+     * Container for repeated {@link ExpectedJSON} annotations.
+     */
+    @Documented
+    @Retention(RetentionPolicy.SOURCE)
+    @Target(ElementType.TYPE)
+    @interface List {
+        ExpectedJSON[] value();
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.processor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.MirroredTypeException;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.skyscreamer.jsonassert.JSONParser;
+
+/**
+ * <p>Annotation processor compiling {@link ExpectedJSON} resources into classes.  The expected document is parsed
+ * here, at build time.  The generated class builds it again from code, keeping the exact value types the parser
+ * produced, so comparisons give the same results as comparing with the parsed resource.</p>
+ *
+ * <p>Building code is split into one method per object or array, and large ones into several methods, to stay
+ * within the size limits of a class file method.</p>
+ */
+@SupportedAnnotationTypes({
+        "org.skyscreamer.jsonassert.processor.ExpectedJSON",
+        "org.skyscreamer.jsonassert.processor.ExpectedJSON.List"})
+public class ExpectedJSONProcessor extends AbstractProcessor {
+    private static final int ENTRIES_PER_METHOD = 200;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<Element> elements = new LinkedHashSet<Element>();
+        elements.addAll(roundEnv.getElementsAnnotatedWith(ExpectedJSON.class));
+        elements.addAll(roundEnv.getElementsAnnotatedWith(ExpectedJSON.List.class));
+        for (Element element : elements) {
+            for (ExpectedJSON expectedJSON : element.getAnnotationsByType(ExpectedJSON.class)) {
+                generate((TypeElement) element, expectedJSON);
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement type, ExpectedJSON expectedJSON) {
+        String name = expectedJSON.name();
+        if (!SourceVersion.isIdentifier(name) || SourceVersion.isKeyword(name)) {
+            error(type, "Invalid class name '" + name + "'");
+            return;
+        }
+        Object expected;
+        try {
+            expected = JSONParser.parseJSON(readResource(expectedJSON.value()));
+        } catch (IOException e) {
+            error(type, "Cannot read expected JSON resource '" + expectedJSON.value() + "': " + e.getMessage());
+            return;
+        } catch (JSONException e) {
+            error(type, "Invalid expected JSON in '" + expectedJSON.value() + "': " + e.getMessage());
+            return;
+        }
+        if (!(expected instanceof JSONObject) && !(expected instanceof JSONArray)) {
+            error(type, "Expected JSON in '" + expectedJSON.value() + "' is neither an object nor an array");
+            return;
+        }
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String qualifiedName = packageName.isEmpty() ? name : packageName + "." + name;
+        String source = new SourceBuilder(packageName, name, expectedJSON, expected).build();
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source);
+            }
+        } catch (IOException e) {
+            error(type, "Cannot write " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    private String readResource(String path) throws IOException {
+        IOException failure = new IOException("not found in the class output, class path or source path");
+        for (StandardLocation location : new StandardLocation[] {
+                StandardLocation.CLASS_OUTPUT, StandardLocation.CLASS_PATH, StandardLocation.SOURCE_PATH}) {
+            try {
+                FileObject resource = processingEnv.getFiler().getResource(location, "", path);
+                try (InputStream in = resource.openInputStream()) {
+                    return decode(in);
+                }
+            } catch (IOException e) {
+                failure.addSuppressed(e);
+            } catch (IllegalArgumentException e) {
+                // Location not supported by this compiler
+            }
+        }
+        throw failure;
+    }
+
+    private static String decode(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, n);
+        }
+        String text = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        return text.startsWith("\uFEFF") ? text.substring(1) : text;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private String matcherClassName(ExpectedJSON.Customize customize) {
+        try {
+            return customize.matcher().getCanonicalName();
+        } catch (MirroredTypeException e) {
+            Element element = processingEnv.getTypeUtils().asElement(e.getTypeMirror());
+            return ((TypeElement) element).getQualifiedName().toString();
+        }
+    }
+
+    /**
+     * Writes the source of one generated class.
+     */
+    private final class SourceBuilder {
+        private final String _packageName;
+        private final String _name;
+        private final ExpectedJSON _expectedJSON;
+        private final Object _expected;
+        private final StringBuilder _methods = new StringBuilder();
+        private int _nodeCount;
+
+        SourceBuilder(String packageName, String name, ExpectedJSON expectedJSON, Object expected) {
+            _packageName = packageName;
+            _name = name;
+            _expectedJSON = expectedJSON;
+            _expected = expected;
+        }
+
+        String build() {
+            String rootType = _expected instanceof JSONObject ? "JSONObject" : "JSONArray";
+            String root = node(_expected);
+
+            StringBuilder out = new StringBuilder();
+            if (!_packageName.isEmpty()) {
+                out.append("package ").append(_packageName).append(";\n\n");
+            }
+            out.append("import org.json.JSONArray;\n")
+                    .append("import org.json.JSONObject;\n")
+                    .append("import org.skyscreamer.jsonassert.CompiledExpectation;\n")
+                    .append("import org.skyscreamer.jsonassert.Customization;\n")
+                    .append("import org.skyscreamer.jsonassert.JSONCompareMode;\n")
+                    .append("import org.skyscreamer.jsonassert.JSONCompareResult;\n\n")
+                    .append("/**\n")
+                    .append(" * Expected JSON compiled from {@code ").append(javadoc(_expectedJSON.value()))
+                    .append("} by {@code ").append(ExpectedJSONProcessor.class.getName()).append("}.\n")
+                    .append(" */\n")
+                    .append("public final class ").append(_name).append(" {\n")
+                    .append("    /** Path of the resource this class was compiled from. */\n")
+                    .append("    public static final String RESOURCE = ").append(quote(_expectedJSON.value()))
+                    .append(";\n\n")
+                    .append("    /** Mode actual documents are compared in. */\n")
+                    .append("    public static final JSONCompareMode MODE = JSONCompareMode.")
+                    .append(_expectedJSON.mode().name()).append(";\n\n")
+                    .append("    private static final CompiledExpectation EXPECTATION =\n")
+                    .append("            CompiledExpectation.compile(").append(root)
+                    .append("(), MODE, customizations());\n\n")
+                    .append("    private ").append(_name).append("() {\n")
+                    .append("    }\n\n")
+                    .append("    /**\n")
+                    .append("     * @return a new copy of the expected document\n")
+                    .append("     */\n")
+                    .append("    public static ").append(rootType).append(" expected() {\n")
+                    .append("        return ").append(root).append("();\n")
+                    .append("    }\n\n")
+                    .append("    /**\n")
+                    .append("     * @return the compiled expectation\n")
+                    .append("     */\n")
+                    .append("    public static CompiledExpectation expectation() {\n")
+                    .append("        return EXPECTATION;\n")
+                    .append("    }\n\n");
+            for (String actualType : new String[] {"String", "JSONObject", "JSONArray"}) {
+                out.append("    /**\n")
+                        .append("     * @param actual document to verify\n")
+                        .append("     * @return result of the comparison\n")
+                        .append("     */\n")
+                        .append("    public static JSONCompareResult verify(").append(actualType)
+                        .append(" actual) {\n")
+                        .append("        return EXPECTATION.verify(actual);\n")
+                        .append("    }\n\n");
+            }
+            out.append("    @SuppressWarnings({\"rawtypes\", \"unchecked\"})\n")
+                    .append("    private static Customization[] customizations() {\n")
+                    .append("        return new Customization[] {\n");
+            for (ExpectedJSON.Customize customize : _expectedJSON.customizations()) {
+                out.append("                new Customization(").append(quote(customize.path()))
+                        .append(", new ").append(matcherClassName(customize)).append("()),\n");
+            }
+            out.append("        };\n")
+                    .append("    }\n")
+                    .append(_methods)
+                    .append("}\n");
+            return out.toString();
+        }
+
+        /**
+         * Writes the method building a node, and those of its children, and returns its name.
+         */
+        private String node(Object container) {
+            String method = "n" + _nodeCount++;
+            List<String> statements = new ArrayList<String>();
+            String type;
+            if (container instanceof JSONObject) {
+                type = "JSONObject";
+                JSONObject object = (JSONObject) container;
+                List<String> keys = new ArrayList<String>(object.keySet());
+                Collections.sort(keys);
+                for (String key : keys) {
+                    statements.add("n.put(" + quote(key) + ", " + value(object.opt(key)) + ");");
+                }
+            } else {
+                type = "JSONArray";
+                JSONArray array = (JSONArray) container;
+                for (int i = 0; i < array.length(); i++) {
+                    statements.add("n.put(" + value(array.opt(i)) + ");");
+                }
+            }
+
+            StringBuilder body = new StringBuilder();
+            body.append("\n    private static ").append(type).append(' ').append(method).append("() {\n")
+                    .append("        ").append(type).append(" n = new ").append(type).append("();\n");
+            if (statements.size() <= ENTRIES_PER_METHOD) {
+                appendStatements(body, statements);
+            } else {
+                StringBuilder parts = new StringBuilder();
+                for (int from = 0, part = 0; from < statements.size(); from += ENTRIES_PER_METHOD, part++) {
+                    String partMethod = method + "p" + part;
+                    body.append("        ").append(partMethod).append("(n);\n");
+                    parts.append("\n    private static void ").append(partMethod).append('(').append(type)
+                            .append(" n) {\n");
+                    appendStatements(parts, statements.subList(from,
+                            Math.min(from + ENTRIES_PER_METHOD, statements.size())));
+                    parts.append("    }\n");
+                }
+                _methods.append(parts);
+            }
+            body.append("        return n;\n")
+                    .append("    }\n");
+            _methods.append(body);
+            return method;
+        }
+
+        private void appendStatements(StringBuilder out, List<String> statements) {
+            for (String statement : statements) {
+                out.append("        ").append(statement).append('\n');
+            }
+        }
+
+        private String value(Object value) {
+            if (value instanceof JSONObject || value instanceof JSONArray) {
+                return node(value) + "()";
+            } else if (value == null || JSONObject.NULL.equals(value)) {
+                return "JSONObject.NULL";
+            } else if (value instanceof String) {
+                return quote((String) value);
+            } else if (value instanceof Boolean) {
+                return (Boolean) value ? "Boolean.TRUE" : "Boolean.FALSE";
+            } else if (value instanceof Integer) {
+                return "Integer.valueOf(" + value + ")";
+            } else if (value instanceof Long) {
+                return "Long.valueOf(" + value + "L)";
+            } else if (value instanceof Double) {
+                return "Double.valueOf(" + value + "d)";
+            } else if (value instanceof BigInteger) {
+                return "new java.math.BigInteger(\"" + value + "\")";
+            } else if (value instanceof BigDecimal) {
+                return "new java.math.BigDecimal(\"" + value + "\")";
+            }
+            throw new IllegalStateException("Unexpected value type: " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * Quotes a string as an ASCII-only Java string literal.
+     */
+    static String quote(String s) {
+        StringBuilder out = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    private static String javadoc(String s) {
+        return s.replace("*/", "*&#47;").replace("@", "&#64;");
+    }
+}
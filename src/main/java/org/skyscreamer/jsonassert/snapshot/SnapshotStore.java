@@ -0,0 +1,542 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.skyscreamer.jsonassert.JSONCanonicalizer;
+import org.skyscreamer.jsonassert.JSONCompare;
+import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.skyscreamer.jsonassert.JSONCompareResult;
+import org.skyscreamer.jsonassert.JSONParser;
+import org.skyscreamer.jsonassert.comparator.DefaultComparator;
+import org.skyscreamer.jsonassert.comparator.JSONComparator;
+import org.skyscreamer.jsonassert.tree.JSONTape;
+import org.skyscreamer.jsonassert.tree.JSONTreeView;
+import org.skyscreamer.jsonassert.tree.TapeTreeAdapter;
+
+/**
+ * <p>Directory of golden JSON documents, each in its own file named after the snapshot with a {@code .json}
+ * extension, together with an index of their {@linkplain JSONCanonicalizer#sha256(Object) canonical digests}.</p>
+ *
+ * <p>{@link #verify(String, String, JSONCompareMode)} digests the actual document and looks the snapshot up in the
+ * index, which is memory-mapped, so no golden file is parsed when the actual document is STRICT-equal to the golden
+ * one.  The golden file is still read, to check against a hash of its bytes that it has not changed since it was
+ * indexed; sizes and modification times are not trusted, as an edit may keep both.  Otherwise, or if the golden file
+ * changed, it is parsed and compared in full.  Digests learnt that way are added to the index when the store is
+ * {@linkplain #flush() flushed} or closed, so a store builds its own index as it is used; {@link #indexAll()} builds
+ * it up front.</p>
+ *
+ * <p>Documents are digested without being built as org.json objects: they are parsed onto a compact
+ * {@link JSONTape}, and the canonical form is digested as it is written from the tape.  The canonical form orders
+ * the keys of each object, so a document cannot be digested as its text is read.</p>
+ *
+ * <p>In update mode, a snapshot that is missing or does not match is replaced by the actual document and the
+ * verification passes.  Golden files and the index are written to a temporary file and moved into place, so a
+ * reader never sees a partly written file.</p>
+ *
+ * <p>A store may be used from several threads.</p>
+ */
+public final class SnapshotStore implements Closeable {
+    /**
+     * Name of the index file in the snapshot directory.
+     */
+    public static final String INDEX_FILE_NAME = "snapshot-index.bin";
+
+    private static final String EXTENSION = ".json";
+    private static final int MAGIC = 0x4a534958; // "JSIX"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 16;
+    private static final int HASH_SIZE = 32;
+    private static final int RECORD_SIZE = 3 * HASH_SIZE + 8;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Path _directory;
+    private final boolean _update;
+    private final Map<ByteBuffer, Entry> _pending = new ConcurrentHashMap<ByteBuffer, Entry>();
+    // Lookups read the mapped index under the read lock, so that it can be unmapped before it is replaced
+    private final ReadWriteLock _indexLock = new ReentrantReadWriteLock();
+    private MappedByteBuffer _index;
+
+    private SnapshotStore(Path directory, boolean update) throws IOException {
+        _directory = directory.toAbsolutePath().normalize();
+        _update = update;
+        Files.createDirectories(_directory);
+        mapIndex();
+    }
+
+    /**
+     * Opens the snapshot store in {@code directory} for verification, creating the directory if needed.
+     *
+     * @param directory the snapshot directory
+     * @return the store
+     * @throws IOException if the directory or its index cannot be read
+     */
+    public static SnapshotStore open(Path directory) throws IOException {
+        return new SnapshotStore(directory, false);
+    }
+
+    /**
+     * Opens the snapshot store in {@code directory}, creating the directory if needed.
+     *
+     * @param directory the snapshot directory
+     * @param update    true to replace snapshots that are missing or do not match
+     * @return the store
+     * @throws IOException if the directory or its index cannot be read
+     */
+    public static SnapshotStore open(Path directory, boolean update) throws IOException {
+        return new SnapshotStore(directory, update);
+    }
+
+    /**
+     * @return true if snapshots that are missing or do not match are replaced
+     */
+    public boolean isUpdating() {
+        return _update;
+    }
+
+    /**
+     * Verifies a document against a snapshot.
+     *
+     * @param name      name of the snapshot, a relative path without extension such as {@code orders/17}
+     * @param actualStr JSON string to verify
+     * @param mode      Defines comparison behavior
+     * @return result of the comparison
+     * @throws IOException if the golden file cannot be read, or written in update mode
+     */
+    public JSONCompareResult verify(String name, String actualStr, JSONCompareMode mode) throws IOException {
+        return verify(name, actualStr, new DefaultComparator(mode));
+    }
+
+    /**
+     * Verifies a document against a snapshot using provided comparator.  When the digests match the comparator is
+     * not called, so it must pass any document that is STRICT-equal to the golden one.  Comparators where the
+     * golden document holds patterns or sizes rather than values, such as regular expression customizations or
+     * {@link org.skyscreamer.jsonassert.comparator.ArraySizeComparator}, do not meet that and should not be used
+     * with a store.
+     *
+     * @param name       name of the snapshot, a relative path without extension such as {@code orders/17}
+     * @param actualStr  JSON string to verify
+     * @param comparator comparator to use
+     * @return result of the comparison
+     * @throws IOException if the golden file cannot be read, or written in update mode
+     */
+    public JSONCompareResult verify(String name, String actualStr, JSONComparator comparator) throws IOException {
+        Path file = fileOf(name);
+        ByteBuffer key = ByteBuffer.wrap(sha256(name.getBytes(StandardCharsets.UTF_8)));
+        byte[] actualDigest = digestOf(actualStr);
+
+        BasicFileAttributes attributes = attributesOf(file);
+        Entry entry = lookup(key);
+        if (attributes != null && entry != null && MessageDigest.isEqual(entry._digest, actualDigest)
+                && entry._size == attributes.size() && MessageDigest.isEqual(entry._content, contentHash(file))) {
+            return new JSONCompareResult();
+        }
+
+        JSONCompareResult result;
+        if (attributes == null) {
+            result = new JSONCompareResult();
+            result.fail("No snapshot named '" + name + "'");
+        } else {
+            byte[] content = Files.readAllBytes(file);
+            String expectedStr = new String(content, StandardCharsets.UTF_8);
+            Object expected = JSONParser.parseJSON(expectedStr);
+            Object actual = JSONParser.parseJSON(actualStr);
+            _pending.put(key, new Entry(fromHex(JSONCanonicalizer.sha256(expected)), sha256(content), content.length));
+            if (expected instanceof JSONObject && actual instanceof JSONObject) {
+                result = JSONCompare.compareJSON((JSONObject) expected, (JSONObject) actual, comparator);
+            } else if (expected instanceof JSONArray && actual instanceof JSONArray) {
+                result = JSONCompare.compareJSON((JSONArray) expected, (JSONArray) actual, comparator);
+            } else {
+                result = JSONCompare.compareJSON(expectedStr, actualStr, comparator);
+            }
+        }
+        if (result.failed() && _update) {
+            byte[] content = actualStr.getBytes(StandardCharsets.UTF_8);
+            write(file, content);
+            _pending.put(key, new Entry(actualDigest, sha256(content), content.length));
+            return new JSONCompareResult();
+        }
+        return result;
+    }
+
+    /**
+     * Digests every golden file in the directory and adds them to the index, so that later verifications need not
+     * open them.  The index file itself is only written by {@link #flush()}.
+     *
+     * @throws IOException if a golden file cannot be read
+     */
+    public void indexAll() throws IOException {
+        Files.walkFileTree(_directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                String fileName = file.getFileName().toString();
+                if (fileName.endsWith(EXTENSION)) {
+                    String relative = _directory.relativize(file).toString()
+                            .replace(file.getFileSystem().getSeparator(), "/");
+                    String name = relative.substring(0, relative.length() - EXTENSION.length());
+                    byte[] content = Files.readAllBytes(file);
+                    _pending.put(ByteBuffer.wrap(sha256(name.getBytes(StandardCharsets.UTF_8))),
+                            new Entry(digestOf(content), sha256(content), content.length));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Writes the index, with every digest learnt since it was opened, and maps the new index.
+     *
+     * @throws IOException if the index cannot be written
+     */
+    public synchronized void flush() throws IOException {
+        if (_pending.isEmpty()) {
+            return;
+        }
+        Map<ByteBuffer, Entry> entries = new HashMap<ByteBuffer, Entry>();
+        MappedByteBuffer index = _index;
+        for (int i = 0; i < countOf(index); i++) {
+            entries.put(ByteBuffer.wrap(hashAt(index, i)), entryAt(index, i));
+        }
+        Map<ByteBuffer, Entry> flushed = new HashMap<ByteBuffer, Entry>(_pending);
+        entries.putAll(flushed);
+
+        List<ByteBuffer> keys = new ArrayList<ByteBuffer>(entries.keySet());
+        Collections.sort(keys, new Comparator<ByteBuffer>() {
+            @Override
+            public int compare(ByteBuffer a, ByteBuffer b) {
+                return compareHashes(a.array(), 0, b.array());
+            }
+        });
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + keys.size() * RECORD_SIZE);
+        out.putInt(MAGIC).putInt(VERSION).putInt(keys.size()).putInt(0);
+        for (ByteBuffer key : keys) {
+            Entry entry = entries.get(key);
+            out.put(key.array()).put(entry._digest).put(entry._content).putLong(entry._size);
+        }
+        // A file that is mapped cannot be replaced on some platforms, Windows among them
+        _indexLock.writeLock().lock();
+        try {
+            _index = null;
+            unmap(index);
+            try {
+                write(_directory.resolve(INDEX_FILE_NAME), out.array());
+            } finally {
+                mapIndex();
+            }
+        } finally {
+            _indexLock.writeLock().unlock();
+        }
+        for (Map.Entry<ByteBuffer, Entry> e : flushed.entrySet()) {
+            _pending.remove(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Flushes the index.
+     *
+     * @throws IOException if the index cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    private Path fileOf(String name) {
+        Path file = _directory.resolve(name + EXTENSION).normalize();
+        if (name.isEmpty() || !file.startsWith(_directory)) {
+            throw new IllegalArgumentException("Snapshot name must be a relative path inside the store: " + name);
+        }
+        return file;
+    }
+
+    private Entry lookup(ByteBuffer key) {
+        Entry pending = _pending.get(key);
+        if (pending != null) {
+            return pending;
+        }
+        _indexLock.readLock().lock();
+        try {
+            MappedByteBuffer index = _index;
+            byte[] hash = key.array();
+            int low = 0;
+            int high = countOf(index) - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compareHashes(index, mid, hash);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return entryAt(index, mid);
+                }
+            }
+            return null;
+        } finally {
+            _indexLock.readLock().unlock();
+        }
+    }
+
+    private void mapIndex() throws IOException {
+        _indexLock.writeLock().lock();
+        try {
+            _index = null;
+            Path file = _directory.resolve(INDEX_FILE_NAME);
+            if (!Files.exists(file)) {
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (index.limit() < HEADER_SIZE || index.getInt(0) != MAGIC) {
+                    unmap(index);
+                    throw new IOException("Not a snapshot index: " + file);
+                }
+                if (index.getInt(4) != VERSION) {
+                    // Written by another version of the store: rebuilt as the golden files are read again
+                    unmap(index);
+                    return;
+                }
+                if (index.limit() != HEADER_SIZE + (long) index.getInt(8) * RECORD_SIZE) {
+                    unmap(index);
+                    throw new IOException("Not a snapshot index: " + file);
+                }
+                _index = index;
+            }
+        } finally {
+            _indexLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Releases the mapping of an index at once, rather than when the buffer is collected.  The JDK has no public
+     * way to do this, so it is done through its internal cleaners, and left to the collector where they cannot be
+     * reached.  The buffer must not be read afterwards.
+     */
+    private static void unmap(MappedByteBuffer index) {
+        if (index == null) {
+            return;
+        }
+        try {
+            // Java 9 and later
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(theUnsafe.get(null), index);
+            return;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Not available, try the Java 8 way
+        }
+        try {
+            Method cleanerMethod = index.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(index);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Left to the collector
+        }
+    }
+
+    private static int countOf(ByteBuffer index) {
+        return index == null ? 0 : index.getInt(8);
+    }
+
+    private static byte[] hashAt(ByteBuffer index, int record) {
+        byte[] hash = new byte[HASH_SIZE];
+        for (int i = 0; i < HASH_SIZE; i++) {
+            hash[i] = index.get(HEADER_SIZE + record * RECORD_SIZE + i);
+        }
+        return hash;
+    }
+
+    private static Entry entryAt(ByteBuffer index, int record) {
+        int offset = HEADER_SIZE + record * RECORD_SIZE + HASH_SIZE;
+        byte[] digest = new byte[HASH_SIZE];
+        for (int i = 0; i < HASH_SIZE; i++) {
+            digest[i] = index.get(offset + i);
+        }
+        byte[] content = new byte[HASH_SIZE];
+        for (int i = 0; i < HASH_SIZE; i++) {
+            content[i] = index.get(offset + HASH_SIZE + i);
+        }
+        return new Entry(digest, content, index.getLong(offset + 2 * HASH_SIZE));
+    }
+
+    /**
+     * Compares the name hash of a record with {@code hash}, as unsigned bytes.
+     */
+    private static int compareHashes(ByteBuffer index, int record, byte[] hash) {
+        int offset = HEADER_SIZE + record * RECORD_SIZE;
+        for (int i = 0; i < HASH_SIZE; i++) {
+            int cmp = (index.get(offset + i) & 0xff) - (hash[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private static int compareHashes(byte[] a, int offset, byte[] b) {
+        for (int i = 0; i < HASH_SIZE; i++) {
+            int cmp = (a[offset + i] & 0xff) - (b[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private static BasicFileAttributes attributesOf(Path file) throws IOException {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private static void write(Path file, byte[] content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, content);
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        return sha256().digest(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the SHA-256 hash of the bytes of a file, read in chunks
+     */
+    private static byte[] contentHash(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        } catch (NoSuchFileException e) {
+            return new byte[HASH_SIZE];
+        }
+        return digest.digest();
+    }
+
+    private static byte[] digestOf(String json) {
+        byte[] digest;
+        try {
+            digest = digestOf(JSONTape.parse(json));
+        } catch (JSONException e) {
+            digest = null;
+        }
+        return digest != null ? digest : fromHex(JSONCanonicalizer.sha256(JSONParser.parseJSON(json)));
+    }
+
+    private static byte[] digestOf(byte[] utf8) {
+        byte[] digest;
+        try {
+            digest = digestOf(JSONTape.parse(utf8));
+        } catch (JSONException e) {
+            digest = null;
+        }
+        return digest != null ? digest
+                : fromHex(JSONCanonicalizer.sha256(JSONParser.parseJSON(new String(utf8, StandardCharsets.UTF_8))));
+    }
+
+    /**
+     * @return the digest of an object or array on a tape, or null for scalars, which org.json reads as raw text and
+     *         documents the stricter grammar of the tape rejects, both left to org.json
+     */
+    private static byte[] digestOf(JSONTape tape) {
+        Object root = JSONTreeView.of(tape.root(), TapeTreeAdapter.INSTANCE);
+        if (root instanceof JSONObject || root instanceof JSONArray) {
+            return fromHex(JSONCanonicalizer.sha256(root));
+        }
+        return null;
+    }
+
+    private static byte[] fromHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    /**
+     * Indexed state of a golden file: the digest of its document, and the hash of the bytes and the size it had.
+     */
+    private static final class Entry {
+        private final byte[] _digest;
+        private final byte[] _content;
+        private final long _size;
+
+        Entry(byte[] digest, byte[] content, long size) {
+            _digest = digest;
+            _content = content;
+            _size = size;
+        }
+    }
+}
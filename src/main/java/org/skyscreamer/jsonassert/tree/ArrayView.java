@@ -0,0 +1,202 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.tree;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Read-only {@link JSONArray} that reads an array node through a {@link JSONTreeAdapter}.  Elements are viewed when
+ * first read and kept, so the unordered comparisons, which read elements many times, reuse the same views.
+ */
+final class ArrayView<N> extends JSONArray {
+    private final N _node;
+    private final JSONTreeAdapter<N> _adapter;
+    private final int _length;
+    private Object[] _elements;
+
+    ArrayView(N node, JSONTreeAdapter<N> adapter) {
+        _node = node;
+        _adapter = adapter;
+        _length = adapter.size(node);
+    }
+
+    @Override
+    public int length() {
+        return _length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return _length == 0;
+    }
+
+    @Override
+    public Object opt(int index) {
+        if (index < 0 || index >= _length) {
+            return null;
+        }
+        if (_elements == null) {
+            _elements = new Object[_length];
+        }
+        Object element = _elements[index];
+        if (element == null) {
+            element = JSONTreeView.of(_adapter.element(_node, index), _adapter);
+            _elements[index] = element;
+        }
+        return element;
+    }
+
+    @Override
+    public Object get(int index) throws JSONException {
+        Object element = opt(index);
+        if (element == null) {
+            throw new JSONException("JSONArray[" + index + "] not found.");
+        }
+        return element;
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return new Iterator<Object>() {
+            private int _next;
+
+            @Override
+            public boolean hasNext() {
+                return _next < _length;
+            }
+
+            @Override
+            public Object next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return opt(_next++);
+            }
+        };
+    }
+
+    @Override
+    public boolean similar(Object other) {
+        if (!(other instanceof JSONArray) || ((JSONArray) other).length() != _length) {
+            return false;
+        }
+        for (int i = 0; i < _length; i++) {
+            if (!JSONTreeView.similar(opt(i), ((JSONArray) other).opt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<Object> toList() {
+        List<Object> list = new ArrayList<Object>(_length);
+        for (int i = 0; i < _length; i++) {
+            Object element = opt(i);
+            if (JSONObject.NULL.equals(element)) {
+                element = null;
+            } else if (element instanceof JSONObject) {
+                element = ((JSONObject) element).toMap();
+            } else if (element instanceof JSONArray) {
+                element = ((JSONArray) element).toList();
+            }
+            list.add(element);
+        }
+        return list;
+    }
+
+    @Override
+    public String join(String separator) throws JSONException {
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < _length; i++) {
+            if (i > 0) {
+                joined.append(separator);
+            }
+            joined.append(JSONObject.valueToString(opt(i)));
+        }
+        return joined.toString();
+    }
+
+    @Override
+    public JSONArray put(Object value) {
+        throw new UnsupportedOperationException("JSON tree views are read-only");
+    }
+
+    @Override
+    public JSONArray put(int index, Object value) {
+        throw new UnsupportedOperationException("JSON tree views are read-only");
+    }
+
+    @Override
+    public Object remove(int index) {
+        throw new UnsupportedOperationException("JSON tree views are read-only");
+    }
+
+    @Override
+    public JSONArray putAll(Collection<?> collection) {
+        throw new UnsupportedOperationException("JSON tree views are read-only");
+    }
+
+    @Override
+    public JSONArray putAll(Iterable<?> iter) {
+        throw new UnsupportedOperationException("JSON tree views are read-only");
+    }
+
+    @Override
+    public JSONArray putAll(JSONArray array) {
+        throw new UnsupportedOperationException("JSON tree views are read-only");
+    }
+
+    @Override
+    public JSONArray putAll(Object array) {
+        throw new UnsupportedOperationException("JSON tree views are read-only");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("JSON tree views are read-only");
+    }
+
+    @Override
+    public Writer write(Writer writer, int indentFactor, int indent) throws JSONException {
+        try {
+            writer.write('[');
+            for (int i = 0; i < _length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                JSONTreeView.newLine(writer, indentFactor, indent + indentFactor);
+                JSONTreeView.writeValue(writer, opt(i), indentFactor, indent + indentFactor);
+            }
+            if (_length > 0) {
+                JSONTreeView.newLine(writer, indentFactor, indent);
+            }
+            writer.write(']');
+            return writer;
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.tree;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.json.JSONObject;
+
+/**
+ * <p>{@link JSONTreeAdapter} for trees of plain {@code java.util} values, as produced by most JSON libraries when
+ * asked for untyped data: objects are {@link Map}s with {@link String} keys, arrays are {@link List}s, and scalars
+ * are {@link CharSequence}s, {@link Character}s, {@link Number}s, {@link Boolean}s and null.</p>
+ *
+ * <p>Elements of a list are read by index, so lists should support fast random access.</p>
+ */
+public final class CollectionTreeAdapter implements JSONTreeAdapter<Object> {
+    /**
+     * The adapter.  It has no state.
+     */
+    public static final CollectionTreeAdapter INSTANCE = new CollectionTreeAdapter();
+
+    private CollectionTreeAdapter() {
+    }
+
+    @Override
+    public JSONNodeType typeOf(Object node) {
+        if (node == null || JSONObject.NULL.equals(node)) {
+            return JSONNodeType.NULL;
+        } else if (node instanceof Map) {
+            return JSONNodeType.OBJECT;
+        } else if (node instanceof List) {
+            return JSONNodeType.ARRAY;
+        } else if (node instanceof Number) {
+            return JSONNodeType.NUMBER;
+        } else if (node instanceof Boolean) {
+            return JSONNodeType.BOOLEAN;
+        } else if (node instanceof CharSequence || node instanceof Character) {
+            return JSONNodeType.STRING;
+        }
+        throw new IllegalArgumentException("Not a JSON value: " + node.getClass().getName());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<String> fieldNames(Object object) {
+        return ((Map<String, ?>) object).keySet();
+    }
+
+    @Override
+    public boolean hasField(Object object, String name) {
+        return ((Map<?, ?>) object).containsKey(name);
+    }
+
+    @Override
+    public Object field(Object object, String name) {
+        return ((Map<?, ?>) object).get(name);
+    }
+
+    @Override
+    public int size(Object container) {
+        return container instanceof Map ? ((Map<?, ?>) container).size() : ((List<?>) container).size();
+    }
+
+    @Override
+    public Object element(Object array, int index) {
+        return ((List<?>) array).get(index);
+    }
+
+    @Override
+    public String stringValue(Object node) {
+        return node.toString();
+    }
+
+    @Override
+    public Number numberValue(Object node) {
+        return (Number) node;
+    }
+
+    @Override
+    public boolean booleanValue(Object node) {
+        return (Boolean) node;
+    }
+}
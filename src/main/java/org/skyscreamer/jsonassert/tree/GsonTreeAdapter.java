@@ -0,0 +1,91 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.tree;
+
+import java.util.Set;
+
+import com.google.gson.JsonElement;
+
+/**
+ * <p>{@link JSONTreeAdapter} for Gson {@link JsonElement} trees.  Numbers are read from their text, so they keep the
+ * precision they were parsed with.</p>
+ *
+ * <p>Gson is an optional dependency: this adapter can only be used if it is on the classpath.</p>
+ */
+public final class GsonTreeAdapter implements JSONTreeAdapter<JsonElement> {
+    /**
+     * The adapter.  It has no state.
+     */
+    public static final GsonTreeAdapter INSTANCE = new GsonTreeAdapter();
+
+    private GsonTreeAdapter() {
+    }
+
+    @Override
+    public JSONNodeType typeOf(JsonElement node) {
+        if (node == null || node.isJsonNull()) {
+            return JSONNodeType.NULL;
+        } else if (node.isJsonObject()) {
+            return JSONNodeType.OBJECT;
+        } else if (node.isJsonArray()) {
+            return JSONNodeType.ARRAY;
+        } else if (node.getAsJsonPrimitive().isNumber()) {
+            return JSONNodeType.NUMBER;
+        } else if (node.getAsJsonPrimitive().isBoolean()) {
+            return JSONNodeType.BOOLEAN;
+        }
+        return JSONNodeType.STRING;
+    }
+
+    @Override
+    public Set<String> fieldNames(JsonElement object) {
+        return object.getAsJsonObject().keySet();
+    }
+
+    @Override
+    public boolean hasField(JsonElement object, String name) {
+        return object.getAsJsonObject().has(name);
+    }
+
+    @Override
+    public JsonElement field(JsonElement object, String name) {
+        return object.getAsJsonObject().get(name);
+    }
+
+    @Override
+    public int size(JsonElement container) {
+        return container.isJsonObject() ? container.getAsJsonObject().size() : container.getAsJsonArray().size();
+    }
+
+    @Override
+    public JsonElement element(JsonElement array, int index) {
+        return array.getAsJsonArray().get(index);
+    }
+
+    @Override
+    public String stringValue(JsonElement node) {
+        return node.getAsString();
+    }
+
+    @Override
+    public Number numberValue(JsonElement node) {
+        return node.getAsNumber();
+    }
+
+    @Override
+    public boolean booleanValue(JsonElement node) {
+        return node.getAsBoolean();
+    }
+}
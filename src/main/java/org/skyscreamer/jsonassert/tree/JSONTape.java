@@ -0,0 +1,840 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.tree;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * <p>Immutable, compact form of a parsed JSON document, for comparing large documents.  The document is held as a
+ * tape of tokens in an {@code int} buffer, three {@code int}s a token, next to the text it was parsed from.  Objects
+ * and arrays record their size and where they end, so they can be skipped in one step.  Keys are interned once in a
+ * pool shared by the whole document.  Strings and numbers are only decoded when read.  The tape can be kept off the
+ * heap, in a direct buffer.  UTF-8 input in a {@code byte[]} or {@link ByteBuffer} is parsed in place, without
+ * decoding the document to a string: only the strings and numbers the comparison reads are decoded.</p>
+ *
+ * <p>A tape is compared through {@link TapeTreeAdapter}, or with
+ * {@link org.skyscreamer.jsonassert.JSONCompare#compareJSON(JSONTape, JSONTape, org.skyscreamer.jsonassert.JSONCompareMode)}.
+ * Keys may be unquoted and strings single-quoted, as org.json allows, and scalars read from the tape are the values
+ * org.json would have built.  Numbers follow the JSON grammar; other unquoted text is a string.  As with org.json,
+ * text after a top-level object or array is ignored, so the same documents are accepted whether they are parsed from
+ * a string or from bytes.  Tapes can be shared between threads.</p>
+ *
+ * <p>The grammar is stricter than org.json's, and every parse method follows it.  Arrays may not have empty or
+ * trailing elements, such as {@code [1,,2]} or {@code [1,]}, which org.json reads as nulls or drops.  Objects may not
+ * end with a comma, such as {@code {"a":1,}}, nor separate their fields with {@code ;}.  Unquoted text ends at
+ * whitespace, so {@code [1 2]} is rejected, where org.json reads the string {@code "1 2"}.  A document the tape
+ * accepts is read as org.json reads it.  Error messages are not org.json's: they give the offset into the text, in
+ * bytes for UTF-8 input, rather than org.json's index, line and column.</p>
+ */
+public final class JSONTape {
+    static final int OBJECT = 0;
+    static final int ARRAY = 1;
+    static final int KEY = 2;
+    static final int STRING = 3;
+    static final int ESCAPED_STRING = 4;
+    static final int NUMBER = 5;
+    static final int TRUE = 6;
+    static final int FALSE = 7;
+    static final int NULL = 8;
+
+    private static final int TOKEN_SIZE = 3;
+    private static final int INDEXED_SIZE = 8;
+
+    private final Text _text;
+    private final IntBuffer _tape;
+    private final String[] _keys;
+    private final KeyPool _pool;
+    private final ConcurrentMap<Integer, int[]> _indexes = new ConcurrentHashMap<Integer, int[]>();
+
+    private JSONTape(Text text, IntBuffer tape, KeyPool pool) {
+        _text = text;
+        _tape = tape;
+        _keys = pool.keys();
+        _pool = pool;
+    }
+
+    /**
+     * Parses a JSON document onto a tape on the heap.  The grammar is stricter than org.json's, as described for
+     * {@link JSONTape}.
+     *
+     * @param json JSON text of an object, array or scalar
+     * @return the tape
+     * @throws JSONException if the text is not a JSON document
+     */
+    public static JSONTape parse(String json) {
+        return parse(json, false);
+    }
+
+    /**
+     * Parses a JSON document onto a tape.  The grammar is stricter than org.json's, as described for {@link JSONTape}.
+     *
+     * @param json    JSON text of an object, array or scalar
+     * @param offHeap true to keep the tape in a direct buffer, outside the heap; the text stays on the heap
+     * @return the tape
+     * @throws JSONException if the text is not a JSON document
+     */
+    public static JSONTape parse(String json, boolean offHeap) {
+        return parse(new StringText(json), offHeap);
+    }
+
+    /**
+     * Parses a UTF-8 encoded JSON document onto a tape on the heap, without decoding it to a string first.  The
+     * grammar is stricter than org.json's, as described for {@link JSONTape}.
+     *
+     * @param utf8 JSON text of an object, array or scalar, in UTF-8; it is read in place, so must not change while
+     *             the tape is in use
+     * @return the tape
+     * @throws JSONException if the text is not a JSON document
+     */
+    public static JSONTape parse(byte[] utf8) {
+        return parse(utf8, false);
+    }
+
+    /**
+     * Parses a UTF-8 encoded JSON document onto a tape, without decoding it to a string first.  The grammar is
+     * stricter than org.json's, as described for {@link JSONTape}.
+     *
+     * @param utf8    JSON text of an object, array or scalar, in UTF-8; it is read in place, so must not change while
+     *                the tape is in use
+     * @param offHeap true to keep the tape in a direct buffer, outside the heap
+     * @return the tape
+     * @throws JSONException if the text is not a JSON document
+     */
+    public static JSONTape parse(byte[] utf8, boolean offHeap) {
+        return parse(new BufferText(ByteBuffer.wrap(utf8)), offHeap);
+    }
+
+    /**
+     * Parses a UTF-8 encoded JSON document onto a tape on the heap, without decoding it to a string first.  The
+     * grammar is stricter than org.json's, as described for {@link JSONTape}.
+     *
+     * @param utf8 JSON text of an object, array or scalar, in UTF-8, from the position of the buffer to its limit;
+     *             it is read in place, so must not change while the tape is in use
+     * @return the tape
+     * @throws JSONException if the text is not a JSON document
+     * @see #parse(ByteBuffer, boolean)
+     */
+    public static JSONTape parse(ByteBuffer utf8) {
+        return parse(utf8, false);
+    }
+
+    /**
+     * Parses a UTF-8 encoded JSON document onto a tape, without decoding it to a string first.  The document is read
+     * from the position of the buffer to its limit; the position of the buffer is not changed.  Direct buffers are
+     * read in place, so the document can stay outside the heap along with the tape.  The grammar is stricter than
+     * org.json's, as described for {@link JSONTape}.
+     *
+     * @param utf8    JSON text of an object, array or scalar, in UTF-8; it is read in place, so must not change while
+     *                the tape is in use
+     * @param offHeap true to keep the tape in a direct buffer, outside the heap
+     * @return the tape
+     * @throws JSONException if the text is not a JSON document
+     */
+    public static JSONTape parse(ByteBuffer utf8, boolean offHeap) {
+        return parse(new BufferText(utf8), offHeap);
+    }
+
+    private static JSONTape parse(Text text, boolean offHeap) {
+        Parser parser = new Parser(text);
+        parser.parse();
+        int[] tape = parser._tape;
+        IntBuffer buffer;
+        if (offHeap) {
+            buffer = ByteBuffer.allocateDirect(parser._size * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+            buffer.put(tape, 0, parser._size);
+            buffer.flip();
+        } else {
+            buffer = IntBuffer.wrap(Arrays.copyOf(tape, parser._size));
+        }
+        return new JSONTape(text, buffer.asReadOnlyBuffer(), parser._pool);
+    }
+
+    /**
+     * @return the top-level value of the document
+     */
+    public Node root() {
+        return new Node(this, 0);
+    }
+
+    /**
+     * @return the document as the comparators expect it: a read-only {@link org.json.JSONObject} or
+     *         {@link org.json.JSONArray} view that reads the tape on demand, or the scalar value
+     * @see JSONTreeView
+     */
+    public Object view() {
+        return JSONTreeView.of(root(), TapeTreeAdapter.INSTANCE);
+    }
+
+    /**
+     * @return number of tokens on the tape; keys count as tokens
+     */
+    public int tokenCount() {
+        return _tape.limit() / TOKEN_SIZE;
+    }
+
+    /**
+     * @return true if the tape is held outside the heap
+     */
+    public boolean isOffHeap() {
+        return _tape.isDirect();
+    }
+
+    int kind(int token) {
+        return _tape.get(token * TOKEN_SIZE);
+    }
+
+    int size(int token) {
+        return _tape.get(token * TOKEN_SIZE + 1);
+    }
+
+    private int end(int token) {
+        int kind = kind(token);
+        return kind == OBJECT || kind == ARRAY ? _tape.get(token * TOKEN_SIZE + 2) : token + 1;
+    }
+
+    Set<String> fieldNames(int object) {
+        Set<String> names = new LinkedHashSet<String>();
+        int size = size(object);
+        int token = object + 1;
+        for (int i = 0; i < size; i++) {
+            names.add(_keys[size(token)]);
+            token = end(token + 1);
+        }
+        return names;
+    }
+
+    /**
+     * @return the token of the value of the field, or -1 if the object has no such field
+     */
+    int field(int object, String name) {
+        int key = _pool.find(new StringText(name), 0, name.length());
+        if (key < 0) {
+            return -1;
+        }
+        int size = size(object);
+        if (size > INDEXED_SIZE) {
+            int[] index = index(object);
+            int mask = index.length - 1;
+            for (int slot = hash(key) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+                if (size(index[slot]) == key) {
+                    return index[slot] + 1;
+                }
+            }
+            return -1;
+        }
+        int token = object + 1;
+        for (int i = 0; i < size; i++) {
+            if (size(token) == key) {
+                return token + 1;
+            }
+            token = end(token + 1);
+        }
+        return -1;
+    }
+
+    int element(int array, int position) {
+        if (position == 0) {
+            return array + 1;
+        }
+        return index(array)[position];
+    }
+
+    /**
+     * Indexes a container the first time it is read by position or by name: an array by the tokens of its elements,
+     * an object by a hash table of the tokens of its keys.
+     */
+    private int[] index(int container) {
+        int[] index = _indexes.get(container);
+        if (index != null) {
+            return index;
+        }
+        int size = size(container);
+        int token = container + 1;
+        if (kind(container) == ARRAY) {
+            index = new int[size];
+            for (int i = 0; i < size; i++) {
+                index[i] = token;
+                token = end(token);
+            }
+        } else {
+            index = new int[Integer.highestOneBit(size) << 2];
+            int mask = index.length - 1;
+            for (int i = 0; i < size; i++) {
+                int slot = hash(size(token)) & mask;
+                while (index[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                index[slot] = token;
+                token = end(token + 1);
+            }
+        }
+        _indexes.putIfAbsent(container, index);
+        return index;
+    }
+
+    private static int hash(int key) {
+        return key * 0x9E3779B9 >>> 7;
+    }
+
+    String string(int token) {
+        int start = _tape.get(token * TOKEN_SIZE + 1);
+        int end = _tape.get(token * TOKEN_SIZE + 2);
+        return kind(token) == ESCAPED_STRING ? unescape(_text.substring(start, end)) : _text.substring(start, end);
+    }
+
+    Number number(int token) {
+        return (Number) JSONObject.stringToValue(
+                _text.substring(_tape.get(token * TOKEN_SIZE + 1), _tape.get(token * TOKEN_SIZE + 2)));
+    }
+
+    static String unescape(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            c = text.charAt(++i);
+            switch (c) {
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 'u':
+                    sb.append((char) Integer.parseInt(text.substring(i + 1, i + 5), 16));
+                    i += 4;
+                    break;
+                default:
+                    sb.append(c);
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A value on a tape.  Nodes are created as they are read and hold no data of their own.
+     */
+    public static final class Node {
+        final JSONTape _tape;
+        final int _token;
+
+        Node(JSONTape tape, int token) {
+            _tape = tape;
+            _token = token;
+        }
+    }
+
+    /**
+     * Interned keys, found by their text without building a string for each occurrence.
+     */
+    private static final class KeyPool {
+        private String[] _keys = new String[16];
+        private int[] _table = new int[32];
+        private int _count;
+
+        String[] keys() {
+            return Arrays.copyOf(_keys, _count);
+        }
+
+        String key(int id) {
+            return _keys[id];
+        }
+
+        /**
+         * @return the id of the key with the text between {@code start} and {@code end}, or -1 if there is none
+         */
+        int find(Text text, int start, int end) {
+            int mask = _table.length - 1;
+            for (int slot = hash(text, start, end) & mask; _table[slot] != 0; slot = (slot + 1) & mask) {
+                if (matches(_keys[_table[slot] - 1], text, start, end)) {
+                    return _table[slot] - 1;
+                }
+            }
+            return -1;
+        }
+
+        private static boolean matches(String key, Text text, int start, int end) {
+            if (key.length() != end - start) {
+                return false;
+            }
+            for (int i = 0; i < key.length(); i++) {
+                if (key.charAt(i) != text.charAt(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int intern(String key) {
+            return intern(new StringText(key), 0, key.length());
+        }
+
+        int intern(Text text, int start, int end) {
+            int id = find(text, start, end);
+            if (id >= 0) {
+                return id;
+            }
+            if (_count == _keys.length) {
+                _keys = Arrays.copyOf(_keys, _count * 2);
+            }
+            _keys[_count] = text.substring(start, end);
+            _count++;
+            if (_count * 2 > _table.length) {
+                _table = new int[_table.length * 2];
+                for (int i = 0; i < _count; i++) {
+                    insert(i);
+                }
+            } else {
+                insert(_count - 1);
+            }
+            return _count - 1;
+        }
+
+        private void insert(int id) {
+            String key = _keys[id];
+            int mask = _table.length - 1;
+            int slot = hash(new StringText(key), 0, key.length()) & mask;
+            while (_table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            _table[slot] = id + 1;
+        }
+
+        private static int hash(Text text, int start, int end) {
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + text.charAt(i);
+            }
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * Text a tape is parsed from.  The structure of a JSON document is ASCII, so UTF-8 text can be scanned byte by
+     * byte: the bytes of other characters never look like ASCII.  Only strings and numbers are decoded, when read.
+     */
+    private abstract static class Text {
+        /**
+         * @return index of the first character of the document
+         */
+        int start() {
+            return 0;
+        }
+
+        abstract int length();
+
+        /**
+         * @return the character at an index, or for UTF-8 text the byte, which is only a character if ASCII
+         */
+        abstract char charAt(int index);
+
+        abstract String substring(int start, int end);
+
+        boolean isAscii(int start, int end) {
+            return true;
+        }
+
+        boolean matchesIgnoreCase(int start, String word) {
+            for (int i = 0; i < word.length(); i++) {
+                if (Character.toLowerCase(charAt(start + i)) != word.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class StringText extends Text {
+        private final String _string;
+
+        StringText(String string) {
+            _string = string;
+        }
+
+        @Override
+        int length() {
+            return _string.length();
+        }
+
+        @Override
+        char charAt(int index) {
+            return _string.charAt(index);
+        }
+
+        @Override
+        String substring(int start, int end) {
+            return _string.substring(start, end);
+        }
+    }
+
+    /**
+     * UTF-8 text in a byte buffer, read in place.  A byte order mark is skipped.
+     */
+    private static final class BufferText extends Text {
+        private final ByteBuffer _buffer;
+
+        BufferText(ByteBuffer buffer) {
+            _buffer = buffer.slice();
+        }
+
+        @Override
+        int start() {
+            boolean bom = _buffer.limit() >= 3 && (_buffer.get(0) & 0xFF) == 0xEF && (_buffer.get(1) & 0xFF) == 0xBB
+                    && (_buffer.get(2) & 0xFF) == 0xBF;
+            return bom ? 3 : 0;
+        }
+
+        @Override
+        int length() {
+            return _buffer.limit();
+        }
+
+        @Override
+        char charAt(int index) {
+            return (char) (_buffer.get(index) & 0xFF);
+        }
+
+        @Override
+        String substring(int start, int end) {
+            if (_buffer.hasArray()) {
+                return new String(_buffer.array(), _buffer.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+            }
+            byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = _buffer.get(start + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        boolean isAscii(int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (_buffer.get(i) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Writes the tokens of a document onto a tape in one pass, holding the containers it is inside on a stack rather
+     * than recursing, so deeply nested documents parse in constant stack space.  Duplicate keys are found by marking
+     * each key with the object it was last seen in; marks a nested object overwrites are restored when it closes.
+     */
+    private static final class Parser {
+        private final Text _text;
+        private final KeyPool _pool = new KeyPool();
+        private int _pos;
+        private int[] _tape = new int[TOKEN_SIZE * 64];
+        private int _size;
+        private int[] _stack = new int[16];
+        private int[] _serials = new int[16];
+        private int[] _marks = new int[16];
+        private int _depth;
+        private int[] _seen = new int[16];
+        private int _serial;
+        private int[] _shadowed = new int[32];
+        private int _shadowedSize;
+
+        Parser(Text text) {
+            _text = text;
+            _pos = text.start();
+        }
+
+        void parse() {
+            while (true) {
+                char c = peek();
+                if (c == '{' || c == '[') {
+                    int token = add(c == '{' ? OBJECT : ARRAY, 0, 0);
+                    _pos++;
+                    if (peek() != (c == '{' ? '}' : ']')) {
+                        push(token);
+                        if (c == '{') {
+                            key();
+                        }
+                        continue;
+                    }
+                    _pos++;
+                    _tape[token * TOKEN_SIZE + 2] = _size / TOKEN_SIZE;
+                } else {
+                    scalar();
+                }
+                if (!closeContainers()) {
+                    break;
+                }
+            }
+            skipWhitespace();
+            // As org.json does, ignore whatever follows an object or array
+            if (_pos < _text.length() && _tape[0] != OBJECT && _tape[0] != ARRAY) {
+                throw error("Unexpected content after the document");
+            }
+        }
+
+        /**
+         * Counts a value just read into the containers it ends, up to the next separator.
+         *
+         * @return true if another value follows, false at the end of the document
+         */
+        private boolean closeContainers() {
+            while (_depth > 0) {
+                int container = _stack[_depth - 1];
+                int kind = _tape[container * TOKEN_SIZE];
+                _tape[container * TOKEN_SIZE + 1]++;
+                char close = kind == OBJECT ? '}' : ']';
+                char c = peek();
+                _pos++;
+                if (c == ',') {
+                    if (kind == OBJECT) {
+                        key();
+                    }
+                    return true;
+                } else if (c != close) {
+                    _pos--;
+                    throw error("Expected a ',' or '" + close + "'");
+                }
+                _tape[container * TOKEN_SIZE + 2] = _size / TOKEN_SIZE;
+                _depth--;
+                while (_shadowedSize > _marks[_depth]) {
+                    _shadowedSize -= 2;
+                    _seen[_shadowed[_shadowedSize]] = _shadowed[_shadowedSize + 1];
+                }
+            }
+            return false;
+        }
+
+        private void push(int token) {
+            if (_depth == _stack.length) {
+                _stack = Arrays.copyOf(_stack, _depth * 2);
+                _serials = Arrays.copyOf(_serials, _depth * 2);
+                _marks = Arrays.copyOf(_marks, _depth * 2);
+            }
+            _stack[_depth] = token;
+            _serials[_depth] = ++_serial;
+            _marks[_depth] = _shadowedSize;
+            _depth++;
+        }
+
+        private void key() {
+            char c = peek();
+            int id;
+            if (c == '"' || c == '\'') {
+                int start = _pos + 1;
+                if (skipString() || !_text.isAscii(start, _pos - 1)) {
+                    id = _pool.intern(unescape(_text.substring(start, _pos - 1)));
+                } else {
+                    id = _pool.intern(_text, start, _pos - 1);
+                }
+            } else {
+                int start = _pos;
+                while (_pos < _text.length() && !endsUnquotedText(_text.charAt(_pos))) {
+                    _pos++;
+                }
+                if (_pos == start) {
+                    throw error("Expected a key");
+                }
+                id = _text.isAscii(start, _pos) ? _pool.intern(_text, start, _pos)
+                        : _pool.intern(_text.substring(start, _pos));
+            }
+            if (id >= _seen.length) {
+                _seen = Arrays.copyOf(_seen, Math.max(id + 1, _seen.length * 2));
+            }
+            int serial = _serials[_depth - 1];
+            if (_seen[id] == serial) {
+                throw new JSONException("Duplicate key " + JSONObject.quote(_pool.key(id)));
+            }
+            if (_seen[id] != 0) {
+                if (_shadowedSize == _shadowed.length) {
+                    _shadowed = Arrays.copyOf(_shadowed, _shadowedSize * 2);
+                }
+                _shadowed[_shadowedSize++] = id;
+                _shadowed[_shadowedSize++] = _seen[id];
+            }
+            _seen[id] = serial;
+            add(KEY, id, 0);
+            if (peek() != ':') {
+                throw error("Expected a ':' after a key");
+            }
+            _pos++;
+        }
+
+        private void scalar() {
+            char c = peek();
+            int start = _pos;
+            if (c == '"' || c == '\'') {
+                boolean escaped = skipString();
+                add(escaped ? ESCAPED_STRING : STRING, start + 1, _pos - 1);
+                return;
+            }
+            while (_pos < _text.length() && !endsUnquotedText(_text.charAt(_pos))) {
+                _pos++;
+            }
+            if (_pos == start) {
+                throw error("Expected a value");
+            }
+            int length = _pos - start;
+            if (isNumber(start, _pos)) {
+                add(NUMBER, start, _pos);
+            } else if (length == 4 && _text.matchesIgnoreCase(start, "true")) {
+                add(TRUE, start, _pos);
+            } else if (length == 5 && _text.matchesIgnoreCase(start, "false")) {
+                add(FALSE, start, _pos);
+            } else if (length == 4 && _text.matchesIgnoreCase(start, "null")) {
+                add(NULL, start, _pos);
+            } else {
+                add(STRING, start, _pos);
+            }
+        }
+
+        /**
+         * Unquoted text ends where org.json ends it, or at whitespace, which org.json would keep in the text.
+         */
+        private static boolean endsUnquotedText(char c) {
+            return c <= ' ' || Character.isWhitespace(c) || ",:]}/\\\"[{;=#".indexOf(c) >= 0;
+        }
+
+        /**
+         * Moves past a quoted string, checking its escapes.
+         *
+         * @return true if the string has escapes
+         */
+        private boolean skipString() {
+            char quote = next();
+            boolean escaped = false;
+            while (true) {
+                char c = next();
+                if (c == quote) {
+                    return escaped;
+                } else if (c == '\\') {
+                    escaped = true;
+                    c = next();
+                    if (c == 'u') {
+                        for (int i = 0; i < 4; i++) {
+                            if (Character.digit(next(), 16) < 0) {
+                                throw error("Illegal escape");
+                            }
+                        }
+                    } else if ("btnfr\"'\\/".indexOf(c) < 0) {
+                        throw error("Illegal escape");
+                    }
+                } else if (c == '\n' || c == '\r') {
+                    throw error("Unterminated string");
+                }
+            }
+        }
+
+        private boolean isNumber(int start, int end) {
+            int i = start;
+            if (i < end && _text.charAt(i) == '-') {
+                i++;
+            }
+            if (i < end && _text.charAt(i) == '0') {
+                i++;
+            } else {
+                int digits = i;
+                i = digits(i, end);
+                if (i == digits) {
+                    return false;
+                }
+            }
+            if (i < end && _text.charAt(i) == '.') {
+                int digits = i + 1;
+                i = digits(digits, end);
+                if (i == digits) {
+                    return false;
+                }
+            }
+            if (i < end && (_text.charAt(i) == 'e' || _text.charAt(i) == 'E')) {
+                i++;
+                if (i < end && (_text.charAt(i) == '+' || _text.charAt(i) == '-')) {
+                    i++;
+                }
+                int digits = i;
+                i = digits(digits, end);
+                if (i == digits) {
+                    return false;
+                }
+            }
+            return i == end;
+        }
+
+        private int digits(int i, int end) {
+            while (i < end && _text.charAt(i) >= '0' && _text.charAt(i) <= '9') {
+                i++;
+            }
+            return i;
+        }
+
+        private int add(int kind, int a, int b) {
+            if (_size + TOKEN_SIZE > _tape.length) {
+                _tape = Arrays.copyOf(_tape, _tape.length * 2);
+            }
+            _tape[_size] = kind;
+            _tape[_size + 1] = a;
+            _tape[_size + 2] = b;
+            _size += TOKEN_SIZE;
+            return _size / TOKEN_SIZE - 1;
+        }
+
+        private char peek() {
+            skipWhitespace();
+            if (_pos >= _text.length()) {
+                throw error("Unexpected end of document");
+            }
+            return _text.charAt(_pos);
+        }
+
+        private char next() {
+            if (_pos >= _text.length()) {
+                throw error("Unexpected end of document");
+            }
+            return _text.charAt(_pos++);
+        }
+
+        private void skipWhitespace() {
+            while (_pos < _text.length() && Character.isWhitespace(_text.charAt(_pos))) {
+                _pos++;
+            }
+        }
+
+        private JSONException error(String message) {
+            return new JSONException(message + " at character " + _pos);
+        }
+    }
+}
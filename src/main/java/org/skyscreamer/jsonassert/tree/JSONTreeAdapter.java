@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.tree;
+
+import java.util.Set;
+
+/**
+ * <p>Gives read access to the nodes of a JSON tree model, so that trees already held by the caller can be compared
+ * without serialising and reparsing them.  {@link JSONTreeView} presents an adapted tree to the comparators as
+ * {@link org.json.JSONObject}s and {@link org.json.JSONArray}s that read the tree on demand.</p>
+ *
+ * <p>Adapters are provided for org.json ({@link OrgJsonTreeAdapter}), plain {@code java.util} collections
+ * ({@link CollectionTreeAdapter}), compact {@link JSONTape}s ({@link TapeTreeAdapter}), Jackson
+ * ({@link JacksonTreeAdapter}) and Gson ({@link GsonTreeAdapter}).  The Jackson and Gson libraries are optional
+ * dependencies; their adapter can only be used if the library is on the classpath.</p>
+ *
+ * <p>Methods are only called with nodes of the kind they document; an adapter need not check.</p>
+ *
+ * @param <N> type of the nodes of the tree model
+ */
+public interface JSONTreeAdapter<N> {
+
+    /**
+     * @param node a node of the tree, may be null
+     * @return the kind of node
+     * @throws IllegalArgumentException if the node is not a JSON value
+     */
+    JSONNodeType typeOf(N node);
+
+    /**
+     * @param object an {@link JSONNodeType#OBJECT} node
+     * @return names of its fields, in document order if the tree keeps it
+     */
+    Set<String> fieldNames(N object);
+
+    /**
+     * @param object an {@link JSONNodeType#OBJECT} node
+     * @param name   name of a field
+     * @return true if the object has the field, even with a null value
+     */
+    boolean hasField(N object, String name);
+
+    /**
+     * @param object an {@link JSONNodeType#OBJECT} node
+     * @param name   name of a field the object has
+     * @return the value of the field
+     */
+    N field(N object, String name);
+
+    /**
+     * @param container an {@link JSONNodeType#OBJECT} or {@link JSONNodeType#ARRAY} node
+     * @return number of fields or elements
+     */
+    int size(N container);
+
+    /**
+     * @param array an {@link JSONNodeType#ARRAY} node
+     * @param index index of an element, from 0 to {@code size(array) - 1}
+     * @return the element
+     */
+    N element(N array, int index);
+
+    /**
+     * @param node a {@link JSONNodeType#STRING} node
+     * @return its value
+     */
+    String stringValue(N node);
+
+    /**
+     * @param node a {@link JSONNodeType#NUMBER} node
+     * @return its value
+     */
+    Number numberValue(N node);
+
+    /**
+     * @param node a {@link JSONNodeType#BOOLEAN} node
+     * @return its value
+     */
+    boolean booleanValue(N node);
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.tree;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONString;
+
+/**
+ * <p>Presents a tree read through a {@link JSONTreeAdapter} in the form the comparators expect.  Objects and arrays
+ * become read-only {@link JSONObject} and {@link JSONArray} views that read the tree on demand, and are only created
+ * for the parts of the tree the comparison visits.  Scalars become the values org.json would have parsed: strings,
+ * {@link Boolean}s, {@link JSONObject#NULL} and numbers of the same class org.json picks for the same text.</p>
+ *
+ * <p>Views reject modification with {@link UnsupportedOperationException}.  Like other {@code JSONObject}s, views
+ * are only equal to themselves.  Every read goes through the tree, {@code similar}, {@code toMap} and
+ * {@code toList} included, but org.json reads the backing store of its argument directly in two places, which
+ * views leave empty: call {@code similar} on the view rather than on a plain {@link JSONArray} it is compared to,
+ * and copy a view with {@code new JSONArray(view.toList())} rather than {@code new JSONArray(view)}.</p>
+ */
+public final class JSONTreeView {
+    private JSONTreeView() {
+    }
+
+    /**
+     * Views a node of a tree.  org.json nodes read through {@link OrgJsonTreeAdapter} are returned unchanged.
+     *
+     * @param node    the node, may be null
+     * @param adapter reads the tree
+     * @param <N>     type of the nodes of the tree model
+     * @return a {@link JSONObject} or {@link JSONArray} view, or the scalar value
+     * @throws IllegalArgumentException if the node is not a JSON value
+     */
+    public static <N> Object of(N node, JSONTreeAdapter<N> adapter) {
+        if (adapter instanceof OrgJsonTreeAdapter) {
+            return node == null ? JSONObject.NULL : node;
+        }
+        switch (adapter.typeOf(node)) {
+            case OBJECT:
+                return new ObjectView<N>(node, adapter);
+            case ARRAY:
+                return new ArrayView<N>(node, adapter);
+            case STRING:
+                return adapter.stringValue(node);
+            case NUMBER:
+                return normalize(adapter.numberValue(node));
+            case BOOLEAN:
+                return adapter.booleanValue(node);
+            default:
+                return JSONObject.NULL;
+        }
+    }
+
+    /**
+     * Views an object node.
+     *
+     * @param node    an object node
+     * @param adapter reads the tree
+     * @param <N>     type of the nodes of the tree model
+     * @return a {@link JSONObject} view of the node
+     * @throws IllegalArgumentException if the node is not an object
+     */
+    public static <N> JSONObject object(N node, JSONTreeAdapter<N> adapter) {
+        Object view = of(node, adapter);
+        if (!(view instanceof JSONObject)) {
+            throw new IllegalArgumentException("Not a JSON object: " + view);
+        }
+        return (JSONObject) view;
+    }
+
+    /**
+     * Views an array node.
+     *
+     * @param node    an array node
+     * @param adapter reads the tree
+     * @param <N>     type of the nodes of the tree model
+     * @return a {@link JSONArray} view of the node
+     * @throws IllegalArgumentException if the node is not an array
+     */
+    public static <N> JSONArray array(N node, JSONTreeAdapter<N> adapter) {
+        Object view = of(node, adapter);
+        if (!(view instanceof JSONArray)) {
+            throw new IllegalArgumentException("Not a JSON array: " + view);
+        }
+        return (JSONArray) view;
+    }
+
+    /**
+     * Converts a number to the class org.json uses for the same text, so that lenient array comparisons, which
+     * match values with {@code equals()}, treat numbers from any tree model alike.  Integral numbers are narrowed as
+     * org.json narrows them.  A {@link BigDecimal} is what org.json builds for any literal with a fraction or an
+     * exponent, with the scale of the literal, so it is returned unchanged: {@code 1e0} stays {@code 1E0} rather
+     * than becoming the {@code Integer} org.json builds for {@code 1}.  Other numbers, such as doubles, are converted
+     * from their text.
+     */
+    static Object normalize(Number number) {
+        if (number instanceof Integer || number instanceof BigDecimal) {
+            return number;
+        }
+        if (number instanceof Long || number instanceof Short || number instanceof Byte) {
+            long value = number.longValue();
+            return value == (int) value ? Integer.valueOf((int) value) : (Object) Long.valueOf(value);
+        }
+        if (number instanceof BigInteger) {
+            BigInteger value = (BigInteger) number;
+            if (value.bitLength() < 32) {
+                return value.intValue();
+            }
+            return value.bitLength() < 64 ? (Object) value.longValue() : value;
+        }
+        if ((number instanceof Double || number instanceof Float)
+                && (Double.isNaN(number.doubleValue()) || Double.isInfinite(number.doubleValue()))) {
+            return number;
+        }
+        return JSONObject.stringToValue(number.toString());
+    }
+
+    /**
+     * Compares two values the way {@link JSONObject#similar(Object)} compares member values.  A view is asked rather
+     * than a plain {@link JSONObject} or {@link JSONArray}, whose {@code similar} reads the other side's backing
+     * store and so cannot see into a view.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static boolean similar(Object value, Object other) {
+        if (value == other) {
+            return true;
+        }
+        if (value == null || other == null) {
+            return false;
+        }
+        if (other instanceof ObjectView || other instanceof ArrayView) {
+            return ((value instanceof JSONObject) == (other instanceof JSONObject)) && (other instanceof JSONObject
+                    ? ((JSONObject) other).similar(value) : ((JSONArray) other).similar(value));
+        }
+        if (value instanceof JSONObject) {
+            return ((JSONObject) value).similar(other);
+        }
+        if (value instanceof JSONArray) {
+            return ((JSONArray) value).similar(other);
+        }
+        if (value instanceof Number && other instanceof Number) {
+            Number number = (Number) value;
+            Number otherNumber = (Number) other;
+            if (!isFinite(number) || !isFinite(otherNumber)) {
+                return false;
+            }
+            if (number.getClass().equals(otherNumber.getClass()) && number instanceof Comparable) {
+                return ((Comparable) number).compareTo(otherNumber) == 0;
+            }
+            try {
+                return new BigDecimal(number.toString()).compareTo(new BigDecimal(otherNumber.toString())) == 0;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        if (value instanceof JSONString && other instanceof JSONString) {
+            return String.valueOf(((JSONString) value).toJSONString())
+                    .equals(((JSONString) other).toJSONString());
+        }
+        return value.equals(other);
+    }
+
+    private static boolean isFinite(Number number) {
+        return !(number instanceof Double || number instanceof Float)
+                || !Double.isNaN(number.doubleValue()) && !Double.isInfinite(number.doubleValue());
+    }
+
+    static void writeValue(Writer writer, Object value, int indentFactor, int indent) throws IOException {
+        if (value == null || JSONObject.NULL.equals(value)) {
+            writer.write("null");
+        } else if (value instanceof JSONObject) {
+            ((JSONObject) value).write(writer, indentFactor, indent);
+        } else if (value instanceof JSONArray) {
+            ((JSONArray) value).write(writer, indentFactor, indent);
+        } else if (value instanceof Number || value instanceof Boolean) {
+            writer.write(JSONObject.valueToString(value));
+        } else {
+            JSONObject.quote(value.toString(), writer);
+        }
+    }
+
+    static void newLine(Writer writer, int indentFactor, int indent) throws IOException {
+        if (indentFactor > 0) {
+            writer.write('\n');
+            for (int i = 0; i < indent; i++) {
+                writer.write(' ');
+            }
+        }
+    }
+}
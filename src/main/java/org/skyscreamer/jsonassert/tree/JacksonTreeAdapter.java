@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.tree;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * <p>{@link JSONTreeAdapter} for Jackson {@link JsonNode} trees.  Missing nodes read as null, and binary and POJO
+ * nodes read as their text.</p>
+ *
+ * <p>jackson-databind is an optional dependency: this adapter can only be used if it is on the classpath.</p>
+ */
+public final class JacksonTreeAdapter implements JSONTreeAdapter<JsonNode> {
+    /**
+     * The adapter.  It has no state.
+     */
+    public static final JacksonTreeAdapter INSTANCE = new JacksonTreeAdapter();
+
+    private JacksonTreeAdapter() {
+    }
+
+    @Override
+    public JSONNodeType typeOf(JsonNode node) {
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            return JSONNodeType.NULL;
+        } else if (node.isObject()) {
+            return JSONNodeType.OBJECT;
+        } else if (node.isArray()) {
+            return JSONNodeType.ARRAY;
+        } else if (node.isNumber()) {
+            return JSONNodeType.NUMBER;
+        } else if (node.isBoolean()) {
+            return JSONNodeType.BOOLEAN;
+        }
+        return JSONNodeType.STRING;
+    }
+
+    @Override
+    public Set<String> fieldNames(JsonNode object) {
+        Set<String> names = new LinkedHashSet<String>();
+        for (Iterator<String> iter = object.fieldNames(); iter.hasNext(); ) {
+            names.add(iter.next());
+        }
+        return names;
+    }
+
+    @Override
+    public boolean hasField(JsonNode object, String name) {
+        return object.has(name);
+    }
+
+    @Override
+    public JsonNode field(JsonNode object, String name) {
+        return object.get(name);
+    }
+
+    @Override
+    public int size(JsonNode container) {
+        return container.size();
+    }
+
+    @Override
+    public JsonNode element(JsonNode array, int index) {
+        return array.get(index);
+    }
+
+    @Override
+    public String stringValue(JsonNode node) {
+        return node.asText();
+    }
+
+    @Override
+    public Number numberValue(JsonNode node) {
+        return node.numberValue();
+    }
+
+    @Override
+    public boolean booleanValue(JsonNode node) {
+        return node.booleanValue();
+    }
+}
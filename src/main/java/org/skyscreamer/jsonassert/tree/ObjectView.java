@@ -0,0 +1,167 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.tree;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Read-only {@link JSONObject} that reads an object node through a {@link JSONTreeAdapter}.  Field values are viewed
+ * when first read and kept, so a field read twice yields the same view.
+ */
+final class ObjectView<N> extends JSONObject {
+    private final N _node;
+    private final JSONTreeAdapter<N> _adapter;
+    private Set<String> _keys;
+    private Map<String, Object> _values;
+
+    ObjectView(N node, JSONTreeAdapter<N> adapter) {
+        _node = node;
+        _adapter = adapter;
+    }
+
+    @Override
+    public boolean has(String key) {
+        return key != null && (_values != null && _values.containsKey(key) || _adapter.hasField(_node, key));
+    }
+
+    @Override
+    public Object opt(String key) {
+        if (key == null) {
+            return null;
+        }
+        Object value = _values == null ? null : _values.get(key);
+        if (value == null && _adapter.hasField(_node, key)) {
+            value = JSONTreeView.of(_adapter.field(_node, key), _adapter);
+            if (_values == null) {
+                _values = new HashMap<String, Object>();
+            }
+            _values.put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public Object get(String key) throws JSONException {
+        if (key == null) {
+            throw new JSONException("Null key.");
+        }
+        Object value = opt(key);
+        if (value == null) {
+            throw new JSONException("JSONObject[" + quote(key) + "] not found.");
+        }
+        return value;
+    }
+
+    @Override
+    public Iterator<String> keys() {
+        return keySet().iterator();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        if (_keys == null) {
+            _keys = Collections.unmodifiableSet(_adapter.fieldNames(_node));
+        }
+        return _keys;
+    }
+
+    @Override
+    public int length() {
+        return _adapter.size(_node);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return length() == 0;
+    }
+
+    @Override
+    public JSONArray names() {
+        return isEmpty() ? null : new JSONArray(keySet());
+    }
+
+    @Override
+    protected Set<Map.Entry<String, Object>> entrySet() {
+        Map<String, Object> entries = new LinkedHashMap<String, Object>();
+        for (String key : keySet()) {
+            entries.put(key, opt(key));
+        }
+        return Collections.unmodifiableMap(entries).entrySet();
+    }
+
+    @Override
+    public boolean similar(Object other) {
+        if (!(other instanceof JSONObject) || !keySet().equals(((JSONObject) other).keySet())) {
+            return false;
+        }
+        for (String key : keySet()) {
+            if (!JSONTreeView.similar(opt(key), ((JSONObject) other).opt(key))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public JSONObject put(String key, Object value) {
+        throw new UnsupportedOperationException("JSON tree views are read-only");
+    }
+
+    @Override
+    public Object remove(String key) {
+        throw new UnsupportedOperationException("JSON tree views are read-only");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("JSON tree views are read-only");
+    }
+
+    @Override
+    public Writer write(Writer writer, int indentFactor, int indent) throws JSONException {
+        try {
+            writer.write('{');
+            boolean first = true;
+            for (String key : keySet()) {
+                if (!first) {
+                    writer.write(',');
+                }
+                JSONTreeView.newLine(writer, indentFactor, indent + indentFactor);
+                quote(key, writer);
+                writer.write(indentFactor > 0 ? ": " : ":");
+                JSONTreeView.writeValue(writer, opt(key), indentFactor, indent + indentFactor);
+                first = false;
+            }
+            if (!first) {
+                JSONTreeView.newLine(writer, indentFactor, indent);
+            }
+            writer.write('}');
+            return writer;
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
+}
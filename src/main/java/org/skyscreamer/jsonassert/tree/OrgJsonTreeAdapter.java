@@ -0,0 +1,91 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.tree;
+
+import java.util.Set;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONString;
+
+/**
+ * {@link JSONTreeAdapter} for org.json trees, the model the comparators work on.  {@link JSONTreeView} returns these
+ * trees unchanged; the adapter lets code written against {@code JSONTreeAdapter} handle org.json trees too.
+ */
+public final class OrgJsonTreeAdapter implements JSONTreeAdapter<Object> {
+    /**
+     * The adapter.  It has no state.
+     */
+    public static final OrgJsonTreeAdapter INSTANCE = new OrgJsonTreeAdapter();
+
+    private OrgJsonTreeAdapter() {
+    }
+
+    @Override
+    public JSONNodeType typeOf(Object node) {
+        if (node == null || JSONObject.NULL.equals(node)) {
+            return JSONNodeType.NULL;
+        } else if (node instanceof JSONObject) {
+            return JSONNodeType.OBJECT;
+        } else if (node instanceof JSONArray) {
+            return JSONNodeType.ARRAY;
+        } else if (node instanceof Number) {
+            return JSONNodeType.NUMBER;
+        } else if (node instanceof Boolean) {
+            return JSONNodeType.BOOLEAN;
+        }
+        return JSONNodeType.STRING;
+    }
+
+    @Override
+    public Set<String> fieldNames(Object object) {
+        return ((JSONObject) object).keySet();
+    }
+
+    @Override
+    public boolean hasField(Object object, String name) {
+        return ((JSONObject) object).has(name);
+    }
+
+    @Override
+    public Object field(Object object, String name) {
+        return ((JSONObject) object).opt(name);
+    }
+
+    @Override
+    public int size(Object container) {
+        return container instanceof JSONObject ? ((JSONObject) container).length() : ((JSONArray) container).length();
+    }
+
+    @Override
+    public Object element(Object array, int index) {
+        return ((JSONArray) array).opt(index);
+    }
+
+    @Override
+    public String stringValue(Object node) {
+        return node instanceof JSONString ? ((JSONString) node).toJSONString() : node.toString();
+    }
+
+    @Override
+    public Number numberValue(Object node) {
+        return (Number) node;
+    }
+
+    @Override
+    public boolean booleanValue(Object node) {
+        return (Boolean) node;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.tree;
+
+import java.util.Set;
+
+/**
+ * {@link JSONTreeAdapter} for documents parsed onto a {@link JSONTape}.
+ */
+public final class TapeTreeAdapter implements JSONTreeAdapter<JSONTape.Node> {
+    /**
+     * The adapter.  It has no state.
+     */
+    public static final TapeTreeAdapter INSTANCE = new TapeTreeAdapter();
+
+    private TapeTreeAdapter() {
+    }
+
+    @Override
+    public JSONNodeType typeOf(JSONTape.Node node) {
+        if (node == null) {
+            return JSONNodeType.NULL;
+        }
+        switch (node._tape.kind(node._token)) {
+            case JSONTape.OBJECT:
+                return JSONNodeType.OBJECT;
+            case JSONTape.ARRAY:
+                return JSONNodeType.ARRAY;
+            case JSONTape.STRING:
+            case JSONTape.ESCAPED_STRING:
+                return JSONNodeType.STRING;
+            case JSONTape.NUMBER:
+                return JSONNodeType.NUMBER;
+            case JSONTape.TRUE:
+            case JSONTape.FALSE:
+                return JSONNodeType.BOOLEAN;
+            default:
+                return JSONNodeType.NULL;
+        }
+    }
+
+    @Override
+    public Set<String> fieldNames(JSONTape.Node object) {
+        return object._tape.fieldNames(object._token);
+    }
+
+    @Override
+    public boolean hasField(JSONTape.Node object, String name) {
+        return object._tape.field(object._token, name) >= 0;
+    }
+
+    @Override
+    public JSONTape.Node field(JSONTape.Node object, String name) {
+        int token = object._tape.field(object._token, name);
+        return token < 0 ? null : new JSONTape.Node(object._tape, token);
+    }
+
+    @Override
+    public int size(JSONTape.Node container) {
+        return container._tape.size(container._token);
+    }
+
+    @Override
+    public JSONTape.Node element(JSONTape.Node array, int index) {
+        return new JSONTape.Node(array._tape, array._tape.element(array._token, index));
+    }
+
+    @Override
+    public String stringValue(JSONTape.Node node) {
+        return node._tape.string(node._token);
+    }
+
+    @Override
+    public Number numberValue(JSONTape.Node node) {
+        return node._tape.number(node._token);
+    }
+
+    @Override
+    public boolean booleanValue(JSONTape.Node node) {
+        return node._tape.kind(node._token) == JSONTape.TRUE;
+    }
+}
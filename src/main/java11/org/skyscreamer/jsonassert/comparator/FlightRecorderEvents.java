@@ -0,0 +1,202 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.comparator;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.skyscreamer.jsonassert.JSONCompareResult;
+
+/**
+ * <p>Emits Java Flight Recorder events for comparisons.  This is the Java 11 version, packaged in the
+ * multi-release section of the jar; the Java 8 version in {@code src/main/java} does nothing.</p>
+ *
+ * <p>Each {@code begin} method returns an opaque token, null when the event is disabled, that must be passed to the
+ * matching {@code end} method.  Whether an event is enabled is checked before it is allocated, so comparisons made
+ * while no recording asks for the events allocate nothing.</p>
+ */
+final class FlightRecorderEvents {
+    private FlightRecorderEvents() {
+    }
+
+    @Name("org.skyscreamer.jsonassert.Comparison")
+    @Label("JSON Comparison")
+    @Description("A top-level comparison made by a JSONComparator")
+    @Category("JSONassert")
+    @StackTrace(false)
+    static final class ComparisonEvent extends Event {
+        @Label("Comparator")
+        String comparator;
+
+        @Label("Path")
+        @Description("Path of the compared values, empty for whole documents")
+        String path;
+
+        @Label("Kind")
+        @Description("Whether objects or arrays were compared")
+        String kind;
+
+        @Label("Expected Size")
+        @Description("Number of fields or elements at the top of the expected document")
+        int expectedSize;
+
+        @Label("Actual Size")
+        @Description("Number of fields or elements at the top of the actual document")
+        int actualSize;
+
+        @Label("Passed")
+        boolean passed;
+
+        @Label("Inconclusive")
+        boolean inconclusive;
+
+        @Label("Failures")
+        int failures;
+    }
+
+    @Name("org.skyscreamer.jsonassert.ArrayFallback")
+    @Label("JSON Array Fallback")
+    @Description("Two unordered arrays compared element by element because no cheaper strategy applied")
+    @Category("JSONassert")
+    static final class ArrayFallbackEvent extends Event {
+        @Label("Path")
+        String path;
+
+        @Label("Expected Length")
+        int expectedLength;
+
+        @Label("Actual Length")
+        int actualLength;
+    }
+
+    @Name("org.skyscreamer.jsonassert.SlowValueMatcher")
+    @Label("Slow JSON Value Matcher")
+    @Description("A customization's ValueMatcher that took longer than the threshold")
+    @Category("JSONassert")
+    @Threshold("10 ms")
+    static final class ValueMatcherEvent extends Event {
+        @Label("Path")
+        String path;
+
+        @Label("Expected Size")
+        @Description("Number of fields or elements of the expected value, or -1 for a scalar")
+        int expectedSize;
+
+        @Label("Actual Size")
+        @Description("Number of fields or elements of the actual value, or -1 for a scalar")
+        int actualSize;
+
+        @Label("Matched")
+        boolean matched;
+    }
+
+    // Looked up on first use, once a recording has initialized Flight Recorder
+    private static final class Types {
+        static final EventType COMPARISON = EventType.getEventType(ComparisonEvent.class);
+        static final EventType ARRAY_FALLBACK = EventType.getEventType(ArrayFallbackEvent.class);
+        static final EventType VALUE_MATCHER = EventType.getEventType(ValueMatcherEvent.class);
+    }
+
+    static Object beginComparison() {
+        if (!FlightRecorder.isInitialized() || !Types.COMPARISON.isEnabled()) {
+            return null;
+        }
+        return begin(new ComparisonEvent());
+    }
+
+    static void endComparison(Object token, String comparator, String path, String kind, int expectedSize,
+                              int actualSize, JSONCompareResult result) {
+        if (token == null) {
+            return;
+        }
+        ComparisonEvent event = (ComparisonEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.comparator = comparator;
+            event.path = path;
+            event.kind = kind;
+            event.expectedSize = expectedSize;
+            event.actualSize = actualSize;
+            event.passed = result.passed();
+            event.inconclusive = result.isInconclusive();
+            event.failures = result.getFailureCount();
+            event.commit();
+        }
+    }
+
+    static Object beginArrayFallback() {
+        if (!FlightRecorder.isInitialized() || !Types.ARRAY_FALLBACK.isEnabled()) {
+            return null;
+        }
+        return begin(new ArrayFallbackEvent());
+    }
+
+    static void endArrayFallback(Object token, String path, int expectedLength, int actualLength) {
+        if (token == null) {
+            return;
+        }
+        ArrayFallbackEvent event = (ArrayFallbackEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.expectedLength = expectedLength;
+            event.actualLength = actualLength;
+            event.commit();
+        }
+    }
+
+    static Object beginValueMatcher() {
+        if (!FlightRecorder.isInitialized() || !Types.VALUE_MATCHER.isEnabled()) {
+            return null;
+        }
+        return begin(new ValueMatcherEvent());
+    }
+
+    static void endValueMatcher(Object token, String path, Object expected, Object actual, boolean matched) {
+        if (token == null) {
+            return;
+        }
+        ValueMatcherEvent event = (ValueMatcherEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.expectedSize = sizeOf(expected);
+            event.actualSize = sizeOf(actual);
+            event.matched = matched;
+            event.commit();
+        }
+    }
+
+    private static Event begin(Event event) {
+        event.begin();
+        return event;
+    }
+
+    private static int sizeOf(Object value) {
+        if (value instanceof JSONObject) {
+            return ((JSONObject) value).length();
+        }
+        return value instanceof JSONArray ? ((JSONArray) value).length() : -1;
+    }
+}
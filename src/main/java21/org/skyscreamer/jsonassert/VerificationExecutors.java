@@ -0,0 +1,32 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the default executor of {@link AsyncJSONCompare}.  This is the Java 21 version, packaged in the
+ * multi-release section of the jar, which starts a virtual thread per verification; the Java 8 version in
+ * {@code src/main/java} uses a pool of platform threads.
+ */
+final class VerificationExecutors {
+    private VerificationExecutors() {
+    }
+
+    static ExecutorService newDefaultExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("jsonassert-verify-", 1).factory());
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.comparator.DefaultComparator;
+
+/**
+ * Unit tests for {@link ArraySampling}.
+ */
+public class ArraySamplingTest {
+
+    @Test
+    public void strideSpacesPositionsEvenly() {
+        assertArrayEquals(new int[] {0, 4, 8}, ArraySampling.stride(0.25).select("", 12));
+        assertArrayEquals(new int[] {0}, ArraySampling.stride(0.0001).select("", 12));
+    }
+
+    @Test
+    public void randomPositionsAreReproducible() {
+        ArraySampling sampling = ArraySampling.random(0.1, 42);
+        int[] positions = sampling.select("items", 1000);
+        assertEquals(100, positions.length);
+        assertArrayEquals(positions, ArraySampling.random(0.1, 42).select("items", 1000));
+        for (int i = 1; i < positions.length; i++) {
+            assertTrue(positions[i] > positions[i - 1]);
+        }
+        assertFalse(java.util.Arrays.equals(positions, ArraySampling.random(0.1, 43).select("items", 1000)));
+    }
+
+    @Test
+    public void shortArraysAreComparedInFull() {
+        ArraySampling sampling = ArraySampling.stride(0.5);
+        assertFalse(sampling.appliesTo(999));
+        assertTrue(sampling.appliesTo(1000));
+        assertFalse(ArraySampling.stride(1).withMinLength(0).appliesTo(10));
+    }
+
+    @Test
+    public void comparesOnlySampledElementsInStrictOrder() {
+        JSONArray expected = numbers(100);
+        JSONArray actual = numbers(100);
+        actual.put(3, -1);
+        DefaultComparator comparator = new DefaultComparator(JSONCompareMode.STRICT);
+        comparator.setArraySampling(ArraySampling.stride(0.1).withMinLength(10));
+
+        JSONCompareResult result = comparator.compareJSON(expected, actual);
+        assertTrue(result.passed());
+        assertTrue(result.isSampled());
+        assertEquals(0.1, result.getVerifiedFraction(), 0);
+
+        actual.put(30, -1);
+        result = comparator.compareJSON(expected, actual);
+        assertEquals("[30]\nExpected: 30\n     got: -1\n", result.getMessage());
+    }
+
+    @Test
+    public void alwaysComparesLengths() {
+        DefaultComparator comparator = new DefaultComparator(JSONCompareMode.STRICT);
+        comparator.setArraySampling(ArraySampling.stride(0.1).withMinLength(10));
+        assertTrue(comparator.compareJSON(numbers(100), numbers(99)).failed());
+    }
+
+    @Test
+    public void samplesKeyedElements() {
+        JSONArray expected = new JSONArray();
+        JSONArray actual = new JSONArray();
+        for (int i = 0; i < 20; i++) {
+            expected.put(new JSONObject().put("id", i).put("value", i));
+            actual.put(new JSONObject().put("id", 19 - i).put("value", i == 0 ? 0 : 19 - i));
+        }
+        DefaultComparator comparator = new DefaultComparator(JSONCompareMode.LENIENT);
+        comparator.setArraySampling(ArraySampling.stride(0.5).withMinLength(10));
+        // Only the element with id 19 differs, and odd positions are not sampled
+        JSONCompareResult result = comparator.compareJSON(expected, actual);
+        assertTrue(result.passed());
+        assertEquals(0.5, result.getVerifiedFraction(), 0);
+
+        comparator.setArraySampling(null);
+        result = comparator.compareJSON(expected, actual);
+        assertTrue(result.failed());
+        assertFalse(result.isSampled());
+        assertEquals(1, result.getVerifiedFraction(), 0);
+    }
+
+    private static JSONArray numbers(int length) {
+        JSONArray array = new JSONArray();
+        for (int i = 0; i < length; i++) {
+            array.put(i);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link AsyncJSONCompare}.
+ */
+public class AsyncJSONCompareTest {
+
+    /**
+     * Holds tasks until {@link #runAll()} is called.
+     */
+    private static class HeldExecutor implements Executor {
+        private final List<Runnable> _tasks = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable task) {
+            _tasks.add(task);
+        }
+
+        void runAll() {
+            for (Runnable task : _tasks) {
+                task.run();
+            }
+            _tasks.clear();
+        }
+    }
+
+    @Test
+    public void comparesOnTheDefaultExecutor() throws Exception {
+        try (AsyncJSONCompare async = new AsyncJSONCompare(16, AsyncJSONCompare.OverflowPolicy.REJECT)) {
+            CompletableFuture<JSONCompareResult> passing = async.compareJSON("{a:1}", "{a:1,b:2}",
+                    JSONCompareMode.LENIENT);
+            CompletableFuture<JSONCompareResult> failing = async.verify(
+                    CompiledExpectation.compile("[1,2]", JSONCompareMode.STRICT), "[2,1]");
+            assertTrue(passing.get().passed());
+            assertEquals(JSONCompare.compareJSON("[1,2]", "[2,1]", JSONCompareMode.STRICT).getMessage(),
+                    failing.get().getMessage());
+        }
+    }
+
+    @Test
+    public void rejectsBeyondMaxPending() throws Exception {
+        HeldExecutor executor = new HeldExecutor();
+        AsyncJSONCompare async = new AsyncJSONCompare(executor, 1, AsyncJSONCompare.OverflowPolicy.REJECT);
+        CompletableFuture<JSONCompareResult> first = async.compareJSON("[1]", "[1]", JSONCompareMode.STRICT);
+        CompletableFuture<JSONCompareResult> second = async.compareJSON("[1]", "[1]", JSONCompareMode.STRICT);
+        assertEquals(1, async.getPendingCount());
+        assertEquals(1, async.getOverflowCount());
+        try {
+            second.get();
+            fail("Expected the comparison to be rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+
+        executor.runAll();
+        assertTrue(first.get().passed());
+        assertEquals(0, async.getPendingCount());
+        CompletableFuture<JSONCompareResult> third = async.compareJSON("[1]", "[2]", JSONCompareMode.STRICT);
+        executor.runAll();
+        assertTrue(third.get().failed());
+    }
+
+    @Test
+    public void dropsBeyondMaxPending() {
+        HeldExecutor executor = new HeldExecutor();
+        AsyncJSONCompare async = new AsyncJSONCompare(executor, 1, AsyncJSONCompare.OverflowPolicy.DROP);
+        async.compareJSON("[1]", "[1]", JSONCompareMode.STRICT);
+        assertTrue(async.compareJSON("[1]", "[1]", JSONCompareMode.STRICT).isCancelled());
+    }
+
+    @Test
+    public void runsOnCallerBeyondMaxPending() throws Exception {
+        HeldExecutor executor = new HeldExecutor();
+        AsyncJSONCompare async = new AsyncJSONCompare(executor, 1, AsyncJSONCompare.OverflowPolicy.CALLER_RUNS);
+        CompletableFuture<JSONCompareResult> first = async.compareJSON("[1]", "[1]", JSONCompareMode.STRICT);
+        CompletableFuture<JSONCompareResult> second = async.compareJSON("[1]", "[2]", JSONCompareMode.STRICT);
+        assertFalse(first.isDone());
+        assertTrue(second.isDone());
+        assertTrue(second.get().failed());
+    }
+
+    @Test
+    public void completesExceptionallyOnInvalidJSON() throws Exception {
+        HeldExecutor executor = new HeldExecutor();
+        AsyncJSONCompare async = new AsyncJSONCompare(executor, 1, AsyncJSONCompare.OverflowPolicy.REJECT);
+        CompletableFuture<JSONCompareResult> future = async.compareJSON("[1]", "not json", JSONCompareMode.STRICT);
+        executor.runAll();
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals(0, async.getPendingCount());
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.skyscreamer.jsonassert.JSONCompare.compareJSON;
+import static org.skyscreamer.jsonassert.JSONCompareMode.LENIENT;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ComparisonBudget}.
+ */
+public class ComparisonBudgetTest {
+
+    // Mixed element types leave only the recursive fallback
+    private static JSONArray unkeyedArray(int size, boolean reversed) {
+        JSONArray array = new JSONArray();
+        for (int i = 0; i < size; i++) {
+            int n = reversed ? size - i - 1 : i;
+            array.put(new JSONObject().put("v", n)).put("s" + n);
+        }
+        return array;
+    }
+
+    @Test
+    public void completesWithinBudget() {
+        JSONCompareResult result = compareJSON(unkeyedArray(10, false), unkeyedArray(10, true), LENIENT,
+                ComparisonBudget.maxNodeVisits(1000000));
+        assertTrue(result.getMessage(), result.passed());
+        assertFalse(result.isInconclusive());
+    }
+
+    @Test
+    public void stopsWhenNodeVisitsRunOut() {
+        JSONCompareResult result = compareJSON(unkeyedArray(100, false), unkeyedArray(100, true), LENIENT,
+                ComparisonBudget.maxNodeVisits(500));
+        assertTrue(result.failed());
+        assertTrue(result.isInconclusive());
+        assertTrue(result.getMessage(), result.getMessage().startsWith("Comparison inconclusive: node visit budget of 500"));
+        assertTrue(result.getMessage(), result.getMessage().endsWith("while comparing arrays by RECURSIVE"));
+    }
+
+    @Test
+    public void stopsWhenTimeRunsOut() {
+        JSONCompareResult result = compareJSON(unkeyedArray(200, false), unkeyedArray(200, true), LENIENT,
+                ComparisonBudget.timeout(1, TimeUnit.NANOSECONDS));
+        assertTrue(result.isInconclusive());
+        assertTrue(result.getMessage(), result.getMessage().contains("time budget"));
+    }
+
+    @Test
+    public void stopsWhenThreadInterrupted() {
+        Thread.currentThread().interrupt();
+        try {
+            JSONCompareResult result = compareJSON(unkeyedArray(200, false), unkeyedArray(200, true), LENIENT,
+                    ComparisonBudget.INTERRUPTIBLE);
+            assertTrue(result.isInconclusive());
+            assertTrue(result.getMessage(), result.getMessage().contains("thread interrupted"));
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+    }
+
+    @Test
+    public void keepsFailuresFoundBeforeStopping() {
+        JSONCompareResult result = compareJSON("{a:1,b:[1,\"x\",{c:1},{c:2},{c:3}]}", "{a:2,b:[{c:3},{c:2},{c:1},\"x\",1]}",
+                LENIENT, ComparisonBudget.maxNodeVisits(3));
+        assertTrue(result.isInconclusive());
+        assertTrue(result.getMessage(), result.getMessage().startsWith("a\nExpected: 1\n     got: 2\n ; Comparison inconclusive"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveLimits() {
+        ComparisonBudget.maxNodeVisits(0);
+    }
+}
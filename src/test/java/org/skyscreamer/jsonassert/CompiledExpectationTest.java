@@ -0,0 +1,139 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.comparator.CustomComparator;
+
+/**
+ * Unit tests for {@link CompiledExpectation}.
+ */
+public class CompiledExpectationTest {
+    private static final String EXPECTED = "{id:1,tags:[\"a\",\"b\",\"a\"],"
+            + "items:[{sku:\"x\",qty:1},{sku:\"y\",qty:2}],nested:[[1,2],[3]],meta:{created:\"today\"}}";
+
+    private static final String[] ACTUALS = {
+            EXPECTED,
+            "{id:1,tags:[\"a\",\"a\",\"b\"],items:[{sku:\"y\",qty:2},{sku:\"x\",qty:1}],nested:[[3],[2,1]],"
+                    + "meta:{created:\"yesterday\"},extra:true}",
+            "{id:1,tags:[\"a\",\"b\"],items:[{sku:\"x\",qty:3},{sku:\"z\",qty:2}],nested:[[1,2]],meta:{}}",
+            "{id:\"1\",tags:[],items:[],nested:[],meta:null}",
+    };
+
+    @Test
+    public void matchesJSONCompareInEveryMode() {
+        for (JSONCompareMode mode : JSONCompareMode.values()) {
+            CompiledExpectation expectation = CompiledExpectation.compile(EXPECTED, mode);
+            for (String actual : ACTUALS) {
+                assertEquals(mode + " " + actual, JSONCompare.compareJSON(EXPECTED, actual, mode).getMessage(),
+                        expectation.verify(actual).getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void matchesJSONCompareWithCustomizations() {
+        Customization created = new Customization("meta.created", new ValueMatcher<Object>() {
+            @Override
+            public boolean equal(Object o1, Object o2) {
+                return true;
+            }
+        });
+        Customization quantities = new Customization("items[*].qty", new ValueMatcher<Object>() {
+            @Override
+            public boolean equal(Object o1, Object o2) {
+                return o1 instanceof Number && o2 instanceof Number;
+            }
+        });
+        for (JSONCompareMode mode : JSONCompareMode.values()) {
+            CompiledExpectation expectation = CompiledExpectation.compile(EXPECTED, mode, created, quantities);
+            CustomComparator comparator = new CustomComparator(mode, created, quantities);
+            for (String actual : ACTUALS) {
+                assertEquals(mode + " " + actual, JSONCompare.compareJSON(EXPECTED, actual, comparator).getMessage(),
+                        expectation.verify(actual).getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void resolvesCustomizationsOfPathsOnlyInActualDocuments() {
+        Customization extra = Customization.ignore("extra*");
+        Customization skus = new Customization("items[sku=*].qty", new ValueMatcher<Object>() {
+            @Override
+            public boolean equal(Object o1, Object o2) {
+                return true;
+            }
+        });
+        CompiledExpectation expectation = CompiledExpectation.compile(EXPECTED, JSONCompareMode.NON_EXTENSIBLE,
+                extra, skus);
+        CustomComparator comparator = new CustomComparator(JSONCompareMode.NON_EXTENSIBLE, extra, skus);
+        for (int i = 0; i < 100; i++) {
+            String actual = "{id:1,tags:[\"a\",\"a\",\"b\"],items:[{sku:\"y\",qty:" + i + "},{sku:\"z" + i
+                    + "\",qty:1}],nested:[[3],[2,1]],meta:{created:\"today\"},extra" + i + ":true,other" + i + ":1}";
+            assertEquals(actual, JSONCompare.compareJSON(EXPECTED, actual, comparator).getMessage(),
+                    expectation.verify(actual).getMessage());
+        }
+    }
+
+    @Test
+    public void verifiesParsedDocuments() {
+        CompiledExpectation expectation = CompiledExpectation.compile("{a:[1,2]}", JSONCompareMode.LENIENT);
+        assertTrue(expectation.verify(new JSONObject("{a:[2,1],b:3}")).passed());
+        assertTrue(expectation.verify(new JSONObject("{a:[2]}")).failed());
+    }
+
+    @Test
+    public void canBeSharedBetweenThreads() throws Exception {
+        final CompiledExpectation expectation = CompiledExpectation.compile(EXPECTED, JSONCompareMode.NON_EXTENSIBLE);
+        final List<String> expected = new ArrayList<String>();
+        for (String actual : ACTUALS) {
+            expected.add(JSONCompare.compareJSON(EXPECTED, actual, JSONCompareMode.NON_EXTENSIBLE).getMessage());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        for (int i = 0; i < 200; i++) {
+                            int n = i % ACTUALS.length;
+                            if (!expected.get(n).equals(expectation.verify(ACTUALS[n]).getMessage())) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.comparator.DefaultComparator;
+
+/**
+ * Unit tests for {@link FailureSink} implementations.
+ */
+public class FailureSinkTest {
+
+    @Test
+    public void writesFailuresAsNdjson() throws IOException {
+        StringWriter out = new StringWriter();
+        NdjsonFailureSink sink = new NdjsonFailureSink(out);
+        sink.setDocument("doc1");
+        DefaultComparator comparator = new DefaultComparator(JSONCompareMode.NON_EXTENSIBLE);
+        comparator.setFailureSink(sink);
+        comparator.setFailureLimits(0, 0);
+
+        JSONCompareResult result = JSONCompare.compareJSON("{a:1,b:{c:\"x\"},d:[1,2],e:true}",
+                "{a:2,b:{c:null},d:[1],f:3}", comparator);
+        sink.close();
+
+        assertTrue(result.failed());
+        assertEquals(5, result.getFailureCount());
+        assertTrue(result.getFieldFailures().isEmpty());
+        assertEquals("5 failure message(s) dropped", result.getMessage());
+        assertEquals("{\"kind\":\"fieldFailure\",\"document\":\"doc1\",\"field\":\"a\",\"expected\":1,\"actual\":2}\n"
+                + "{\"kind\":\"fieldFailure\",\"document\":\"doc1\",\"field\":\"b.c\",\"expected\":\"x\",\"actual\":null}\n"
+                + "{\"kind\":\"failure\",\"document\":\"doc1\",\"message\":\"d[]: Expected 2 values but got 1\"}\n"
+                + "{\"kind\":\"fieldMissing\",\"document\":\"doc1\",\"field\":\"\",\"expected\":\"e\"}\n"
+                + "{\"kind\":\"fieldUnexpected\",\"document\":\"doc1\",\"field\":\"\",\"actual\":\"f\"}\n",
+                out.toString());
+    }
+
+    @Test
+    public void streamsSubtreesAsJson() {
+        StringWriter out = new StringWriter();
+        JSONCompareResult result = new JSONCompareResult(new NdjsonFailureSink(out), 0, 0);
+        result.missing("a[id=1]", new JSONObject("{\"v\":[1,{\"w\":null}]}"));
+        assertEquals("{\"kind\":\"fieldMissing\",\"field\":\"a[id=1]\",\"expected\":{\"v\":[1,{\"w\":null}]}}\n",
+                out.toString());
+    }
+
+    @Test
+    public void countsFailuresByKind() {
+        CountingFailureSink sink = new CountingFailureSink();
+        DefaultComparator comparator = new DefaultComparator(JSONCompareMode.NON_EXTENSIBLE);
+        comparator.setFailureSink(sink);
+
+        JSONCompareResult result = JSONCompare.compareJSON("{a:1,b:2,d:[1,2]}", "{a:2,c:3,d:[1]}", comparator);
+
+        assertEquals(1, sink.getFieldFailureCount());
+        assertEquals(1, sink.getFieldMissingCount());
+        assertEquals(1, sink.getFieldUnexpectedCount());
+        assertEquals(1, sink.getOtherFailureCount());
+        assertEquals(4, sink.getTotalCount());
+        // Without limits the result still keeps everything
+        assertEquals(1, result.getFieldFailures().size());
+        assertEquals(1, result.getFieldMissing().size());
+    }
+}
@@ -21,6 +21,8 @@ import static org.skyscreamer.jsonassert.JSONCompareMode.NON_EXTENSIBLE;
 import static org.skyscreamer.jsonassert.JSONCompareMode.STRICT;
 import static org.skyscreamer.jsonassert.JSONCompareMode.STRICT_ORDER;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 import org.json.JSONArray;
@@ -640,6 +642,26 @@ public class JSONAssertTest {
         ));
     }
     
+    @Test
+    public void testUtf8Input() {
+        String expected = "{\"name\":\"Jos\u00e9\",\"pets\":[\"cat\",\"dog\"]}";
+        byte[] actual = "{\"pets\":[\"dog\",\"cat\"],\"name\":\"Jos\u00e9\"}".getBytes(StandardCharsets.UTF_8);
+        JSONAssert.assertEquals(expected, actual, LENIENT);
+        JSONAssert.assertNotEquals(expected, actual, STRICT);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(actual.length + 1);
+        buffer.put((byte) ' ').put(actual).flip().position(1);
+        JSONAssert.assertEquals(expected, buffer, LENIENT);
+        Assert.assertEquals(1, buffer.position());
+        try {
+            JSONAssert.assertEquals("Message", expected, buffer, STRICT);
+            fail("Expected the assertion to fail");
+        } catch (AssertionError ae) {
+            verifyErrorMessage("Message", ae);
+            assertTrue(ae.getMessage().contains("pets[0]"));
+        }
+    }
+
     private void testPass(String expected, String actual, JSONCompareMode compareMode)
     {
         String message = expected + " == " + actual + " (" + compareMode + ")";
@@ -0,0 +1,117 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link JSONCanonicalizer}.
+ */
+public class JSONCanonicalizerTest {
+
+    @Test
+    public void sortsKeysAndDropsWhitespace() {
+        assertEquals("{\"a\":[3,1,{\"x\":null,\"y\":true}],\"b\":\"s\"}",
+                JSONCanonicalizer.canonicalize(new JSONObject("{ b : 's', a : [ 3, 1, {y:true, x:null} ] }")));
+    }
+
+    @Test
+    public void writesNumbersByValue() {
+        JSONArray numbers = new JSONArray("[1, 1.0, 1e0, 10E-1, -0.0, 0, 1.5, 12345678901, 1e20, 1e21, 1e-7]");
+        assertEquals("[1,1,1,1,0,0,1.5,12345678901,100000000000000000000,1.0e21,1.0e-7]",
+                JSONCanonicalizer.canonicalize(numbers));
+    }
+
+    @Test
+    public void escapesDeterministically() {
+        assertEquals("\"q\\\"b\\\\s/</\\n\\t\\u0001\u00e9\u2028\"",
+                JSONCanonicalizer.canonicalize("q\"b\\s/</\n\t\u0001\u00e9\u2028"));
+    }
+
+    @Test
+    public void escapesUnpairedSurrogates() {
+        assertEquals("\"\\ud800a\\udc00\ud83d\ude00\\ud83d\"",
+                JSONCanonicalizer.canonicalize("\ud800a\udc00\ud83d\ude00\ud83d"));
+        String lone = "{\"s\":\"\\ud800\"}";
+        String question = "{\"s\":\"?\"}";
+        String digest = JSONCanonicalizer.sha256(new JSONObject(lone));
+        assertNotEquals(digest, JSONCanonicalizer.sha256(new JSONObject(question)));
+        assertTrue(JSONCompare.compareJSON(lone, question, JSONCompareMode.STRICT).failed());
+        assertTrue(JSONCompare.compareJSONWithDigest(digest, lone, question, JSONCompareMode.STRICT).failed());
+    }
+
+    @Test
+    public void digestsUnpairedSurrogatesApartFromQuestionMarks() throws Exception {
+        assertNotEquals(digest("a\ud800"), digest("a?"));
+        assertNotEquals(digest("\udc00b"), digest("?b"));
+        byte[] pair = MessageDigest.getInstance("SHA-256").digest("\ud83d\ude00".getBytes(StandardCharsets.UTF_8));
+        assertEquals(DigestWriter.toHex(pair), digest("\ud83d\ude00"));
+    }
+
+    private static String digest(String text) {
+        DigestWriter writer = new DigestWriter();
+        writer.write(text, 0, text.length());
+        return writer.hexDigest();
+    }
+
+    @Test
+    public void digestsTheUtf8CanonicalText() throws Exception {
+        JSONObject object = new JSONObject("{b:'\u00e9\ud83d\ude00',a:[1.0]}");
+        byte[] expected = MessageDigest.getInstance("SHA-256")
+                .digest(JSONCanonicalizer.canonicalize(object).getBytes(StandardCharsets.UTF_8));
+        assertEquals(DigestWriter.toHex(expected), JSONCanonicalizer.sha256(object));
+    }
+
+    @Test
+    public void equalDigestsOnlyForStrictlyEqualDocuments() {
+        String a = "{\"id\":1,\"tags\":[\"x\",\"y\"],\"price\":2.50}";
+        String b = "{\"price\":2.5,\"tags\":[\"x\",\"y\"],\"id\":1.0}";
+        assertTrue(JSONCompare.compareJSON(a, b, JSONCompareMode.STRICT).passed());
+        assertEquals(JSONCanonicalizer.sha256(new JSONObject(a)), JSONCanonicalizer.sha256(new JSONObject(b)));
+        assertNotEquals(JSONCanonicalizer.sha256(new JSONObject(a)),
+                JSONCanonicalizer.sha256(new JSONObject("{\"id\":1,\"tags\":[\"y\",\"x\"],\"price\":2.5}")));
+        assertNotEquals(JSONCanonicalizer.sha256(new JSONObject(a)),
+                JSONCanonicalizer.sha256(new JSONObject("{\"id\":\"1\",\"tags\":[\"x\",\"y\"],\"price\":2.5}")));
+    }
+
+    @Test
+    public void digestFastPathSkipsTheExpectedDocument() {
+        String actual = "{\"id\":1,\"tags\":[\"x\",\"y\"]}";
+        String digest = JSONCanonicalizer.sha256(new JSONObject(actual));
+        // The expected string is not even parsed when the digest matches
+        assertTrue(JSONCompare.compareJSONWithDigest(digest, "not json", actual, JSONCompareMode.STRICT).passed());
+    }
+
+    @Test
+    public void digestMismatchRunsTheDetailedComparison() {
+        String expected = "{\"id\":1,\"tags\":[\"x\",\"y\"]}";
+        String digest = JSONCanonicalizer.sha256(new JSONObject(expected));
+        JSONCompareResult result = JSONCompare.compareJSONWithDigest(digest, expected, "{\"id\":2,\"tags\":[\"y\",\"x\"]}",
+                JSONCompareMode.LENIENT);
+        assertEquals(JSONCompare.compareJSON(expected, "{\"id\":2,\"tags\":[\"y\",\"x\"]}", JSONCompareMode.LENIENT)
+                .getMessage(), result.getMessage());
+        assertTrue(JSONCompare.compareJSONWithDigest(digest, new JSONArray("[1,2]"), new JSONArray("[2,1]"),
+                JSONCompareMode.LENIENT).passed());
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.skyscreamer.jsonassert.comparator.ComparisonStatistics;
+import org.skyscreamer.jsonassert.comparator.CustomComparator;
+import org.skyscreamer.jsonassert.comparator.DefaultComparator;
+
+/**
+ * Unit tests for {@link JSONCompareCache}.
+ */
+public class JSONCompareCacheTest {
+
+    @Test
+    public void reusesResultsOfRepeatedComparisons() {
+        JSONCompareCache cache = new JSONCompareCache(10);
+        JSONCompareResult first = cache.compareJSON("{a:1}", "{a:2}", JSONCompareMode.STRICT);
+        assertTrue(first.failed());
+        JSONCompareResult again = cache.compareJSON("{a:1}", "{a:2}", JSONCompareMode.STRICT);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(first.getMessage(), again.getMessage());
+        assertEquals(1, again.getFieldFailures().size());
+        assertEquals("a", again.getFieldFailures().get(0).getField());
+        cache.compareJSON("{a:1}", "{a:2}", JSONCompareMode.LENIENT);
+        cache.compareJSON("{a:1}", "{a:3}", JSONCompareMode.STRICT);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void keepsSnapshotsRatherThanValuesOfTheDocuments() {
+        JSONCompareCache cache = new JSONCompareCache(10);
+        cache.compareJSON("{a:{b:1},c:[1]}", "{a:{b:2},c:[1,2]}", JSONCompareMode.STRICT);
+        JSONCompareResult again = cache.compareJSON("{a:{b:1},c:[1]}", "{a:{b:2},c:[1,2]}",
+                JSONCompareMode.STRICT);
+        assertEquals(1, cache.getHitCount());
+        FieldComparisonFailure failure = again.getFieldFailures().get(0);
+        assertEquals("a.b", failure.getField());
+        assertEquals("1", ((ValueSnapshot) failure.getExpected()).getRendering());
+        assertEquals("2", ((ValueSnapshot) failure.getActual()).getRendering());
+        assertTrue(again.getExpected() instanceof ValueSnapshot);
+        for (FieldComparisonFailure other : again.getFieldFailures()) {
+            assertTrue(other.getExpected() instanceof ValueSnapshot);
+            assertTrue(other.getActual() instanceof ValueSnapshot);
+        }
+    }
+
+    @Test
+    public void keysOnComparatorInstance() {
+        JSONCompareCache cache = new JSONCompareCache(10);
+        DefaultComparator comparator = new DefaultComparator(JSONCompareMode.STRICT);
+        cache.compareJSON("[1]", "[1]", comparator);
+        cache.compareJSON("[1]", "[1]", comparator);
+        assertEquals(1, cache.getHitCount());
+        cache.compareJSON("[1]", "[1]", new DefaultComparator(JSONCompareMode.STRICT));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void forgetsResultsOfReconfiguredComparators() {
+        JSONCompareCache cache = new JSONCompareCache(10);
+        DefaultComparator comparator = new DefaultComparator(JSONCompareMode.STRICT);
+        String byPosition = cache.compareJSON("[1,2,3]", "[1,3]", comparator).getMessage();
+
+        comparator.setStrictOrderDiff(4);
+        String aligned = cache.compareJSON("[1,2,3]", "[1,3]", comparator).getMessage();
+        assertEquals(0, cache.getHitCount());
+        assertNotEquals(byPosition, aligned);
+
+        comparator.setFailureLimits(0, 0);
+        assertNotEquals(aligned, cache.compareJSON("[1,2,3]", "[1,3]", comparator).getMessage());
+        assertEquals(0, cache.getHitCount());
+        cache.compareJSON("[1,2,3]", "[1,3]", comparator);
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void handsOutResultsCallersMayModify() {
+        JSONCompareCache cache = new JSONCompareCache(10);
+        JSONCompareResult first = cache.compareJSON("{a:1}", "{a:1}", JSONCompareMode.STRICT);
+        first.fail("changed by the caller");
+        JSONCompareResult second = cache.compareJSON("{a:1}", "{a:1}", JSONCompareMode.STRICT);
+        assertTrue(second.passed());
+        second.fail("a", 1, 2);
+        assertTrue(cache.compareJSON("{a:1}", "{a:1}", JSONCompareMode.STRICT).passed());
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void bypassesNonCacheableComparators() {
+        JSONCompareCache cache = new JSONCompareCache(10);
+        CustomComparator comparator = new CustomComparator(JSONCompareMode.STRICT,
+                new Customization("a", new ValueMatcher<Object>() {
+                    @Override
+                    public boolean equal(Object o1, Object o2) {
+                        return true;
+                    }
+                }));
+        comparator.setCacheable(false);
+        assertNotSame(cache.compareJSON("{a:1}", "{a:2}", comparator), cache.compareJSON("{a:1}", "{a:2}", comparator));
+
+        DefaultComparator observed = new DefaultComparator(JSONCompareMode.STRICT);
+        observed.setComparisonListener(new ComparisonStatistics());
+        assertNotSame(cache.compareJSON("{a:1}", "{a:2}", observed), cache.compareJSON("{a:1}", "{a:2}", observed));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void doesNotCacheInconclusiveResults() {
+        JSONCompareCache cache = new JSONCompareCache(10);
+        DefaultComparator comparator = new DefaultComparator(JSONCompareMode.LENIENT);
+        comparator.setBudget(ComparisonBudget.maxNodeVisits(1));
+        assertTrue(cache.compareJSON("{a:1,b:2}", "{a:1,b:2}", comparator).isInconclusive());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedResults() {
+        JSONCompareCache cache = new JSONCompareCache(2);
+        cache.compareJSON("[1]", "[1]", JSONCompareMode.STRICT);
+        cache.compareJSON("[2]", "[2]", JSONCompareMode.STRICT);
+        cache.compareJSON("[1]", "[1]", JSONCompareMode.STRICT);
+        cache.compareJSON("[3]", "[3]", JSONCompareMode.STRICT);
+        assertEquals(2, cache.size());
+        cache.compareJSON("[1]", "[1]", JSONCompareMode.STRICT);
+        assertEquals(2, cache.getHitCount());
+        cache.compareJSON("[2]", "[2]", JSONCompareMode.STRICT);
+        assertEquals(2, cache.getHitCount());
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.comparator.DefaultComparator;
+
+/**
+ * Unit tests for {@link JSONCompareResult}.
+ */
+public class JSONCompareResultTest {
+
+    @Test
+    public void keepsFirstFailuresUpToLimit() {
+        JSONCompareResult result = new JSONCompareResult(2, Integer.MAX_VALUE);
+        result.fail("a", 1, 2);
+        result.missing("", "b");
+        result.unexpected("", "c");
+        result.fail("d", 3, 4);
+
+        assertTrue(result.failed());
+        assertEquals(4, result.getFailureCount());
+        assertEquals(2, result.getDroppedFailureCount());
+        assertEquals(1, result.getFieldFailures().size());
+        assertEquals("a", result.getFieldFailures().get(0).getField());
+        assertEquals(1, result.getFieldMissing().size());
+        assertTrue(result.getFieldUnexpected().isEmpty());
+        assertTrue(result.isUnexpectedOnField());
+        assertEquals(0, result.getDroppedMessageCount());
+    }
+
+    @Test
+    public void truncatesMessageAtLimit() {
+        JSONCompareResult result = new JSONCompareResult(Integer.MAX_VALUE, 30);
+        result.fail("a", 1, 2);
+        result.fail("b", 3, 4);
+        result.fail("c", 5, 6);
+
+        assertEquals(3, result.getFieldFailures().size());
+        assertEquals(2, result.getDroppedMessageCount());
+        assertEquals("a\nExpected: 1\n     got: 2\n ; b ; ... 2 more failure message(s) dropped",
+                result.getMessage());
+        assertTrue(result.isMessageFull());
+    }
+
+    @Test
+    public void alwaysReportsInconclusive() {
+        JSONCompareResult result = new JSONCompareResult(0, 0);
+        result.fail("a", 1, 2);
+        result.inconclusive("stopped");
+        assertTrue(result.isInconclusive());
+        assertEquals("stopped ; ... 1 more failure message(s) dropped", result.getMessage());
+    }
+
+    @Test
+    public void boundsShiftedStrictOrderArray() {
+        JSONArray expected = new JSONArray();
+        JSONArray actual = new JSONArray().put(-1);
+        for (int i = 0; i < 1000; i++) {
+            expected.put(i);
+            actual.put(i);
+        }
+        expected.put(1000);
+        DefaultComparator comparator = new DefaultComparator(JSONCompareMode.STRICT);
+        comparator.setFailureLimits(10, 1000);
+
+        JSONCompareResult result = JSONCompare.compareJSON(expected, actual, comparator);
+
+        assertTrue(result.failed());
+        assertEquals(1001, result.getFailureCount());
+        assertEquals(10, result.getFieldFailures().size());
+        assertEquals(991, result.getDroppedFailureCount());
+        assertEquals("[0]", result.getFieldFailures().get(0).getField());
+        assertEquals("[9]", result.getFieldFailures().get(9).getField());
+        assertTrue(result.getMessage().length() < 1100);
+    }
+
+    @Test
+    public void detachesFailingValues() {
+        DefaultComparator comparator = new DefaultComparator(JSONCompareMode.LENIENT);
+        comparator.setDetachFailureValues(true);
+        StringBuilder big = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            big.append("0123456789");
+        }
+
+        JSONCompareResult result = JSONCompare.compareJSON("{a:{b:1},s:\"" + big + "\"}", "{a:[1],s:\"x\"}",
+                comparator);
+
+        assertEquals(2, result.getFieldFailures().size());
+        FieldComparisonFailure a = result.getFieldFailures().get(0);
+        ValueSnapshot expectedA = (ValueSnapshot) a.getExpected();
+        assertEquals(ValueSnapshot.Type.OBJECT, expectedA.getType());
+        assertEquals("{\"b\":1}", expectedA.getRendering());
+        assertEquals(ValueSnapshot.Type.ARRAY, ((ValueSnapshot) a.getActual()).getType());
+
+        ValueSnapshot expectedS = (ValueSnapshot) result.getFieldFailures().get(1).getExpected();
+        assertTrue(expectedS.isTruncated());
+        assertEquals(ValueSnapshot.DEFAULT_RENDERING_LENGTH, expectedS.getRendering().length());
+        assertEquals(10002, expectedS.getLength());
+        assertEquals(64, expectedS.getSha256().length());
+        assertEquals("\"x\"", result.getFieldFailures().get(1).getActual().toString());
+        // The message is still built from the values themselves
+        assertTrue(result.getMessage().contains("Expected: a JSON object"));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void lastRetainedFailureDescribesTheFieldWhenDetaching() {
+        JSONCompareResult result = new JSONCompareResult(1, Integer.MAX_VALUE);
+        result.setDetachValues(true);
+        result.fail("a", 1, 2);
+        result.fail("b", 3, 4);
+
+        assertEquals(2, result.getFailureCount());
+        assertEquals("a", result.getField());
+        assertEquals("1", ((ValueSnapshot) result.getExpected()).getRendering());
+        assertEquals("2", ((ValueSnapshot) result.getActual()).getRendering());
+    }
+
+    @Test
+    public void snapshotDigestIsSha256OfRendering() throws IOException {
+        DigestWriter writer = new DigestWriter();
+        writer.write("abc");
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", writer.hexDigest());
+        assertEquals(sha256("\"abc\""), ValueSnapshot.of("abc", 10).getSha256());
+        assertEquals(sha256("\"\ud83d\ude00\u00e9\""), ValueSnapshot.of("\ud83d\ude00\u00e9", 10).getSha256());
+        assertEquals(8, ValueSnapshot.of("\ud83d\ude00\u00e9", 10).getLength());
+    }
+
+    private static String sha256(String s) {
+        try {
+            return DigestWriter.toHex(MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void describesLargeStringsByExcerptAroundDifference() {
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            expected.append("abcdefghij");
+        }
+        String actual = expected.substring(0, 1000) + "X" + expected.substring(1001);
+
+        JSONCompareResult result = new JSONCompareResult();
+        result.fail("blob", expected.toString(), actual);
+
+        String message = result.getMessage();
+        assertTrue(message, message.startsWith("blob\nExpected: a string of 2000 characters (2000 bytes UTF-8, sha256 "));
+        assertTrue(message, message.contains(" differing at offset 1000: ...abcdefghijabcdefghijabcdefghijabcdefghij"
+                + "abcdefghijabcdefghijabcdefghijabcdefghij...\n"));
+        assertTrue(message, message.contains(" differing at offset 1000: ...abcdefghijabcdefghijabcdefghijabcdefghij"
+                + "Xbcdefghijabcdefghijabcdefghijabcdefghij...\n"));
+        assertTrue(message, message.length() < 500);
+    }
+
+    @Test
+    public void describesLargeStringsByHeadAndTail() {
+        StringBuilder value = new StringBuilder("HEAD");
+        for (int i = 0; i < 2000; i++) {
+            value.append('.');
+        }
+        value.append("TAIL");
+
+        JSONCompareResult result = new JSONCompareResult();
+        result.unexpected("blob", value.toString());
+
+        assertTrue(result.getMessage(), result.getMessage().matches(
+                "blob\nUnexpected: a string of 2008 characters \\(2008 bytes UTF-8, sha256 [0-9a-f]{64}\\): "
+                + "HEAD\\.{36}\\.\\.\\.\\.{36}TAIL\n"));
+    }
+
+    @Test
+    public void quotesShortStringsInFull() {
+        JSONCompareResult result = new JSONCompareResult();
+        result.fail("s", "abc", "abd");
+        assertEquals("s\nExpected: abc\n     got: abd\n", result.getMessage());
+    }
+
+    @Test
+    public void unlimitedByDefault() {
+        JSONCompareResult result = new JSONCompareResult();
+        assertFalse(result.isMessageFull());
+        assertTrue(result.passed());
+        assertEquals("", result.getMessage());
+    }
+
+    @Test
+    public void routesEveryFailureThroughFailMessage() {
+        final List<String> messages = new ArrayList<String>();
+        CountingFailureSink sink = new CountingFailureSink();
+        JSONCompareResult result = new JSONCompareResult(sink, Integer.MAX_VALUE, Integer.MAX_VALUE) {
+            @Override
+            public void fail(String message) {
+                messages.add(message);
+                super.fail(message);
+            }
+        };
+        result.fail("a", 1, 2);
+        result.missing("b", "x");
+        result.unexpected("c", "y");
+        result.fail("lengths differ");
+
+        assertEquals(Arrays.asList("a\nExpected: 1\n     got: 2\n", "b\nExpected: x\n     but none found\n",
+                "c\nUnexpected: y\n", "lengths differ"), messages);
+        assertEquals(4, result.getFailureCount());
+        assertEquals(1, sink.getFieldFailureCount());
+        assertEquals(1, sink.getFieldMissingCount());
+        assertEquals(1, sink.getFieldUnexpectedCount());
+        assertEquals(1, sink.getOtherFailureCount());
+    }
+}
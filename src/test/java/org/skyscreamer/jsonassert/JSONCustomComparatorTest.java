@@ -14,6 +14,7 @@
 
 package org.skyscreamer.jsonassert;
 
+import org.json.JSONException;
 import org.junit.Test;
 import org.skyscreamer.jsonassert.comparator.CustomComparator;
 import org.skyscreamer.jsonassert.comparator.JSONComparator;
@@ -165,4 +166,66 @@ public class JSONCustomComparatorTest {
         assertTrue(result.getMessage(), result.passed());
         assertEquals(4, comparatorCallCount);
     }
+
+    @Test
+    public void ignoredPathsAreNotComparedOrReportedMissing() {
+        JSONComparator jsonCmp = new CustomComparator(JSONCompareMode.STRICT, Customization.ignore("outer.inner"));
+        assertTrue(compareJSON(deepExpected, deepActual, jsonCmp).passed());
+        assertTrue(compareJSON(deepExpected, "{\"outer\":{}}", jsonCmp).passed());
+        assertTrue(compareJSON("{\"outer\":{}}", deepActual, jsonCmp).passed());
+        assertTrue(compareJSON(deepExpected, "{\"outer\":{\"other\":1}}", jsonCmp).failed());
+    }
+
+    @Test
+    public void ignoredRegionsAreSkippedWhenParsing() {
+        // The ignored region holds unquoted text that org.json reads as strings, and is not built
+        String broken = "{\"id\":1,\"debug\":{\"dump\":[tru, 1.2.3, \"]\"]},\"items\":[{\"trace\":x-y}]}";
+        JSONComparator jsonCmp = new CustomComparator(JSONCompareMode.STRICT,
+                Customization.ignore("debug"), Customization.ignore("items[*].trace"));
+        JSONCompareResult result = compareJSON("{\"id\":1,\"items\":[{}]}", broken, jsonCmp);
+        assertTrue(result.getMessage(), result.passed());
+        assertTrue(compareJSON("{\"id\":2,\"items\":[{}]}", broken, jsonCmp).failed());
+    }
+
+    @Test
+    public void ignoredPositionsOnlyPruneArraysComparedByPosition() {
+        String expected = "{\"items\":[{\"id\":1,\"debug\":\"a\"},{\"id\":2,\"debug\":\"b\"}]}";
+        String actual = "{\"items\":[{\"id\":2,\"debug\":\"b\"},{\"id\":1,\"debug\":\"a\"}]}";
+        Customization ignore = Customization.ignore("items[0].debug");
+        for (JSONCompareMode mode : new JSONCompareMode[] {JSONCompareMode.LENIENT, JSONCompareMode.NON_EXTENSIBLE}) {
+            JSONCompareResult result = compareJSON(expected, actual, new CustomComparator(mode, ignore));
+            assertTrue(result.getMessage(), result.passed());
+            assertTrue(CompiledExpectation.compile(expected, mode, ignore).verify(actual).passed());
+        }
+        assertTrue(compareJSON(expected, "{\"items\":[{\"id\":1,\"debug\":\"x\"},{\"id\":2,\"debug\":\"b\"}]}",
+                new CustomComparator(JSONCompareMode.STRICT, ignore)).passed());
+    }
+
+    @Test
+    public void ignoringPathsAcceptsTheDocumentsOrgJsonAccepts() {
+        JSONComparator jsonCmp = new CustomComparator(JSONCompareMode.STRICT, Customization.ignore("x"));
+        String[] documents = {"[1,]", "{\"a\":1,}", "[1 2]", "{\"a\":1;\"b\":2}", "[1,,2]", "[,1]", "{a:b c}"};
+        for (String document : documents) {
+            assertEquals(document, compareJSON(document, document, JSONCompareMode.STRICT).getMessage(),
+                    compareJSON(document, document, jsonCmp).getMessage());
+        }
+        String[] rejected = {"[1;2]", "{\"a\":1,\"a\":2}", "{\"x\":{\"a\":1,\"a\":2}}", "[1", "{\"a\" 1}"};
+        for (String document : rejected) {
+            try {
+                compareJSON(document, document, jsonCmp);
+                throw new AssertionError("Parsed " + document);
+            } catch (JSONException expected) {
+                assertEquals(rejectedByOrgJson(document), expected.getMessage());
+            }
+        }
+    }
+
+    private static String rejectedByOrgJson(String document) {
+        try {
+            JSONParser.parseJSON(document);
+        } catch (JSONException e) {
+            return e.getMessage();
+        }
+        throw new AssertionError("org.json parsed " + document);
+    }
 }
@@ -0,0 +1,180 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.comparator.AbstractComparator;
+import org.skyscreamer.jsonassert.comparator.CustomComparator;
+import org.skyscreamer.jsonassert.comparator.DefaultComparator;
+
+/**
+ * Unit tests for {@link JSONPatchWriter}.
+ */
+public class JSONPatchWriterTest {
+
+    @Test
+    public void writesTheDifferencesAsOperations() throws IOException {
+        StringWriter out = new StringWriter();
+        JSONPatchWriter patch = new JSONPatchWriter(out);
+        DefaultComparator comparator = new DefaultComparator(JSONCompareMode.NON_EXTENSIBLE);
+        comparator.setPatchWriter(patch);
+
+        JSONCompare.compareJSON("{a:1,b:{\"c/d~\":\"x\"},d:[1,2],e:true}", "{a:2,b:{\"c/d~\":null},d:[1],f:[3]}",
+                comparator);
+        patch.close();
+
+        assertEquals(5, patch.getOperationCount());
+        assertEquals("[{\"op\":\"replace\",\"path\":\"/a\",\"value\":2},\n"
+                + "{\"op\":\"replace\",\"path\":\"/b/c~1d~0\",\"value\":null},\n"
+                + "{\"op\":\"replace\",\"path\":\"/d\",\"value\":[1]},\n"
+                + "{\"op\":\"remove\",\"path\":\"/e\"},\n"
+                + "{\"op\":\"add\",\"path\":\"/f\",\"value\":[3]}]\n", out.toString());
+    }
+
+    @Test
+    public void writesAnEmptyPatchWithoutDifferences() throws IOException {
+        StringWriter out = new StringWriter();
+        JSONPatchWriter patch = new JSONPatchWriter(out);
+        DefaultComparator comparator = new DefaultComparator(JSONCompareMode.STRICT);
+        comparator.setPatchWriter(patch);
+        JSONCompare.compareJSON("{a:[1,{b:2}]}", "{a:[1,{b:2}]}", comparator);
+        patch.close();
+        assertEquals("[]\n", out.toString());
+    }
+
+    @Test
+    public void patchesKeyedElementsAtTheirExpectedIndex() {
+        String expected = "{items:[{id:1,v:\"a\"},{id:2,v:\"b\"},{id:3,v:\"c\"},{id:4,v:\"d\"}]}";
+        String actual = "{items:[{id:4,v:\"d\"},{id:5},{id:3,v:\"C\"},{id:1,v:\"a\"}]}";
+        assertPatched(expected, actual, new DefaultComparator(JSONCompareMode.NON_EXTENSIBLE),
+                "[{\"op\":\"replace\",\"path\":\"/items/2/v\",\"value\":\"C\"},\n"
+                        + "{\"op\":\"add\",\"path\":\"/items/-\",\"value\":{\"id\":5}},\n"
+                        + "{\"op\":\"remove\",\"path\":\"/items/1\"}]\n");
+    }
+
+    @Test
+    public void patchesAlignedArraysElementByElement() {
+        String expected = "[0,1,{a:3},4,5,6,7]";
+        String actual = "[-1,0,1,{a:-3},4,6,7,8,9]";
+        DefaultComparator comparator = new DefaultComparator(JSONCompareMode.STRICT);
+        comparator.setStrictOrderDiff(8);
+        assertPatched(expected, actual, comparator,
+                "[{\"op\":\"add\",\"path\":\"/0\",\"value\":-1},\n"
+                        + "{\"op\":\"replace\",\"path\":\"/3/a\",\"value\":-3},\n"
+                        + "{\"op\":\"remove\",\"path\":\"/5\"},\n"
+                        + "{\"op\":\"add\",\"path\":\"/7\",\"value\":8},\n"
+                        + "{\"op\":\"add\",\"path\":\"/8\",\"value\":9}]\n");
+    }
+
+    @Test
+    public void replacesWhatCannotBeLocated() {
+        assertPatched("{a:{b:[1,2,3]},c:[{x:1},{x:[2]}]}", "{a:{b:[3,2,4]},c:[{x:[2]},{x:2}]}",
+                new DefaultComparator(JSONCompareMode.LENIENT), null);
+        assertPatched("{a:{b:1,c:2},d:3}", "{a:{b:1,c:5},d:4}",
+                new CustomComparator(JSONCompareMode.STRICT, new Customization("a", new ValueMatcher<Object>() {
+                    @Override
+                    public boolean equal(Object o1, Object o2) {
+                        return o1.toString().equals(o2.toString());
+                    }
+                })), null);
+    }
+
+    /**
+     * Compares the documents writing a patch, checks the patch if given, then applies it to the expected document
+     * and checks that the result compares equal to the actual one.
+     */
+    private static void assertPatched(String expected, String actual, AbstractComparator comparator, String patch) {
+        StringWriter out = new StringWriter();
+        JSONPatchWriter writer = new JSONPatchWriter(out);
+        comparator.setPatchWriter(writer);
+        assertTrue(JSONCompare.compareJSON(expected, actual, comparator).failed());
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        if (patch != null) {
+            assertEquals(patch, out.toString());
+        }
+        comparator.setPatchWriter(null);
+        Object patched = JSONParser.parseJSON(expected);
+        JSONArray operations = new JSONArray(out.toString());
+        for (int i = 0; i < operations.length(); i++) {
+            patched = apply(patched, operations.getJSONObject(i));
+        }
+        assertTrue(patched.toString(), JSONCompare.compareJSON(patched.toString(), actual, comparator).passed());
+    }
+
+    private static Object apply(Object document, JSONObject operation) {
+        String op = operation.getString("op");
+        String path = operation.getString("path");
+        Object value = operation.opt("value");
+        if (path.isEmpty()) {
+            return value;
+        }
+        String[] tokens = path.substring(1).split("/", -1);
+        Object parent = document;
+        for (int i = 0; i < tokens.length - 1; i++) {
+            parent = child(parent, unescape(tokens[i]));
+        }
+        String last = unescape(tokens[tokens.length - 1]);
+        if (parent instanceof JSONObject) {
+            if (op.equals("remove")) {
+                ((JSONObject) parent).remove(last);
+            } else {
+                ((JSONObject) parent).put(last, value);
+            }
+        } else {
+            JSONArray array = (JSONArray) parent;
+            int index = last.equals("-") ? array.length() : Integer.parseInt(last);
+            if (op.equals("replace")) {
+                array.put(index, value);
+            } else if (op.equals("remove")) {
+                array.remove(index);
+            } else {
+                JSONArray inserted = new JSONArray();
+                for (int i = 0; i < array.length(); i++) {
+                    if (i == index) {
+                        inserted.put(value);
+                    }
+                    inserted.put(array.get(i));
+                }
+                if (index == array.length()) {
+                    inserted.put(value);
+                }
+                array.clear();
+                array.putAll(inserted);
+            }
+        }
+        return document;
+    }
+
+    private static Object child(Object parent, String token) {
+        return parent instanceof JSONObject ? ((JSONObject) parent).get(token)
+                : ((JSONArray) parent).get(Integer.parseInt(token));
+    }
+
+    private static String unescape(String token) {
+        return token.replace("~1", "/").replace("~0", "~");
+    }
+}
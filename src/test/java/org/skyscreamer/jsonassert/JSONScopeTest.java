@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.comparator.CustomComparator;
+
+/**
+ * Unit tests for {@link JSONScope}.
+ */
+public class JSONScopeTest {
+    private static final String EXPECTED = "{\"data\":{\"items\":[{\"id\":1,\"price\":10},{\"id\":2,\"price\":20}],"
+            + "\"total\":30},\"meta\":{\"paging\":{\"page\":1},\"requestId\":\"abc\"}}";
+
+    @Test
+    public void selectsOnlyScopedSubtrees() {
+        JSONObject selected = JSONScope.of("data.items", "meta.paging").select(EXPECTED);
+        assertEquals(2, selected.length());
+        assertEquals(2, selected.getJSONArray("data.items").length());
+        assertEquals(1, selected.getJSONObject("meta.paging").getInt("page"));
+    }
+
+    @Test
+    public void selectsThroughArraysAndWildcards() {
+        JSONObject selected = JSONScope.of("data.items[*].price").select(EXPECTED);
+        assertEquals(10, selected.getInt("data.items[0].price"));
+        assertEquals(20, selected.getInt("data.items[1].price"));
+        assertEquals(2, selected.length());
+
+        assertEquals("abc", JSONScope.of("**.requestId").select(EXPECTED).getString("meta.requestId"));
+    }
+
+    @Test
+    public void skipsUnselectedRegionsWithoutBuildingThem() {
+        // The unselected region is not valid enough to parse, but skipping it only needs its brackets and strings
+        String actual = "{\"noise\":[tru, {\"x\": \"]}\"}, 1.2.3], \"meta\":{'paging':{page:1}}}";
+        JSONObject selected = JSONScope.of("meta.paging").select(actual);
+        assertEquals(1, selected.getJSONObject("meta.paging").getInt("page"));
+    }
+
+    @Test
+    public void mayContainIsTrueOnTheWayToASelection() {
+        JSONScope scope = JSONScope.of("data.items[*].price");
+        assertTrue(scope.mayContain(""));
+        assertTrue(scope.mayContain("data"));
+        assertTrue(scope.mayContain("data.items[3]"));
+        assertFalse(scope.mayContain("meta"));
+        assertFalse(scope.mayContain("data.total"));
+    }
+
+    @Test
+    public void comparesOnlyScopedSubtrees() {
+        String actual = "{\"data\":{\"items\":[{\"id\":1,\"price\":10},{\"id\":2,\"price\":25}],\"total\":35},"
+                + "\"meta\":{\"paging\":{\"page\":1},\"requestId\":\"xyz\"}}";
+        assertTrue(JSONCompare.compareJSON(EXPECTED, actual, JSONScope.of("meta.paging"), JSONCompareMode.STRICT)
+                .passed());
+
+        JSONCompareResult result = JSONCompare.compareJSON(EXPECTED, actual, JSONScope.of("data.items"),
+                JSONCompareMode.LENIENT);
+        assertEquals("data.items[id=2].price\nExpected: 20\n     got: 25\n", result.getMessage());
+
+        CustomComparator anyPrice = new CustomComparator(JSONCompareMode.LENIENT,
+                new Customization("data.items[*].price", new ValueMatcher<Object>() {
+                    @Override
+                    public boolean equal(Object o1, Object o2) {
+                        return true;
+                    }
+                }));
+        assertTrue(JSONCompare.compareJSON(EXPECTED, actual, JSONScope.of("data.items"), anyPrice).passed());
+    }
+
+    @Test
+    public void reportsSubtreesPresentInOnlyOneDocument() {
+        JSONScope scope = JSONScope.of("meta.paging");
+        assertTrue(JSONCompare.compareJSON(EXPECTED, "{\"meta\":{}}", scope, JSONCompareMode.LENIENT).failed());
+        assertTrue(JSONCompare.compareJSON("{}", EXPECTED, scope, JSONCompareMode.LENIENT).passed());
+        assertTrue(JSONCompare.compareJSON("{}", EXPECTED, scope, JSONCompareMode.STRICT).failed());
+    }
+
+    @Test(expected = JSONException.class)
+    public void rejectsTruncatedDocuments() {
+        JSONScope.of("meta").select("{\"data\":[1,2");
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.json.JSONException;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link JSONTextEquivalence}.
+ */
+public class JSONTextEquivalenceTest {
+
+    @Test
+    public void acceptsIdenticalAndWhitespaceOnlyDifferentText() {
+        String text = "{\"a\":[1,-2.5e+3,true,false,null,\"x \\\" \\u00e9\"],\"b\":{},\"c\":[]}";
+        assertTrue(JSONTextEquivalence.equivalent(text, text));
+        assertTrue(JSONTextEquivalence.equivalent(text,
+                " {\n\t\"a\" : [ 1 , -2.5e+3 , true , false , null , \"x \\\" \\u00e9\" ] ,\r\n\"b\":{ },\"c\":[ ] } "));
+        assertTrue(JSONTextEquivalence.equivalent("[{\"a\":1},{\"a\":1}]", "[ {\"a\":1} , {\"a\":1} ]"));
+    }
+
+    @Test
+    public void rejectsDifferentText() {
+        assertFalse(JSONTextEquivalence.equivalent("{\"a\":\"x y\"}", "{\"a\":\"xy\"}"));
+        assertFalse(JSONTextEquivalence.equivalent("[1,2]", "[2,1]"));
+        assertFalse(JSONTextEquivalence.equivalent("[1]", "[1.0]"));
+        assertFalse(JSONTextEquivalence.equivalent("[1]", "[1] 2"));
+        assertFalse(JSONTextEquivalence.equivalent("{\"a\":1}", null));
+    }
+
+    @Test
+    public void leavesAnythingButStrictJsonContainersToTheParser() {
+        assertFalse(JSONTextEquivalence.equivalent("{a:1}", "{a:1}"));
+        assertFalse(JSONTextEquivalence.equivalent("['a']", "['a']"));
+        assertFalse(JSONTextEquivalence.equivalent("[1,]", "[1,]"));
+        assertFalse(JSONTextEquivalence.equivalent("[01]", "[01]"));
+        assertFalse(JSONTextEquivalence.equivalent("[1", "[1"));
+        assertFalse(JSONTextEquivalence.equivalent("{\"a\":1,\"a\":1}", "{\"a\":1,\"a\":1}"));
+        assertFalse(JSONTextEquivalence.equivalent("{\"\\u0061\":1}", "{\"\\u0061\":1}"));
+        assertFalse(JSONTextEquivalence.equivalent("\"a\"", "\"a\""));
+        assertFalse(JSONTextEquivalence.equivalent("1", "1"));
+    }
+
+    @Test
+    public void comparesEquivalentTextWithoutParsing() {
+        String expected = "{\"a\":[1,{\"b\":[3,2]}]}";
+        for (JSONCompareMode mode : JSONCompareMode.values()) {
+            assertTrue(JSONCompare.compareJSON(expected, "{ \"a\" : [ 1, { \"b\": [3, 2] } ] }", mode).passed());
+        }
+    }
+
+    @Test(expected = JSONException.class)
+    public void identicalInvalidTextStillFailsToParse() {
+        JSONCompare.compareJSON("{\"a\":1,\"a\":2}", "{\"a\":1,\"a\":2}", JSONCompareMode.STRICT);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link LazyJSONParser}.
+ */
+public class LazyJSONParserTest {
+    private static final String EXPECTED = "{id:1,name:\"a\\u00e9\",tags:[\"x\",\"y\"],"
+            + "items:[{sku:\"p\",qty:2},{sku:\"q\",qty:1}],flags:{on:true,off:null}}";
+
+    private static final String[] ACTUALS = {
+            EXPECTED,
+            "{\"flags\":{\"off\":null,\"on\":true},\"items\":[{\"qty\":1,\"sku\":\"q\"},{\"qty\":2,\"sku\":\"p\"}],"
+                    + "\"tags\":[\"y\",\"x\"],\"name\":\"a\u00e9\",\"id\":1.0,\"extra\":[1,2,3]}",
+            "{id:2,name:'b',tags:[\"x\"],items:[{sku:\"p\",qty:3}],flags:{}}",
+            "{id:1}",
+    };
+
+    @Test
+    public void comparesLikeEagerParsingInEveryMode() {
+        for (JSONCompareMode mode : JSONCompareMode.values()) {
+            for (String actual : ACTUALS) {
+                assertEquals(mode + " " + actual, JSONCompare.compareJSON(EXPECTED, actual, mode).getMessage(),
+                        JSONCompare.compareJSONLazily(EXPECTED, actual, mode).getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void matchesDecimalsWithExponentsAsEagerParsingDoes() {
+        String[] documents = {"[1e0]", "[1.5e1]", "{\"a\":[1e0]}", "[2.50e2,1E0,-0,0.0]"};
+        for (JSONCompareMode mode : JSONCompareMode.values()) {
+            for (String document : documents) {
+                JSONCompareResult result = JSONCompare.compareJSONLazily(document, document, mode);
+                assertTrue(mode + " " + document + ": " + result.getMessage(), result.passed());
+            }
+        }
+    }
+
+    @Test
+    public void comparesRandomDocumentsLikeEagerParsing() {
+        Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            String expected = randomValue(random, 3, true);
+            String actual = random.nextBoolean() ? expected : randomValue(random, 3, true);
+            for (JSONCompareMode mode : JSONCompareMode.values()) {
+                assertEquals(mode + " " + expected + " " + actual,
+                        JSONCompare.compareJSON(expected, actual, mode).getMessage(),
+                        JSONCompare.compareJSONLazily(expected, actual, mode).getMessage());
+            }
+        }
+    }
+
+    private static final String[] SCALARS = {"0", "-0", "1", "1.0", "1e0", "1.5e1", "2.50e2", "-3", "12345678901",
+            "123456789012345678901234567890", "0.1", "true", "false", "null", "\"x\"", "\"1\"", "'y'"};
+
+    private static String randomValue(Random random, int depth, boolean container) {
+        int kind = container ? random.nextInt(2) : depth == 0 ? 2 : random.nextInt(4);
+        StringBuilder sb = new StringBuilder();
+        if (kind == 0) {
+            sb.append('{');
+            int size = random.nextInt(4);
+            for (int i = 0; i < size; i++) {
+                sb.append(i > 0 ? "," : "").append('"').append((char) ('a' + i)).append("\":");
+                sb.append(randomValue(random, depth - 1, false));
+            }
+            return sb.append('}').toString();
+        } else if (kind == 1) {
+            sb.append('[');
+            int size = random.nextInt(4);
+            for (int i = 0; i < size; i++) {
+                sb.append(i > 0 ? "," : "").append(randomValue(random, depth - 1, false));
+            }
+            return sb.append(']').toString();
+        }
+        return SCALARS[random.nextInt(SCALARS.length)];
+    }
+
+    @Test
+    public void decodesValuesAsOrgJsonDoes() {
+        JSONObject lazy = (JSONObject) LazyJSONParser.parseJSON(
+                "{\"i\":1,\"l\":12345678901,\"b\":123456789012345678901234567890,\"d\":1.50,\"s\":\"\\n\","
+                        + "\"t\":true,\"n\":null,\"a\":[]}");
+        assertEquals(1, lazy.get("i"));
+        assertEquals(12345678901L, lazy.get("l"));
+        assertEquals(new BigInteger("123456789012345678901234567890"), lazy.get("b"));
+        assertEquals(new BigDecimal("1.50"), lazy.get("d"));
+        assertEquals("\n", lazy.get("s"));
+        assertEquals(Boolean.TRUE, lazy.get("t"));
+        assertEquals(JSONObject.NULL, lazy.get("n"));
+        assertEquals(0, ((JSONArray) lazy.get("a")).length());
+        assertEquals(8, lazy.length());
+    }
+
+    @Test
+    public void doesNotDecodeUnreachedValues() {
+        // The unreached field would not parse, but only needs balanced brackets and strings to be skipped
+        String actual = "{\"id\":1,\"debug\":{\"dump\":[tru, 1.2.3, \"]\"]}}";
+        assertTrue(JSONCompare.compareJSONLazily("{id:1}", actual, JSONCompareMode.LENIENT).passed());
+        assertTrue(JSONCompare.compareJSONLazily("{id:1}", actual, JSONCompareMode.STRICT).failed());
+    }
+
+    @Test(expected = JSONException.class)
+    public void rejectsDuplicateKeysOfReachedObjects() {
+        JSONCompare.compareJSONLazily("{id:1}", "{\"id\":1,\"id\":2}", JSONCompareMode.LENIENT);
+    }
+
+    @Test
+    public void rejectsReachedTextOrgJsonReadsLeniently() {
+        String[] lenient = {"{\"id\":[1,]}", "{\"id\":[1,,2]}", "{\"id\":1,}", "{\"id\":1;\"x\":2}",
+            "{\"id\":[1 2]}", "{\"id\":[a\"b]}", "{\"id\":[1;2]}"};
+        for (String actual : lenient) {
+            try {
+                JSONCompare.compareJSONLazily("{id:[]}", actual, JSONCompareMode.LENIENT);
+                throw new AssertionError("Parsed " + actual);
+            } catch (JSONException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test(expected = JSONException.class)
+    public void rejectsUnbalancedDocuments() {
+        LazyJSONParser.parseJSON("{\"id\":[1,2}");
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.comparator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONCompare;
+import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.skyscreamer.jsonassert.JSONCompareResult;
+import org.skyscreamer.jsonassert.tree.JSONTape;
+
+/**
+ * Unit tests for {@link AbstractComparator}.
+ */
+public class AbstractComparatorTest {
+
+    private static class CountingComparator extends DefaultComparator {
+        private final Object watched;
+        private int watchedComparisons;
+
+        CountingComparator(Object watched) {
+            super(JSONCompareMode.LENIENT);
+            this.watched = watched;
+        }
+
+        @Override
+        public void compareJSON(String prefix, JSONObject expected, JSONObject actual, JSONCompareResult result) {
+            if (expected == watched) {
+                watchedComparisons++;
+            }
+            super.compareJSON(prefix, expected, actual, result);
+        }
+    }
+
+    @Test
+    public void probesEachPairOfParsedElementsOnce() {
+        // Parsed documents share no nodes, so the recursive fallback never probes the same pair twice and has
+        // nothing to remember
+        JSONArray expected = new JSONArray("[{\"a\":[1,{\"b\":1}]},{\"a\":[1,{\"b\":1}]},{\"a\":[{\"b\":2},1]}]");
+        JSONArray actual = new JSONArray("[{\"a\":[{\"b\":2},1]},{\"a\":[{\"b\":1},1]},{\"a\":[1,{\"b\":1}]}]");
+        final Map<Object, Set<Object>> probed = new IdentityHashMap<Object, Set<Object>>();
+        final int[] probes = new int[1];
+        DefaultComparator comparator = new DefaultComparator(JSONCompareMode.LENIENT) {
+            @Override
+            public void compareJSON(String prefix, JSONObject expected, JSONObject actual, JSONCompareResult result) {
+                if (!probed.containsKey(expected)) {
+                    probed.put(expected, Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>()));
+                }
+                assertTrue(probed.get(expected).add(actual));
+                probes[0]++;
+                super.compareJSON(prefix, expected, actual, result);
+            }
+        };
+        assertTrue(comparator.compareJSON(expected, actual).passed());
+        assertTrue(probes[0] > expected.length());
+    }
+
+    /**
+     * Compares through the overridable methods, one nested call per level, as comparators did before the stack.
+     */
+    private static class RecursingComparator extends DefaultComparator {
+        RecursingComparator(JSONCompareMode mode) {
+            super(mode);
+        }
+
+        @Override
+        protected void checkJsonObjectKeysExpectedInActual(String prefix, JSONObject expected, JSONObject actual,
+                                                           JSONCompareResult result) {
+            super.checkJsonObjectKeysExpectedInActual(prefix, expected, actual, result);
+        }
+
+        @Override
+        public void compareJSONArray(String prefix, JSONArray expected, JSONArray actual, JSONCompareResult result) {
+            super.compareJSONArray(prefix, expected, actual, result);
+        }
+    }
+
+    @Test
+    public void reportsFailuresInTheOrderOfRecursiveComparison() {
+        String expected = "{a:{b:[1,{c:2,d:[3,4]},[5]],e:{f:6}},g:[{id:1,h:7},{id:2,h:8}],i:9,j:{k:10}}";
+        String actual = "{a:{b:[0,{c:0,d:[3,0]},[0]],e:{f:0,x:1}},g:[{id:2,h:0},{id:3,h:7}],j:{k:0},y:2}";
+        for (JSONCompareMode mode : JSONCompareMode.values()) {
+            JSONCompareResult iterative = new DefaultComparator(mode).compareJSON(new JSONObject(expected),
+                    new JSONObject(actual));
+            JSONCompareResult recursive = new RecursingComparator(mode).compareJSON(new JSONObject(expected),
+                    new JSONObject(actual));
+            assertEquals(mode.toString(), recursive.getMessage(), iterative.getMessage());
+        }
+    }
+
+    @Test
+    public void comparesDocumentsDeeperThanTheJavaStack() throws InterruptedException {
+        final int depth = 3000;
+        StringBuilder objects = new StringBuilder();
+        StringBuilder arrays = new StringBuilder();
+        StringBuilder keyed = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            objects.append("{\"a\":");
+            arrays.append('[');
+            keyed.append("[{\"id\":1,\"c\":");
+        }
+        final String[] documents = new String[4];
+        documents[0] = objects + "1" + repeat('}', depth);
+        documents[1] = objects + "2" + repeat('}', depth);
+        documents[2] = arrays + "1" + repeat(']', depth);
+        documents[3] = keyed + "1" + repeat("}]", depth);
+        final JSONCompareResult[] results = new JSONCompareResult[3];
+        Thread thread = new Thread(null, new Runnable() {
+            @Override
+            public void run() {
+                JSONTape expected = JSONTape.parse(documents[0]);
+                results[0] = JSONCompare.compareJSON(expected, JSONTape.parse(documents[1]), JSONCompareMode.STRICT);
+                results[1] = JSONCompare.compareJSON(JSONTape.parse(documents[2]), JSONTape.parse(documents[2]),
+                        JSONCompareMode.STRICT);
+                results[2] = JSONCompare.compareJSON(JSONTape.parse(documents[3]), JSONTape.parse(documents[3]),
+                        JSONCompareMode.LENIENT);
+            }
+        }, "deep-comparison", 256 * 1024);
+        thread.start();
+        thread.join();
+
+        assertEquals(1, results[0].getFieldFailures().size());
+        assertEquals(depth * 2 - 1, results[0].getFieldFailures().get(0).getField().length());
+        assertTrue(results[1].passed());
+        assertTrue(results[2].passed());
+    }
+
+    private static String repeat(Object s, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void forgetsSubComparisonsBetweenTopLevelCalls() {
+        JSONObject innerExpected = new JSONObject("{\"a\":1}");
+        JSONArray expected = new JSONArray().put(innerExpected).put(2);
+        JSONArray actual = new JSONArray().put(2).put(new JSONObject("{\"a\":1}"));
+
+        CountingComparator comparator = new CountingComparator(innerExpected);
+        assertTrue(comparator.compareJSON(expected, actual).passed());
+        assertTrue(comparator.compareJSON(expected, actual).passed());
+        assertEquals(2, comparator.watchedComparisons);
+    }
+
+    @Test
+    public void alignsStrictOrderArraysWithinTheEditLimit() {
+        JSONArray expected = new JSONArray();
+        JSONArray actual = new JSONArray().put(-1);
+        for (int i = 0; i < 10000; i++) {
+            expected.put(new JSONObject().put("id", i).put("v", i));
+            actual.put(new JSONObject().put("id", i).put("v", i == 5000 ? -1 : i));
+        }
+        actual.remove(9001);
+        DefaultComparator comparator = new DefaultComparator(JSONCompareMode.STRICT);
+        comparator.setStrictOrderDiff(10);
+
+        JSONCompareResult result = comparator.compareJSON(expected, actual);
+        assertEquals(1, result.getFieldUnexpected().size());
+        assertEquals("[0]", result.getFieldUnexpected().get(0).getField());
+        assertEquals(1, result.getFieldFailures().size());
+        assertEquals("[5000].v", result.getFieldFailures().get(0).getField());
+        assertEquals(1, result.getFieldMissing().size());
+        assertEquals("[9000]", result.getFieldMissing().get(0).getField());
+
+        comparator.setStrictOrderDiff(1);
+        result = comparator.compareJSON(expected, actual);
+        assertEquals("[0]", result.getFieldFailures().get(0).getField());
+        assertTrue(result.getFieldFailures().size() > 4000);
+    }
+
+    /**
+     * Overrides one of the array comparisons in its original form, without positions, and accepts any arrays.
+     */
+    private static class WholeArrayComparator extends DefaultComparator {
+        final List<String> calls = new ArrayList<String>();
+
+        WholeArrayComparator(JSONCompareMode mode) {
+            super(mode);
+        }
+
+        boolean called(String method, String key) {
+            return calls.contains(method + " " + key);
+        }
+    }
+
+    @Test
+    public void callsStrictOrderComparisonOverriddenWithoutPositions() {
+        WholeArrayComparator comparator = new WholeArrayComparator(JSONCompareMode.STRICT) {
+            @Override
+            protected void compareJSONArrayWithStrictOrder(String key, JSONArray expected, JSONArray actual,
+                                                           JSONCompareResult result) {
+                calls.add("strictOrder " + key);
+            }
+        };
+        comparator.setStrictOrderDiff(4);
+        assertTrue(comparator.compareJSON(new JSONObject("{a:[1,2]}"), new JSONObject("{a:[2,1]}")).passed());
+        assertTrue(comparator.called("strictOrder", "a"));
+    }
+
+    @Test
+    public void callsUniqueKeyComparisonOverriddenWithoutPositions() {
+        WholeArrayComparator comparator = new WholeArrayComparator(JSONCompareMode.LENIENT) {
+            @Override
+            protected void compareJSONArrayOfJsonObjects(String key, JSONArray expected, JSONArray actual,
+                                                         JSONCompareResult result) {
+                calls.add("uniqueKey " + key);
+            }
+        };
+        assertTrue(comparator.compareJSON(new JSONObject("{a:[{id:1}]}"), new JSONObject("{a:[{id:2}]}")).passed());
+        assertTrue(comparator.called("uniqueKey", "a"));
+    }
+
+    @Test
+    public void callsRecursiveComparisonOverriddenWithoutPositions() {
+        WholeArrayComparator comparator = new WholeArrayComparator(JSONCompareMode.LENIENT) {
+            @Override
+            protected void recursivelyCompareJSONArray(String key, JSONArray expected, JSONArray actual,
+                                                       JSONCompareResult result) {
+                calls.add("recursive " + key);
+            }
+        };
+        assertTrue(comparator.compareJSON(new JSONObject("{a:[[1],[2]]}"), new JSONObject("{a:[[3],[4]]}"))
+                .passed());
+        assertTrue(comparator.called("recursive", "a"));
+        // Objects without a unique key fall back to the same method
+        assertTrue(comparator.compareJSON(new JSONObject("{b:[{x:[1]}]}"), new JSONObject("{b:[{x:[2]}]}"))
+                .passed());
+        assertTrue(comparator.called("recursive", "b"));
+    }
+
+    @Test
+    public void finishesNestedComparisonsBeforeOverriddenCompareValuesReturns() {
+        final List<String> failed = new ArrayList<String>();
+        DefaultComparator comparator = new DefaultComparator(JSONCompareMode.STRICT) {
+            @Override
+            public void compareValues(String prefix, Object expectedValue, Object actualValue,
+                                      JSONCompareResult result) {
+                int failureCount = result.getFailureCount();
+                super.compareValues(prefix, expectedValue, actualValue, result);
+                if (result.getFailureCount() > failureCount) {
+                    failed.add(prefix);
+                }
+            }
+        };
+        assertTrue(comparator.compareJSON(new JSONObject("{o:{x:1},a:[[1]]}"), new JSONObject("{o:{x:2},a:[[2]]}"))
+                .failed());
+        assertEquals(Arrays.asList("a[0][0]", "a[0]", "a", "o.x", "o"), failed);
+    }
+}
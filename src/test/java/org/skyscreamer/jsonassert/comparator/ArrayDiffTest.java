@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.comparator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ArrayDiff}.
+ */
+public class ArrayDiffTest {
+
+    /**
+     * Compares elements of two int arrays, failing on any pair compared twice.
+     */
+    private static class CountingEquality implements ArrayDiff.Equality {
+        private final int[] expected;
+        private final int[] actual;
+        private final Set<Long> compared = new HashSet<Long>();
+
+        CountingEquality(int[] expected, int[] actual) {
+            this.expected = expected;
+            this.actual = actual;
+        }
+
+        @Override
+        public boolean equal(int expectedIndex, int actualIndex) {
+            assertTrue(expectedIndex + "," + actualIndex,
+                    compared.add(((long) expectedIndex << 32) | actualIndex));
+            return expected[expectedIndex] == actual[actualIndex];
+        }
+    }
+
+    @Test
+    public void findsTheFewestEditsComparingEachPairOnce() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int[] expected = new int[random.nextInt(30)];
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = random.nextInt(4);
+            }
+            int[] actual = new int[random.nextInt(30)];
+            for (int i = 0; i < actual.length; i++) {
+                actual[i] = random.nextInt(4);
+            }
+            List<ArrayDiff.Hunk> hunks = ArrayDiff.diff(expected.length, actual.length,
+                    new CountingEquality(expected, actual), 60);
+            int edits = 0;
+            for (ArrayDiff.Hunk hunk : hunks) {
+                edits += hunk.expectedEnd - hunk.expectedStart + hunk.actualEnd - hunk.actualStart;
+            }
+            assertEquals(expected.length + actual.length - 2 * lcs(expected, actual), edits);
+        }
+    }
+
+    @Test
+    public void givesUpBeyondTheEditLimit() {
+        int[] expected = {1, 2, 3, 4};
+        int[] actual = {5, 6, 7, 8};
+        assertNull(ArrayDiff.diff(4, 4, new CountingEquality(expected, actual), 7));
+        assertEquals(1, ArrayDiff.diff(4, 4, new CountingEquality(expected, actual), 8).size());
+    }
+
+    private static int lcs(int[] a, int[] b) {
+        int[][] lengths = new int[a.length + 1][b.length + 1];
+        for (int i = a.length - 1; i >= 0; i--) {
+            for (int j = b.length - 1; j >= 0; j--) {
+                lengths[i][j] = a[i] == b[j] ? lengths[i + 1][j + 1] + 1
+                        : Math.max(lengths[i + 1][j], lengths[i][j + 1]);
+            }
+        }
+        return lengths[0][0];
+    }
+}
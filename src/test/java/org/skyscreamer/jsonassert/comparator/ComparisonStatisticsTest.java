@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.comparator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.skyscreamer.jsonassert.Customization;
+import org.skyscreamer.jsonassert.JSONCompare;
+import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.skyscreamer.jsonassert.RegularExpressionValueMatcher;
+
+/**
+ * Unit tests for {@link ComparisonStatistics}.
+ */
+public class ComparisonStatisticsTest {
+
+    @Test
+    public void countsNodesDepthAndStrategies() {
+        DefaultComparator comparator = new DefaultComparator(JSONCompareMode.LENIENT);
+        ComparisonStatistics statistics = new ComparisonStatistics();
+        comparator.setComparisonListener(statistics);
+
+        JSONCompare.compareJSON("{a:{b:{c:1}},l:[1,2],k:[{id:1},{id:2}],m:[1,{x:1}]}",
+                "{a:{b:{c:2}},l:[2,1],k:[{id:2},{id:1}],m:[{x:1},1]}", comparator);
+
+        // a, a.b, a.b.c, l, k, k[id=1], k[id=1].id, k[id=2], k[id=2].id, m, x inside the fallback probe
+        assertEquals(11, statistics.getNodesVisited());
+        assertEquals(3, statistics.getMaxDepth());
+        // a.b.c and both of its ancestors
+        assertEquals(3, statistics.getNodesFailed());
+        assertEquals(1, statistics.getStrategyCount(ArrayComparisonStrategy.SIMPLE_VALUES));
+        assertEquals(1, statistics.getStrategyCount(ArrayComparisonStrategy.UNIQUE_KEY));
+        assertEquals(1, statistics.getFallbackCount());
+        assertEquals(0, statistics.getStrategyCount(ArrayComparisonStrategy.STRICT_ORDER));
+        assertTrue(statistics.getStrategyNanos(ArrayComparisonStrategy.RECURSIVE) > 0);
+    }
+
+    @Test
+    public void countsCustomizationOutcomes() {
+        CustomComparator comparator = new CustomComparator(JSONCompareMode.LENIENT,
+                new Customization("*.id", new RegularExpressionValueMatcher<Object>("\\d+")));
+        ComparisonStatistics statistics = new ComparisonStatistics();
+        comparator.setComparisonListener(statistics);
+
+        JSONCompare.compareJSON("{a:{id:0},b:{id:0}}", "{a:{id:12},b:{id:\"x\"}}", comparator);
+
+        assertEquals(2, statistics.getCustomizationHits());
+        assertEquals(1, statistics.getCustomizationFailures());
+
+        statistics.reset();
+        assertEquals(0, statistics.getCustomizationHits());
+        assertEquals(0, statistics.getNodesVisited());
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Scanner;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.Customization;
+import org.skyscreamer.jsonassert.JSONCompare;
+import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.skyscreamer.jsonassert.JSONParser;
+import org.skyscreamer.jsonassert.ValueMatcher;
+import org.skyscreamer.jsonassert.comparator.CustomComparator;
+
+/**
+ * Unit tests for {@link ExpectedJSONProcessor}, through the classes it generates for this test.
+ */
+@ExpectedJSON(value = "org/skyscreamer/jsonassert/processor/order.json", name = "StrictOrderExpectation")
+@ExpectedJSON(value = "org/skyscreamer/jsonassert/processor/order.json", name = "LenientOrderExpectation",
+        mode = JSONCompareMode.LENIENT,
+        customizations = @ExpectedJSON.Customize(path = "meta.created",
+                matcher = ExpectedJSONProcessorTest.AnyValue.class))
+public class ExpectedJSONProcessorTest {
+    private static final String RESOURCE = "org/skyscreamer/jsonassert/processor/order.json";
+
+    public static class AnyValue implements ValueMatcher<Object> {
+        @Override
+        public boolean equal(Object o1, Object o2) {
+            return true;
+        }
+    }
+
+    @Test
+    public void generatedDocumentEqualsParsedResource() throws IOException {
+        JSONObject parsed = (JSONObject) JSONParser.parseJSON(read(RESOURCE));
+        JSONObject generated = StrictOrderExpectation.expected();
+        assertTrue(generated.similar(parsed));
+        for (String key : parsed.keySet()) {
+            assertEquals(key, parsed.get(key).getClass(), generated.get(key).getClass());
+        }
+        assertEquals(RESOURCE, StrictOrderExpectation.RESOURCE);
+        assertEquals(JSONCompareMode.LENIENT, LenientOrderExpectation.MODE);
+    }
+
+    @Test
+    public void verifiesLikeJSONCompare() throws IOException {
+        String expected = read(RESOURCE);
+        JSONObject reordered = (JSONObject) JSONParser.parseJSON(expected);
+        reordered.put("tags", new org.json.JSONArray("[\"a\",\"a\",\"b\"]"));
+        reordered.getJSONObject("meta").put("created", "2025-06-30");
+        reordered.put("extra", true);
+        String[] actuals = {expected, reordered.toString(), "{\"id\":2}"};
+
+        CustomComparator lenient = new CustomComparator(JSONCompareMode.LENIENT,
+                new Customization("meta.created", new AnyValue()));
+        for (String actual : actuals) {
+            assertEquals(JSONCompare.compareJSON(expected, actual, JSONCompareMode.STRICT).getMessage(),
+                    StrictOrderExpectation.verify(actual).getMessage());
+            assertEquals(JSONCompare.compareJSON(expected, actual, lenient).getMessage(),
+                    LenientOrderExpectation.verify(actual).getMessage());
+        }
+        assertTrue(LenientOrderExpectation.verify(reordered).passed());
+        assertTrue(StrictOrderExpectation.verify(reordered).failed());
+    }
+
+    @Test
+    public void quotesStringsAsAsciiLiterals() {
+        assertEquals("\"a\\\"b\\\\c\\nd\\u0007\\u00e9\"", ExpectedJSONProcessor.quote("a\"b\\c\nd\u0007\u00e9"));
+    }
+
+    private static String read(String resource) throws IOException {
+        try (InputStream in = ExpectedJSONProcessorTest.class.getClassLoader().getResourceAsStream(resource);
+             Scanner scanner = new Scanner(in, "UTF-8")) {
+            return scanner.useDelimiter("\\A").next();
+        }
+    }
+}
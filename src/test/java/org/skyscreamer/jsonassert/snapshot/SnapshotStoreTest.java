@@ -0,0 +1,190 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.snapshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.skyscreamer.jsonassert.JSONCompare;
+import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.skyscreamer.jsonassert.JSONCompareResult;
+import org.skyscreamer.jsonassert.comparator.DefaultComparator;
+
+/**
+ * Unit tests for {@link SnapshotStore}.
+ */
+public class SnapshotStoreTest {
+    private static final String GOLDEN = "{\"id\":1,\"items\":[{\"sku\":\"a\"},{\"sku\":\"b\"}]}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void updateModeWritesMissingSnapshotsAndIndex() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        try (SnapshotStore store = SnapshotStore.open(dir, true)) {
+            assertTrue(store.verify("orders/1", GOLDEN, JSONCompareMode.STRICT).passed());
+        }
+        assertEquals(GOLDEN, read(dir.resolve("orders/1.json")));
+        assertTrue(Files.exists(dir.resolve(SnapshotStore.INDEX_FILE_NAME)));
+    }
+
+    @Test
+    public void matchingDigestIsNotCompared() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        writeGolden(dir, "orders/1", GOLDEN);
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            store.indexAll();
+        }
+        DefaultComparator comparator = new DefaultComparator(JSONCompareMode.STRICT) {
+            @Override
+            public void compareJSON(String prefix, JSONObject expected, JSONObject actual, JSONCompareResult result) {
+                throw new AssertionError("Compared " + actual);
+            }
+        };
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            assertTrue(store.verify("orders/1", "{ \"items\": [{\"sku\":\"a\"}, {\"sku\":\"b\"}], \"id\": 1.0 }",
+                    comparator).passed());
+            // Learnt from the parsed golden file rather than from the tape
+            writeGolden(dir, "orders/2", "[1.50,\"x\",{\"b\":null,\"a\":true}]");
+            assertTrue(store.verify("orders/2", "[1.5,\"x\",{\"a\":true,\"b\":null}]", JSONCompareMode.STRICT)
+                    .passed());
+            assertTrue(store.verify("orders/2", "[1.5, \"x\", {\"a\": true, \"b\": null}]", comparator).passed());
+        }
+    }
+
+    @Test
+    public void editKeepingSizeAndModificationTimeIsNotTrustedToTheIndex() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        Path golden = writeGolden(dir, "a", "{\"id\":1}");
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            store.indexAll();
+        }
+        FileTime modified = Files.getLastModifiedTime(golden);
+        Files.write(golden, "{\"id\":2}".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(golden, modified);
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            assertTrue(store.verify("a", "{\"id\":1}", JSONCompareMode.STRICT).failed());
+            assertTrue(store.verify("a", "{\"id\":2}", JSONCompareMode.STRICT).passed());
+        }
+    }
+
+    @Test
+    public void flushReplacesTheMappedIndex() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        writeGolden(dir, "a", GOLDEN);
+        writeGolden(dir, "b", "[1,2]");
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            assertTrue(store.verify("a", GOLDEN, JSONCompareMode.STRICT).passed());
+            store.flush();
+            assertTrue(store.verify("b", "[1,2]", JSONCompareMode.STRICT).passed());
+            store.flush();
+            assertTrue(store.verify("a", GOLDEN, JSONCompareMode.STRICT).passed());
+            assertTrue(store.verify("b", "[2,1]", JSONCompareMode.STRICT).failed());
+        }
+    }
+
+    @Test
+    public void digestsDocumentsOnlyOrgJsonAccepts() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        writeGolden(dir, "a", "{\"id\":1,\"tags\":[1,2,],}");
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            store.indexAll();
+        }
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            assertTrue(store.verify("a", "{\"tags\":[1,2],\"id\":1}", JSONCompareMode.STRICT).passed());
+            assertTrue(store.verify("a", "{\"tags\":[1,2,],\"id\":2}", JSONCompareMode.STRICT).failed());
+        }
+    }
+
+    @Test
+    public void mismatchIsComparedWithTheGoldenFile() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        writeGolden(dir, "orders/1", GOLDEN);
+        String actual = "{\"id\":1,\"items\":[{\"sku\":\"b\"},{\"sku\":\"a\"}]}";
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            assertTrue(store.verify("orders/1", actual, JSONCompareMode.LENIENT).passed());
+            JSONCompareResult result = store.verify("orders/1", actual, JSONCompareMode.STRICT);
+            assertEquals(JSONCompare.compareJSON(GOLDEN, actual, JSONCompareMode.STRICT).getMessage(),
+                    result.getMessage());
+        }
+    }
+
+    @Test
+    public void editedGoldenFileIsNotTrustedToTheIndex() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        Path golden = writeGolden(dir, "a", GOLDEN);
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            assertTrue(store.verify("a", GOLDEN, JSONCompareMode.STRICT).passed());
+        }
+        Files.write(golden, "{\"id\":2}".getBytes(StandardCharsets.UTF_8));
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            assertTrue(store.verify("a", GOLDEN, JSONCompareMode.STRICT).failed());
+        }
+    }
+
+    @Test
+    public void updateModeReplacesFailingSnapshots() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        writeGolden(dir, "a", GOLDEN);
+        try (SnapshotStore store = SnapshotStore.open(dir, true)) {
+            assertTrue(store.verify("a", "{\"id\":2}", JSONCompareMode.STRICT).passed());
+        }
+        assertEquals("{\"id\":2}", read(dir.resolve("a.json")));
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            assertTrue(store.verify("a", "{\"id\":2}", JSONCompareMode.STRICT).passed());
+            assertTrue(store.verify("a", GOLDEN, JSONCompareMode.STRICT).failed());
+        }
+    }
+
+    @Test
+    public void missingSnapshotFailsInVerifyMode() throws IOException {
+        try (SnapshotStore store = SnapshotStore.open(folder.getRoot().toPath())) {
+            JSONCompareResult result = store.verify("nope", GOLDEN, JSONCompareMode.STRICT);
+            assertTrue(result.failed());
+            assertEquals("No snapshot named 'nope'", result.getMessage());
+        }
+        assertFalse(Files.exists(folder.getRoot().toPath().resolve("nope.json")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNamesOutsideTheStore() throws IOException {
+        try (SnapshotStore store = SnapshotStore.open(folder.getRoot().toPath().resolve("store"))) {
+            store.verify("../escape", GOLDEN, JSONCompareMode.STRICT);
+        }
+    }
+
+    private static Path writeGolden(Path dir, String name, String json) throws IOException {
+        Path file = dir.resolve(name + ".json");
+        Files.createDirectories(file.getParent());
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.Customization;
+import org.skyscreamer.jsonassert.JSONCompare;
+import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.skyscreamer.jsonassert.comparator.CustomComparator;
+
+/**
+ * Unit tests for {@link JSONTape}.
+ */
+public class JSONTapeTest {
+    private static final String EXPECTED = "{\"id\":1,\"name\":\"a\\u00e9\\n\",\"tags\":[\"x\",\"y\"],\"price\":1.5,"
+            + "\"items\":[{\"id\":2,\"ok\":true},{\"id\":3,\"ok\":null}],\"mixed\":[[1],{\"a\":1}],\"empty\":{}}";
+    private static final String[] ACTUALS = {
+            EXPECTED,
+            "{\"id\":1,\"name\":\"b\",\"tags\":[\"y\",\"x\"],\"price\":1.50,"
+                    + "\"items\":[{\"id\":3,\"ok\":null},{\"id\":2,\"ok\":false}],\"mixed\":[{\"a\":1},[1]],"
+                    + "\"empty\":[],\"extra\":0}",
+            "{id:1,'name':'a\\u00e9\\n',tags:[x,y],price:15e-1,items:[],mixed:[],empty:{}}",
+            "[1,2,3]",
+    };
+
+    @Test
+    public void comparesLikeOrgJsonInEveryMode() {
+        for (JSONCompareMode mode : JSONCompareMode.values()) {
+            for (String actual : ACTUALS) {
+                assertEquals(mode + " " + actual, JSONCompare.compareJSON(EXPECTED, actual, mode).getMessage(),
+                        JSONCompare.compareJSON(JSONTape.parse(EXPECTED), JSONTape.parse(actual, true), mode)
+                                .getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void readsValuesAsOrgJsonDoes() {
+        JSONTape tape = JSONTape.parse("{\"i\":1,\"l\":12345678901,\"b\":123456789012345678901234567890,"
+                + "\"d\":1.50,\"s\":\"\\\"q\\\"\\t\",\"t\":true,\"n\":null,\"u\":abc,\"a\":[]}");
+        JSONObject view = (JSONObject) tape.view();
+        assertEquals(1, view.get("i"));
+        assertEquals(12345678901L, view.get("l"));
+        assertEquals(new BigInteger("123456789012345678901234567890"), view.get("b"));
+        assertEquals(new BigDecimal("1.50"), view.get("d"));
+        assertEquals("\"q\"\t", view.get("s"));
+        assertEquals(Boolean.TRUE, view.get("t"));
+        assertEquals(JSONObject.NULL, view.get("n"));
+        assertEquals("abc", view.get("u"));
+        assertEquals(0, view.getJSONArray("a").length());
+        assertEquals(9, view.length());
+        assertFalse(view.has("missing"));
+        assertEquals(19, tape.tokenCount());
+    }
+
+    @Test
+    public void findsFieldsOfLargeObjectsAndElementsOfLargeArrays() {
+        JSONObject object = new JSONObject();
+        JSONArray array = new JSONArray();
+        for (int i = 0; i < 500; i++) {
+            object.put("k" + i, new JSONArray().put(i));
+            array.put(new JSONObject().put("v", i));
+        }
+        JSONObject view = (JSONObject) JSONTape.parse(object.toString()).view();
+        JSONArray arrayView = (JSONArray) JSONTape.parse(array.toString(), true).view();
+        for (int i = 499; i >= 0; i--) {
+            assertEquals(i, view.getJSONArray("k" + i).getInt(0));
+            assertEquals(i, arrayView.getJSONObject(i).getInt("v"));
+        }
+        assertFalse(view.has("k500"));
+        assertTrue(JSONCompare.compareJSON(JSONTape.parse(object.toString()), JSONTape.parse(object.toString(), true),
+                JSONCompareMode.NON_EXTENSIBLE).passed());
+    }
+
+    @Test
+    public void parsesDeeplyNestedDocuments() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            sb.append('[');
+        }
+        for (int i = 0; i < 100000; i++) {
+            sb.append(']');
+        }
+        assertEquals(100000, JSONTape.parse(sb.toString()).tokenCount());
+    }
+
+    @Test
+    public void keepsTheTapeOffTheHeapOnRequest() {
+        assertTrue(JSONTape.parse(EXPECTED, true).isOffHeap());
+        assertFalse(JSONTape.parse(EXPECTED).isOffHeap());
+    }
+
+    @Test
+    public void parsesUtf8BytesInPlace() {
+        String json = "{\"caf\u00e9\":\"cr\u00e8me \u2615\",\"k\\u00e9y\":[\"\\ud83d\\ude00\"],\"n\":-1.5e3}";
+        byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+        byte[] withBom = new byte[utf8.length + 3];
+        withBom[0] = (byte) 0xEF;
+        withBom[1] = (byte) 0xBB;
+        withBom[2] = (byte) 0xBF;
+        System.arraycopy(utf8, 0, withBom, 3, utf8.length);
+        ByteBuffer direct = ByteBuffer.allocateDirect(utf8.length);
+        direct.put(utf8).flip();
+
+        JSONTape[] tapes = {JSONTape.parse(utf8), JSONTape.parse(withBom, true), JSONTape.parse(direct)};
+        for (JSONTape tape : tapes) {
+            JSONObject view = (JSONObject) tape.view();
+            assertEquals("cr\u00e8me \u2615", view.getString("caf\u00e9"));
+            assertEquals("\ud83d\ude00", view.getJSONArray("k\u00e9y").getString(0));
+            assertEquals(new JSONObject(json).get("n"), view.get("n"));
+            assertTrue(JSONCompare.compareJSON(JSONTape.parse(json), tape, JSONCompareMode.STRICT).passed());
+        }
+        assertEquals(0, direct.position());
+    }
+
+    @Test(expected = JSONException.class)
+    public void rejectsDuplicateKeys() {
+        JSONTape.parse("{\"a\":{\"a\":1},\"b\":2,\"a\":3}");
+    }
+
+    @Test
+    public void rejectsMalformedDocuments() {
+        String[] malformed = {"{\"a\":1", "[1,2}", "{\"a\" 1}", "[1,]", "[\"\\x\"]", "1 2", "{,}", ""};
+        for (String json : malformed) {
+            try {
+                JSONTape.parse(json);
+                throw new AssertionError("Parsed " + json);
+            } catch (JSONException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void rejectsWhatOrgJsonReadsLeniently() {
+        // org.json reads these as [1], [1,null,2], [null,1], {"a":1}, {"a":1,"b":2}, ["1 2"] and {"a b":1}
+        String[] lenient = {"[1,]", "[1,,2]", "[,1]", "{\"a\":1,}", "{\"a\":1;\"b\":2}", "[1 2]", "{a b:1}"};
+        for (String json : lenient) {
+            new JSONTokener(json).nextValue();
+            assertRejected(json);
+        }
+    }
+
+    @Test
+    public void rejectsWhatOrgJsonRejects() {
+        String[] rejected = {"[a\"b]", "[1;2]", "[a#b]", "[a/b]", "{a\"b:1}", "{a=1}", "[a\u0001b]"};
+        for (String json : rejected) {
+            try {
+                new JSONTokener(json).nextValue();
+                throw new AssertionError("org.json parsed " + json);
+            } catch (JSONException expected) {
+                // expected
+            }
+            assertRejected(json);
+        }
+    }
+
+    private static void assertRejected(String json) {
+        try {
+            JSONTape.parse(json);
+            throw new AssertionError("Parsed " + json);
+        } catch (JSONException expected) {
+            // expected
+        }
+        try {
+            JSONTape.parse(json.getBytes(StandardCharsets.UTF_8));
+            throw new AssertionError("Parsed bytes of " + json);
+        } catch (JSONException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void ignoresTextAfterTheDocumentAsOrgJsonDoes() {
+        String actual = "{\"a\":1} trailing";
+        assertTrue(JSONCompare.compareJSON("{\"a\":1}", actual, JSONCompareMode.STRICT).passed());
+        assertTrue(JSONCompare.compareJSON("{\"a\":1}", actual.getBytes(StandardCharsets.UTF_8),
+                JSONCompareMode.STRICT).passed());
+        assertTrue(JSONCompare.compareJSON("[1,2]", "[1,2]] x".getBytes(StandardCharsets.UTF_8),
+                JSONCompareMode.STRICT).passed());
+        assertTrue(JSONCompare.compareJSON("{\"a\":1}", "{\"a\":1,\"b\":2} trailing",
+                new CustomComparator(JSONCompareMode.STRICT, Customization.ignore("b"))).passed());
+        assertTrue(JSONCompare.compareJSON("{\"a\":1}", "{\"a\":2} trailing".getBytes(StandardCharsets.UTF_8),
+                JSONCompareMode.STRICT).failed());
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONCompare;
+import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.skyscreamer.jsonassert.JSONCompareResult;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+/**
+ * Unit tests for {@link JSONTreeAdapter}s and {@link JSONTreeView}.
+ */
+public class JSONTreeAdapterTest {
+    private static final String EXPECTED = "{\"id\":1,\"name\":\"a\",\"tags\":[\"x\",\"y\"],\"price\":1.5,"
+            + "\"items\":[{\"id\":2,\"ok\":true},{\"id\":3,\"ok\":null}],\"mixed\":[[1],{\"a\":1}]}";
+    private static final String ACTUAL = "{\"id\":1,\"name\":\"b\",\"tags\":[\"y\",\"x\"],\"price\":1.50,"
+            + "\"items\":[{\"id\":3,\"ok\":null},{\"id\":2,\"ok\":false}],\"mixed\":[{\"a\":1},[1]],\"extra\":0}";
+
+    @Test
+    public void comparesCollectionTrees() {
+        Map<String, Object> expected = new LinkedHashMap<String, Object>();
+        expected.put("id", 1L);
+        expected.put("tags", Arrays.asList("x", 2L, null));
+        expected.put("nested", new LinkedHashMap<String, Object>());
+        Map<String, Object> actual = new LinkedHashMap<String, Object>(expected);
+        actual.put("tags", Arrays.asList(2, null, "x"));
+
+        assertTrue(JSONCompare.compareJSON(expected, actual, CollectionTreeAdapter.INSTANCE,
+                JSONCompareMode.LENIENT).passed());
+        JSONCompareResult result = JSONCompare.compareJSON(expected, actual, CollectionTreeAdapter.INSTANCE,
+                JSONCompareMode.STRICT);
+        assertTrue(result.failed());
+        assertEquals(stringResult("{id:1,tags:[\"x\",2,null],nested:{}}", "{id:1,tags:[2,null,\"x\"],nested:{}}",
+                JSONCompareMode.STRICT).getMessage(), result.getMessage());
+    }
+
+    @Test
+    public void comparesJacksonTreesLikeTheirText() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode expected = mapper.readTree(EXPECTED);
+        JsonNode actual = mapper.readTree(ACTUAL);
+        for (JSONCompareMode mode : JSONCompareMode.values()) {
+            assertEquals(mode.name(), stringResult(EXPECTED, ACTUAL, mode).getMessage(),
+                    JSONCompare.compareJSON(expected, actual, JacksonTreeAdapter.INSTANCE, mode).getMessage());
+        }
+    }
+
+    @Test
+    public void comparesGsonTreesLikeTheirText() {
+        JsonElement expected = JsonParser.parseString(EXPECTED);
+        JsonElement actual = JsonParser.parseString(ACTUAL);
+        for (JSONCompareMode mode : JSONCompareMode.values()) {
+            assertEquals(mode.name(), stringResult(EXPECTED, ACTUAL, mode).getMessage(),
+                    JSONCompare.compareJSON(expected, actual, GsonTreeAdapter.INSTANCE, mode).getMessage());
+        }
+    }
+
+    @Test
+    public void comparesViewsWithOrgJsonTrees() throws Exception {
+        JSONObject expected = new JSONObject("{\"ids\":[3,1,2],\"big\":12345678901,\"o\":{\"a\":[{\"b\":1}]}}");
+        JSONObject actual = JSONTreeView.object(new ObjectMapper().readTree(
+                "{\"ids\":[1,2,3],\"big\":12345678901,\"o\":{\"a\":[{\"b\":1}]}}"), JacksonTreeAdapter.INSTANCE);
+        assertTrue(JSONCompare.compareJSON(expected, actual, JSONCompareMode.LENIENT).passed());
+        assertTrue(JSONCompare.compareJSON(actual, expected, JSONCompareMode.NON_EXTENSIBLE).passed());
+        assertTrue(JSONCompare.compareJSON(expected, actual, JSONCompareMode.STRICT).failed());
+    }
+
+    @Test
+    public void comparesScalarRoots() {
+        assertTrue(JSONCompare.compareJSON("a", "a", CollectionTreeAdapter.INSTANCE, JSONCompareMode.STRICT).passed());
+        assertTrue(JSONCompare.compareJSON(1L, 1, CollectionTreeAdapter.INSTANCE, JSONCompareMode.STRICT).passed());
+        assertTrue(JSONCompare.compareJSON(1, "1", CollectionTreeAdapter.INSTANCE, JSONCompareMode.STRICT).failed());
+        assertTrue(JSONCompare.compareJSON(Arrays.asList(), null, CollectionTreeAdapter.INSTANCE,
+                JSONCompareMode.STRICT).failed());
+    }
+
+    @Test
+    public void viewsNumbersAsOrgJsonParsesThem() {
+        assertEquals(1, JSONTreeView.normalize(1L));
+        assertEquals(12345678901L, JSONTreeView.normalize(12345678901L));
+        assertEquals(new JSONArray("[1.5]").get(0), JSONTreeView.normalize(1.5d));
+        assertEquals(new JSONArray("[123456789012345678901234]").get(0),
+                JSONTreeView.normalize(new java.math.BigInteger("123456789012345678901234")));
+    }
+
+    @Test
+    public void keepsDecimalsWithExponentsAsOrgJsonParsesThem() {
+        JSONArray parsed = new JSONArray("[1e0,1.5e1,2.50e2]");
+        for (int i = 0; i < parsed.length(); i++) {
+            assertEquals(parsed.get(i), JSONTreeView.normalize((BigDecimal) parsed.get(i)));
+        }
+        JSONArray view = JSONTreeView.array(Arrays.asList(new BigDecimal("2.50e2"), new BigDecimal("1e0"),
+                new BigDecimal("1.5e1")), CollectionTreeAdapter.INSTANCE);
+        JSONCompareResult result = JSONCompare.compareJSON(parsed, view, JSONCompareMode.LENIENT);
+        assertTrue(result.getMessage(), result.passed());
+    }
+
+    @Test
+    public void viewsRenderAsJsonAndReuseChildren() {
+        Map<String, Object> tree = new LinkedHashMap<String, Object>();
+        tree.put("a", Arrays.asList(1, "x", null, true));
+        tree.put("b", new LinkedHashMap<String, Object>());
+        JSONObject view = JSONTreeView.object(tree, CollectionTreeAdapter.INSTANCE);
+
+        assertEquals("{\"a\":[1,\"x\",null,true],\"b\":{}}", view.toString());
+        assertEquals(new JSONObject(view.toString()).toString(2), view.toString(2));
+        assertSame(view.get("a"), view.get("a"));
+        assertSame(view.getJSONArray("a").get(1), view.getJSONArray("a").opt(1));
+        assertTrue(view.getJSONArray("a").isNull(2));
+        assertFalse(view.has("c"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void viewsAreReadOnly() {
+        JSONTreeView.object(new LinkedHashMap<String, Object>(), CollectionTreeAdapter.INSTANCE).put("a", 1);
+    }
+
+    @Test
+    public void viewsCompareSimilarThroughTheTree() {
+        JSONObject view = JSONTreeView.object(tree(), CollectionTreeAdapter.INSTANCE);
+        JSONArray array = view.getJSONArray("a");
+
+        assertTrue(view.similar(new JSONObject("{\"a\":[1,\"x\",null,true],\"b\":{\"c\":2.0}}")));
+        assertTrue(view.similar(JSONTreeView.object(tree(), CollectionTreeAdapter.INSTANCE)));
+        assertFalse(view.similar(new JSONObject("{\"a\":[1,\"x\",null,false],\"b\":{\"c\":2}}")));
+        assertFalse(view.similar(new JSONObject("{\"a\":[1,\"x\",null,true]}")));
+        assertFalse(view.similar(new JSONArray()));
+
+        assertTrue(array.similar(new JSONArray("[1,\"x\",null,true]")));
+        assertFalse(array.similar(new JSONArray("[1,2]")));
+        assertFalse(array.similar(new JSONArray("[1,\"y\",null,true]")));
+        assertFalse(array.similar(new JSONObject()));
+    }
+
+    @Test
+    public void viewsConvertToCollections() {
+        JSONObject view = JSONTreeView.object(tree(), CollectionTreeAdapter.INSTANCE);
+        List<Object> list = Arrays.<Object>asList(1, "x", null, true);
+
+        Map<String, Object> map = view.toMap();
+        assertEquals(2, map.size());
+        assertEquals(list, map.get("a"));
+        assertEquals(Collections.singletonMap("c", 2), map.get("b"));
+        assertEquals(list, view.getJSONArray("a").toList());
+        assertEquals(new JSONObject(view.toString()).toMap(), map);
+        assertEquals("1|\"x\"|null|true", view.getJSONArray("a").join("|"));
+        assertEquals("{\"c\":2}", JSONTreeView.array(Arrays.asList(tree().get("b")), CollectionTreeAdapter.INSTANCE)
+                .join(","));
+    }
+
+    @Test
+    public void viewsRejectEveryModification() {
+        final JSONObject view = JSONTreeView.object(tree(), CollectionTreeAdapter.INSTANCE);
+        final JSONArray array = view.getJSONArray("a");
+        assertReadOnly(new Runnable() {
+            @Override
+            public void run() {
+                view.clear();
+            }
+        });
+        assertReadOnly(new Runnable() {
+            @Override
+            public void run() {
+                view.remove("a");
+            }
+        });
+        assertReadOnly(new Runnable() {
+            @Override
+            public void run() {
+                array.clear();
+            }
+        });
+        assertReadOnly(new Runnable() {
+            @Override
+            public void run() {
+                array.putAll(Arrays.asList(1));
+            }
+        });
+        assertReadOnly(new Runnable() {
+            @Override
+            public void run() {
+                array.putAll((Iterable<Integer>) Arrays.asList(1));
+            }
+        });
+        assertReadOnly(new Runnable() {
+            @Override
+            public void run() {
+                array.putAll(new JSONArray("[1]"));
+            }
+        });
+        assertReadOnly(new Runnable() {
+            @Override
+            public void run() {
+                array.putAll(new int[] { 1 });
+            }
+        });
+        assertEquals(4, array.length());
+        assertEquals(2, view.length());
+    }
+
+    @Test
+    public void orgJsonTreesAreNotWrapped() {
+        JSONObject tree = new JSONObject("{\"a\":1}");
+        assertSame(tree, JSONTreeView.of(tree, OrgJsonTreeAdapter.INSTANCE));
+    }
+
+    private static Map<String, Object> tree() {
+        Map<String, Object> tree = new LinkedHashMap<String, Object>();
+        tree.put("a", Arrays.asList(1, "x", null, true));
+        tree.put("b", Collections.singletonMap("c", 2));
+        return tree;
+    }
+
+    private static void assertReadOnly(Runnable modification) {
+        try {
+            modification.run();
+        } catch (UnsupportedOperationException e) {
+            return;
+        }
+        fail("Modified a read-only view");
+    }
+
+    private static JSONCompareResult stringResult(String expected, String actual, JSONCompareMode mode) {
+        return JSONCompare.compareJSON(expected, actual, mode);
+    }
+}
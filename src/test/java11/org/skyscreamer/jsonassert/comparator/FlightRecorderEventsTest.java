@@ -0,0 +1,125 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.skyscreamer.jsonassert.comparator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.skyscreamer.jsonassert.Customization;
+import org.skyscreamer.jsonassert.JSONCompare;
+import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.skyscreamer.jsonassert.ValueMatcher;
+
+/**
+ * Unit tests for the Java 11 {@link FlightRecorderEvents}, run against the multi-release classes of the build.
+ */
+public class FlightRecorderEventsTest {
+    private static final String COMPARISON = "org.skyscreamer.jsonassert.Comparison";
+    private static final String ARRAY_FALLBACK = "org.skyscreamer.jsonassert.ArrayFallback";
+    private static final String SLOW_VALUE_MATCHER = "org.skyscreamer.jsonassert.SlowValueMatcher";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordsComparisonsFallbacksAndSlowValueMatchers() throws IOException {
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(COMPARISON);
+            recording.enable(ARRAY_FALLBACK);
+            recording.enable(SLOW_VALUE_MATCHER).withThreshold(Duration.ZERO);
+            recording.start();
+            // Mixed-type arrays are matched by the recursive fallback
+            JSONCompare.compareJSON("{a:[1,{b:1}]}", "{a:[{b:1},1]}", JSONCompareMode.LENIENT);
+            JSONCompare.compareJSON("{a:1,b:2}", "{a:3,b:4}", new CustomComparator(JSONCompareMode.STRICT,
+                    new Customization("a", new ValueMatcher<Object>() {
+                        @Override
+                        public boolean equal(Object o1, Object o2) {
+                            return true;
+                        }
+                    })));
+            recording.stop();
+            events = eventsOf(recording);
+        }
+
+        List<RecordedEvent> comparisons = named(events, COMPARISON);
+        assertEquals(2, comparisons.size());
+        RecordedEvent first = comparisons.get(0);
+        assertEquals(DefaultComparator.class.getName(), first.getString("comparator"));
+        assertEquals("object", first.getString("kind"));
+        assertEquals(1, first.getInt("expectedSize"));
+        assertTrue(first.getBoolean("passed"));
+        RecordedEvent second = comparisons.get(1);
+        assertEquals(CustomComparator.class.getName(), second.getString("comparator"));
+        assertFalse(second.getBoolean("passed"));
+        assertEquals(1, second.getInt("failures"));
+
+        List<RecordedEvent> fallbacks = named(events, ARRAY_FALLBACK);
+        assertEquals(1, fallbacks.size());
+        assertEquals("a", fallbacks.get(0).getString("path"));
+        assertEquals(2, fallbacks.get(0).getInt("actualLength"));
+
+        List<RecordedEvent> matchers = named(events, SLOW_VALUE_MATCHER);
+        assertEquals(1, matchers.size());
+        assertEquals("a", matchers.get(0).getString("path"));
+        assertEquals(-1, matchers.get(0).getInt("expectedSize"));
+        assertTrue(matchers.get(0).getBoolean("matched"));
+    }
+
+    @Test
+    public void doesNotRecordDisabledEvents() throws IOException {
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(COMPARISON);
+            recording.disable(ARRAY_FALLBACK);
+            recording.start();
+            JSONCompare.compareJSON("[1,{b:1}]", "[{b:1},1]", JSONCompareMode.LENIENT);
+            recording.stop();
+            events = eventsOf(recording);
+        }
+        assertEquals(1, named(events, COMPARISON).size());
+        assertTrue(named(events, ARRAY_FALLBACK).isEmpty());
+    }
+
+    private List<RecordedEvent> eventsOf(Recording recording) throws IOException {
+        Path file = folder.newFile().toPath();
+        recording.dump(file);
+        return RecordingFile.readAllEvents(file);
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> named = new ArrayList<RecordedEvent>();
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name)) {
+                named.add(event);
+            }
+        }
+        return named;
+    }
+}